@@ -17,9 +17,11 @@
  */
 package com.threewks.thundr;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
@@ -28,18 +30,26 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.lang3.StringUtils;
+
 import com.atomicleopard.expressive.Cast;
-import com.atomicleopard.expressive.Expressive;
+import com.threewks.thundr.action.Action;
 import com.threewks.thundr.action.ActionException;
+import com.threewks.thundr.action.method.bind.http.MultipartHttpBinder;
 import com.threewks.thundr.configuration.ConfigurationModule;
+import com.threewks.thundr.http.ContentType;
+import com.threewks.thundr.http.HeadHttpServletResponse;
 import com.threewks.thundr.http.HttpSupport;
+import com.threewks.thundr.http.RequestIndex;
 import com.threewks.thundr.http.RequestThreadLocal;
+import com.threewks.thundr.http.URLEncoder;
 import com.threewks.thundr.injection.Module;
 import com.threewks.thundr.injection.InjectionContextImpl;
 import com.threewks.thundr.injection.UpdatableInjectionContext;
 import com.threewks.thundr.logger.Logger;
 import com.threewks.thundr.module.ModulesModule;
 import com.threewks.thundr.module.Modules;
+import com.threewks.thundr.profiler.StartupProfiler;
 import com.threewks.thundr.route.RouteModule;
 import com.threewks.thundr.route.RouteType;
 import com.threewks.thundr.route.Routes;
@@ -50,27 +60,42 @@ import com.threewks.thundr.view.ViewResolverRegistry;
 public class ThundrServlet extends HttpServlet {
 	private static final long serialVersionUID = -7179293239117252585L;
 	private static final String POST = "POST";
-	private static final String HEAD = "HEAD";
+	private static final String MethodParameter = "_method";
+	private static final String ModuleStartupThreadsParameter = "moduleStartupThreads";
+	private static final String StartupProfileParameter = "startupProfile";
+	private static final String LazyStartupParameter = "lazyStartup";
 	private UpdatableInjectionContext injectionContext;
 	private Modules modules;
+	// resolved from the injection context once, rather than on every request
+	private volatile Routes routes;
+	private volatile ViewResolverRegistry viewResolverRegistry;
 
 	@Override
 	public void init(ServletConfig config) throws ServletException {
 		super.init(config);
 		try {
 			long start = System.currentTimeMillis();
+			StartupProfiler profiler = new StartupProfiler();
 			ServletContext servletContext = config.getServletContext();
 			injectionContext = initInjectionContext(servletContext);
+			injectionContext.inject(profiler).as(StartupProfiler.class);
+			injectionContext.inject(isLazyStartup()).named(RouteModule.LazyStartup).as(Boolean.class);
 			modules = initModules(injectionContext);
 			debugRoutes(injectionContext);
+			profiler.finish();
 			Logger.info("Started up in %dms", System.currentTimeMillis() - start);
+			reportStartupProfile(profiler, config.getInitParameter(StartupProfileParameter));
+			Routes routes = getRoutes();
+			if (routes != null && routes.isLazyInitialisation()) {
+				initialiseDeferredActions(routes);
+			}
 		} catch (RuntimeException e) {
 			throw new ServletException("Failed to initialse thundr: " + e.getMessage(), e);
 		}
 	}
 
 	private void debugRoutes(UpdatableInjectionContext injectionContext) {
-		Routes routes = injectionContext.get(Routes.class);
+		Routes routes = getRoutes();
 		if (routes == null || routes.isEmpty()) {
 			Logger.warn("No routes are configured for this application.");
 		}
@@ -79,8 +104,19 @@ public class ThundrServlet extends HttpServlet {
 		}
 	}
 
+	private void reportStartupProfile(StartupProfiler profiler, String profileFile) {
+		if (Logger.willDebug()) {
+			Logger.debug("Startup time by phase (us): %s", profiler.getTotalMicrosByPhase());
+		}
+		if (StringUtils.isNotBlank(profileFile)) {
+			profiler.writeJson(new File(profileFile.trim()));
+			Logger.info("Startup profile written to %s", profileFile.trim());
+		}
+	}
+
 	protected Modules initModules(UpdatableInjectionContext injectionContext) {
 		Modules modules = new Modules();
+		modules.setStartupThreads(getModuleStartupThreads());
 		injectionContext.inject(modules).as(Modules.class);
 
 		for (Class<? extends Module> module : getBaseModules()) {
@@ -90,6 +126,60 @@ public class ThundrServlet extends HttpServlet {
 		return modules;
 	}
 
+	/**
+	 * The number of threads used to start modules which do not depend on each other, see {@link Modules#setStartupThreads(int)}.
+	 * By default this is read from the servlet init parameter 'moduleStartupThreads', and is 1 if that is not present.
+	 * 
+	 * @return
+	 */
+	protected int getModuleStartupThreads() {
+		ServletConfig config = getServletConfig();
+		String threads = config == null ? null : config.getInitParameter(ModuleStartupThreadsParameter);
+		return StringUtils.isBlank(threads) ? 1 : Integer.parseInt(threads.trim());
+	}
+
+	/**
+	 * When true, the servlet starts serving once routes are added rather than once every controller has been created,
+	 * see {@link Routes#setLazyInitialisation(boolean)}. Deferred actions are then initialised in the background by
+	 * {@link #initialiseDeferredActions(Routes)}. By default this is read from the servlet init parameter 'lazyStartup', and is false if that is not present.
+	 * 
+	 * @return
+	 */
+	protected boolean isLazyStartup() {
+		ServletConfig config = getServletConfig();
+		return config != null && Boolean.parseBoolean(StringUtils.trim(config.getInitParameter(LazyStartupParameter)));
+	}
+
+	/**
+	 * Initialises the actions deferred by lazy startup on a low priority background thread. Any action used before this reaches it is
+	 * initialised on first use instead. Where threads cannot be started, all deferred actions are left to be initialised on first use.
+	 * 
+	 * @param routes
+	 */
+	protected void initialiseDeferredActions(final Routes routes) {
+		Runnable initialiser = new Runnable() {
+			@Override
+			public void run() {
+				long start = System.currentTimeMillis();
+				int count = routes.getDeferredActionCount();
+				Map<Action, Exception> failures = routes.initialiseDeferredActions();
+				if (failures.isEmpty()) {
+					Logger.info("Initialised %d deferred actions in %dms", count, System.currentTimeMillis() - start);
+				} else {
+					Logger.error("Failed to initialise %d of %d deferred actions, they will fail when used: %s", failures.size(), count, failures.keySet());
+				}
+			}
+		};
+		try {
+			Thread thread = new Thread(initialiser, "thundr-deferred-actions");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			thread.start();
+		} catch (Exception e) {
+			Logger.warn("Unable to initialise deferred actions in the background, they will be initialised when first used: %s", e.getMessage());
+		}
+	}
+
 	protected List<Class<? extends Module>> getBaseModules() {
 		List<Class<? extends Module>> baseModules = new ArrayList<Class<? extends Module>>();
 		baseModules.add(ConfigurationModule.class);
@@ -113,12 +203,12 @@ public class ThundrServlet extends HttpServlet {
 	}
 
 	protected void applyRoute(final RouteType routeType, final HttpServletRequest req, final HttpServletResponse resp) throws ServletException, IOException {
-		final ViewResolverRegistry viewResolverRegistry = injectionContext.get(ViewResolverRegistry.class);
+		final ViewResolverRegistry viewResolverRegistry = getViewResolverRegistry();
 		String requestPath = req.getRequestURI();
 		try {
 			Logger.debug("Invoking path %s", requestPath);
 			RequestThreadLocal.set(req, resp);
-			Routes routes = injectionContext.get(Routes.class);
+			Routes routes = getRoutes();
 			final Object viewResult = routes.invoke(requestPath, routeType, req, resp);
 			if (viewResult != null) {
 				resolveView(req, resp, viewResolverRegistry, viewResult);
@@ -139,6 +229,7 @@ public class ThundrServlet extends HttpServlet {
 				}
 			}
 		} finally {
+			MultipartHttpBinder.deleteSpooledFiles(req);
 			RequestThreadLocal.clear();
 		}
 	}
@@ -157,10 +248,10 @@ public class ThundrServlet extends HttpServlet {
 		if (!handled) {
 			String method = determineMethod(req);
 			RouteType routeType = RouteType.from(method);
-			if (routeType != null) {
-				applyRoute(routeType, req, resp);
-			} else if (HEAD.equals(method)) {
+			if (routeType == RouteType.HEAD) {
 				doHead(req, resp);
+			} else if (routeType != null) {
+				applyRoute(routeType, req, resp);
 			} else {
 				// thundr doesnt deal with these
 				resp.sendError(HttpServletResponse.SC_NOT_IMPLEMENTED, "Request method '" + method + "' not implemented.");
@@ -176,20 +267,39 @@ public class ThundrServlet extends HttpServlet {
 	 */
 	protected String determineMethod(HttpServletRequest req) {
 		String method = req.getMethod();
-		if (POST.equalsIgnoreCase(method)) {
-			String methodOverride = getHeaderCaseInsensitive(req, HttpSupport.Header.XHttpMethodOverride);
-			String methodOverride2 = getParameterCaseInsensitive(req, "_method");
-
+		if (POST.equalsIgnoreCase(method) && isMethodOverrideEnabled()) {
+			String methodOverride = getMethodOverride(req);
 			if (methodOverride != null) {
 				method = methodOverride;
 			}
-			if (methodOverride2 != null) {
-				method = methodOverride2;
-			}
 		}
 		return method;
 	}
 
+	/**
+	 * Determines the method a POST request has asked to be treated as, if any. The X-HTTP-Method-Override header is checked first,
+	 * then a _method parameter in the query string. The body is only read for a _method parameter if it is form url encoded, because
+	 * reading other bodies as parameters (i.e. json or multipart) would parse them before any binder runs.
+	 * 
+	 * @param req
+	 * @return the overriding method, or null if there is none
+	 */
+	protected String getMethodOverride(HttpServletRequest req) {
+		String methodOverride = getHeaderCaseInsensitive(req, HttpSupport.Header.XHttpMethodOverride);
+		if (methodOverride == null) {
+			methodOverride = getQueryParameterCaseInsensitive(req, MethodParameter);
+		}
+		if (methodOverride == null && ContentType.ApplicationFormUrlEncoded.matches(req.getContentType())) {
+			methodOverride = getParameterCaseInsensitive(req, MethodParameter);
+		}
+		return methodOverride;
+	}
+
+	private boolean isMethodOverrideEnabled() {
+		Routes routes = getRoutes();
+		return routes == null || routes.isMethodOverrideEnabled();
+	}
+
 	/**
 	 * A custom extensionpoint which allows overriding servlets to handle requests/route types that thundr currently does not.
 	 * 
@@ -202,33 +312,73 @@ public class ThundrServlet extends HttpServlet {
 	}
 
 	/*
-	 * This method is here so that the basic servlet HEAD functionality continues to work;
+	 * This method is here so that the basic servlet functionality continues to work;
 	 */
 	@Override
 	protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
 		applyRoute(RouteType.GET, req, resp);
 	}
 
-	@SuppressWarnings("unchecked")
+	/**
+	 * Applies the HEAD route, or the GET route if there is none, to a response which discards any content written to it.
+	 * Unlike {@link HttpServlet#doHead(HttpServletRequest, HttpServletResponse)}, view resolvers can tell that no content
+	 * is required and avoid producing it.
+	 */
+	@Override
+	protected void doHead(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		req.setAttribute(HttpSupport.Methods.EffectiveMethodAttribute, HttpSupport.Methods.Head);
+		HeadHttpServletResponse headResp = new HeadHttpServletResponse(resp);
+		applyRoute(RouteType.HEAD, req, headResp);
+		headResp.finish();
+	}
+
+	private Routes getRoutes() {
+		Routes routes = this.routes;
+		if (routes == null) {
+			routes = injectionContext.get(Routes.class);
+			this.routes = routes;
+		}
+		return routes;
+	}
+
+	private ViewResolverRegistry getViewResolverRegistry() {
+		ViewResolverRegistry viewResolverRegistry = this.viewResolverRegistry;
+		if (viewResolverRegistry == null) {
+			viewResolverRegistry = injectionContext.get(ViewResolverRegistry.class);
+			this.viewResolverRegistry = viewResolverRegistry;
+		}
+		return viewResolverRegistry;
+	}
+
 	protected String getParameterCaseInsensitive(HttpServletRequest req, String parameterName) {
-		Iterable<String> iterable = Expressive.<String> iterable(req.getParameterNames());
-		for (String parameter : iterable) {
-			if (parameterName.equalsIgnoreCase(parameter)) {
-				return req.getParameter(parameter);
+		return RequestIndex.of(req).getParameter(parameterName);
+	}
+
+	/**
+	 * Finds a parameter in the query string without reading the body. Names are compared without decoding them, and only the value
+	 * of the matching parameter is decoded, so a malformed escape elsewhere in the query string does not prevent the request being routed.
+	 * A matching parameter whose value is malformed is ignored.
+	 */
+	protected String getQueryParameterCaseInsensitive(HttpServletRequest req, String parameterName) {
+		String queryString = req.getQueryString();
+		if (queryString != null) {
+			for (String pair : StringUtils.split(queryString, '&')) {
+				int equals = pair.indexOf('=');
+				String name = equals < 0 ? pair : pair.substring(0, equals);
+				if (parameterName.equalsIgnoreCase(name)) {
+					try {
+						return equals < 0 ? "" : URLEncoder.decodeQueryComponent(pair.substring(equals + 1));
+					} catch (IllegalArgumentException e) {
+						continue;
+					}
+				}
 			}
 		}
 		return null;
 	}
 
-	@SuppressWarnings("unchecked")
 	protected String getHeaderCaseInsensitive(HttpServletRequest req, String headerName) {
-		Iterable<String> iterable = Expressive.<String> iterable(req.getHeaderNames());
-		for (String header : iterable) {
-			if (headerName.equalsIgnoreCase(header)) {
-				return req.getHeader(header);
-			}
-		}
-		return null;
+		return RequestIndex.of(req).getHeader(headerName);
 	}
 
 	@Override
@@ -0,0 +1,135 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.method;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.threewks.thundr.logger.Logger;
+
+/**
+ * A precomputed index of the parameter names of controller methods, written at build time by the {@link ActionIndexProcessor}.
+ * 
+ * Parameter names are not available through reflection, so without an index they are recovered by reading each controller's
+ * bytecode when its routes are created. Applications which compile with the {@link ActionIndexProcessor} have the names
+ * written into their jar, and any method missing from the index falls back to reading bytecode.
+ * 
+ * The index is a properties file at {@value #Resource}, keyed by {@link #key(Method)} with a comma separated list of
+ * parameter names as the value. All such files on the classpath are combined.
+ */
+public class ActionIndex {
+	public static final String Resource = "META-INF/thundr/action-index.properties";
+	static final String ParameterSeparator = ",";
+
+	private Map<String, String[]> parameterNames = new ConcurrentHashMap<String, String[]>();
+
+	/**
+	 * Loads and combines every action index available from the given {@link ClassLoader}. Indexes which cannot be read are skipped.
+	 * 
+	 * @param classLoader
+	 * @return
+	 */
+	public static ActionIndex load(ClassLoader classLoader) {
+		ActionIndex index = new ActionIndex();
+		try {
+			Enumeration<URL> resources = classLoader == null ? null : classLoader.getResources(Resource);
+			while (resources != null && resources.hasMoreElements()) {
+				index.load(resources.nextElement());
+			}
+		} catch (IOException e) {
+			Logger.warn("Failed to find action indexes, parameter names will be read from bytecode: %s", e.getMessage());
+		}
+		return index;
+	}
+
+	private void load(URL url) {
+		InputStream inputStream = null;
+		try {
+			inputStream = url.openStream();
+			Properties properties = new Properties();
+			properties.load(inputStream);
+			for (String key : properties.stringPropertyNames()) {
+				add(key, parseParameterNames(properties.getProperty(key)));
+			}
+		} catch (IOException e) {
+			Logger.warn("Failed to read the action index %s, parameter names will be read from bytecode: %s", url, e.getMessage());
+		} finally {
+			if (inputStream != null) {
+				try {
+					inputStream.close();
+				} catch (IOException e) {
+					// nothing more to do
+				}
+			}
+		}
+	}
+
+	public void add(String key, String[] names) {
+		parameterNames.put(key, names);
+	}
+
+	/**
+	 * @param method
+	 * @return the parameter names of the given method, or null if it is not in the index
+	 */
+	public String[] getParameterNames(Method method) {
+		String[] names = parameterNames.get(key(method));
+		return names == null || names.length != method.getParameterTypes().length ? null : names;
+	}
+
+	public boolean isEmpty() {
+		return parameterNames.isEmpty();
+	}
+
+	public int size() {
+		return parameterNames.size();
+	}
+
+	/**
+	 * @param method
+	 * @return the key a method is indexed under, i.e. <code>com.example.Controller#method(java.lang.String,int[])</code>
+	 */
+	public static String key(Method method) {
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		String[] typeNames = new String[parameterTypes.length];
+		for (int i = 0; i < parameterTypes.length; i++) {
+			typeNames[i] = typeName(parameterTypes[i]);
+		}
+		return key(method.getDeclaringClass().getName(), method.getName(), typeNames);
+	}
+
+	static String key(String className, String methodName, String[] parameterTypeNames) {
+		return className + "#" + methodName + "(" + StringUtils.join(parameterTypeNames, ParameterSeparator) + ")";
+	}
+
+	static String typeName(Class<?> type) {
+		return type.isArray() ? typeName(type.getComponentType()) + "[]" : type.getName();
+	}
+
+	static String[] parseParameterNames(String value) {
+		return StringUtils.isEmpty(value) ? new String[0] : StringUtils.split(value, ParameterSeparator);
+	}
+}
@@ -0,0 +1,173 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.method;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic.Kind;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * An annotation processor which writes an {@link ActionIndex} of the parameter names of every public method of the classes
+ * being compiled, so that they do not need to be read from bytecode at startup.
+ * 
+ * The processor is not registered automatically, applications enable it by passing
+ * <code>-processor com.threewks.thundr.action.method.ActionIndexProcessor</code> to javac, or listing it in the
+ * <code>annotationProcessors</code> of the maven-compiler-plugin. The option
+ * <code>-Athundr.actionIndex.packages=com.example.controller,...</code> limits the index to classes in the given packages.
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(ActionIndexProcessor.PackagesOption)
+public class ActionIndexProcessor extends AbstractProcessor {
+	public static final String PackagesOption = "thundr.actionIndex.packages";
+
+	private Properties index = new Properties();
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+		List<String> packages = getPackages();
+		for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+			addType(type, packages);
+		}
+		if (roundEnv.processingOver() && !index.isEmpty()) {
+			write();
+		}
+		// never claim annotations, so that other processors still see them
+		return false;
+	}
+
+	private void addType(TypeElement type, List<String> packages) {
+		if (type.getKind() == ElementKind.CLASS && type.getModifiers().contains(Modifier.PUBLIC) && isIncluded(type, packages)) {
+			String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+			for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+				if (method.getModifiers().contains(Modifier.PUBLIC)) {
+					addMethod(className, method);
+				}
+			}
+		}
+		for (Element enclosed : type.getEnclosedElements()) {
+			if (enclosed.getModifiers().contains(Modifier.STATIC) && enclosed instanceof TypeElement) {
+				addType((TypeElement) enclosed, packages);
+			}
+		}
+	}
+
+	private void addMethod(String className, ExecutableElement method) {
+		List<? extends VariableElement> parameters = method.getParameters();
+		String[] typeNames = new String[parameters.size()];
+		String[] names = new String[parameters.size()];
+		for (int i = 0; i < parameters.size(); i++) {
+			VariableElement parameter = parameters.get(i);
+			typeNames[i] = typeName(parameter.asType());
+			names[i] = parameter.getSimpleName().toString();
+		}
+		index.setProperty(ActionIndex.key(className, method.getSimpleName().toString(), typeNames), StringUtils.join(names, ActionIndex.ParameterSeparator));
+	}
+
+	/**
+	 * @param type
+	 * @return the name of the erasure of the given type, matching {@link ActionIndex#typeName(Class)} for the class it will be at runtime
+	 */
+	private String typeName(TypeMirror type) {
+		TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+		if (erasure.getKind() == TypeKind.ARRAY) {
+			return typeName(((ArrayType) erasure).getComponentType()) + "[]";
+		}
+		if (erasure.getKind() == TypeKind.DECLARED) {
+			TypeElement element = (TypeElement) ((DeclaredType) erasure).asElement();
+			return processingEnv.getElementUtils().getBinaryName(element).toString();
+		}
+		return erasure.toString();
+	}
+
+	private boolean isIncluded(TypeElement type, List<String> packages) {
+		if (packages.isEmpty()) {
+			return true;
+		}
+		String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+		for (String pkg : packages) {
+			if (packageName.equals(pkg) || packageName.startsWith(pkg + ".")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private List<String> getPackages() {
+		String option = processingEnv.getOptions().get(PackagesOption);
+		if (StringUtils.isBlank(option)) {
+			return Collections.emptyList();
+		}
+		List<String> packages = new ArrayList<String>();
+		for (String pkg : StringUtils.split(option, ",")) {
+			if (StringUtils.isNotBlank(pkg)) {
+				packages.add(pkg.trim());
+			}
+		}
+		return packages;
+	}
+
+	private void write() {
+		OutputStream outputStream = null;
+		try {
+			FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", ActionIndex.Resource);
+			outputStream = resource.openOutputStream();
+			index.store(outputStream, "Generated by " + getClass().getName());
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Kind.WARNING, "Failed to write " + ActionIndex.Resource + ": " + e.getMessage());
+		} finally {
+			if (outputStream != null) {
+				try {
+					outputStream.close();
+				} catch (IOException e) {
+					// nothing more to do
+				}
+			}
+		}
+	}
+}
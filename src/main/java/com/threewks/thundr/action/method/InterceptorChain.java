@@ -0,0 +1,90 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.method;
+
+import java.lang.annotation.Annotation;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * The {@link ActionInterceptor}s which apply to a {@link MethodAction}, in the order their annotations are declared on the
+ * action method. A chain is immutable, so it is replaced rather than updated when the registered interceptors change.
+ */
+class InterceptorChain {
+	private final Map<Class<? extends Annotation>, ActionInterceptor<? extends Annotation>> registeredInterceptors;
+	private final Annotation[] annotations;
+	private final ActionInterceptor<Annotation>[] interceptors;
+
+	InterceptorChain(Map<Annotation, ActionInterceptor<Annotation>> interceptors, Map<Class<? extends Annotation>, ActionInterceptor<? extends Annotation>> registeredInterceptors) {
+		this.registeredInterceptors = registeredInterceptors;
+		this.annotations = new Annotation[interceptors.size()];
+		@SuppressWarnings("unchecked")
+		ActionInterceptor<Annotation>[] chain = (ActionInterceptor<Annotation>[]) new ActionInterceptor<?>[interceptors.size()];
+		this.interceptors = chain;
+		int i = 0;
+		for (Map.Entry<Annotation, ActionInterceptor<Annotation>> entry : interceptors.entrySet()) {
+			this.annotations[i] = entry.getKey();
+			this.interceptors[i] = entry.getValue();
+			i++;
+		}
+	}
+
+	/**
+	 * @param registeredInterceptors
+	 * @return true if this chain was built from the given registered interceptors
+	 */
+	boolean isFor(Map<Class<? extends Annotation>, ActionInterceptor<? extends Annotation>> registeredInterceptors) {
+		return this.registeredInterceptors == registeredInterceptors;
+	}
+
+	int size() {
+		return interceptors.length;
+	}
+
+	Object before(HttpServletRequest req, HttpServletResponse resp) {
+		for (int i = 0; i < interceptors.length; i++) {
+			Object interceptorResult = interceptors[i].before(annotations[i], req, resp);
+			if (interceptorResult != null) {
+				return interceptorResult;
+			}
+		}
+		return null;
+	}
+
+	Object after(Object result, HttpServletRequest req, HttpServletResponse resp) {
+		for (int i = 0; i < interceptors.length; i++) {
+			Object interceptorResult = interceptors[i].after(annotations[i], result, req, resp);
+			if (interceptorResult != null) {
+				return interceptorResult;
+			}
+		}
+		return result;
+	}
+
+	Object exception(Exception e, HttpServletRequest req, HttpServletResponse resp) {
+		for (int i = 0; i < interceptors.length; i++) {
+			Object interceptorResult = interceptors[i].exception(annotations[i], e, req, resp);
+			if (interceptorResult != null) {
+				return interceptorResult;
+			}
+		}
+		return null;
+	}
+}
@@ -35,21 +35,45 @@ import com.threewks.thundr.introspection.ParameterDescription;
 public class MethodAction implements Action {
 	private Class<?> class1;
 	private Method method;
+	private volatile MethodInvoker invoker;
+	private volatile Object controller;
+	private volatile InterceptorChain interceptors;
 
 	private List<ParameterDescription> parameters = new ArrayList<ParameterDescription>();
 
 	public MethodAction(Class<?> class1, String methodName) {
+		this(class1, methodName, null);
+	}
+
+	/**
+	 * @param class1
+	 * @param methodName
+	 * @param actionIndex parameter names are taken from this index if present, otherwise they are read from bytecode
+	 */
+	public MethodAction(Class<?> class1, String methodName, ActionIndex actionIndex) {
 		this.class1 = class1;
 		this.method = ReflectUtil.findMethod(class1, methodName);
 		if (this.method == null) {
 			throw new ActionException("Unable to create %s - the method %s.%s does not exist", getClass().getSimpleName(), class1.getName(), methodName);
 		}
+		this.invoker = MethodInvokers.reflective(method);
 		Type[] genericParameters = method.getGenericParameterTypes();
-		MethodParameter[] parameterNames = Paramo.resolveParameters(method);
+		String[] parameterNames = resolveParameterNames(method, actionIndex);
 		for (int i = 0; i < genericParameters.length; i++) {
-			String name = parameterNames[i].getName();
-			this.parameters.add(new ParameterDescription(name, genericParameters[i]));
+			this.parameters.add(new ParameterDescription(parameterNames[i], genericParameters[i]));
+		}
+	}
+
+	private static String[] resolveParameterNames(Method method, ActionIndex actionIndex) {
+		String[] names = actionIndex == null ? null : actionIndex.getParameterNames(method);
+		if (names == null) {
+			MethodParameter[] parameters = Paramo.resolveParameters(method);
+			names = new String[parameters.length];
+			for (int i = 0; i < parameters.length; i++) {
+				names[i] = parameters[i].getName();
+			}
 		}
+		return names;
 	}
 
 	public List<ParameterDescription> parameters() {
@@ -57,7 +81,46 @@ public class MethodAction implements Action {
 	}
 
 	public Object invoke(Object controller, List<?> args) throws Exception {
-		return method.invoke(controller, args.toArray());
+		return invoke(controller, args.toArray());
+	}
+
+	public Object invoke(Object controller, Object[] args) throws Exception {
+		return invoker.invoke(controller, args);
+	}
+
+	public MethodInvoker invoker() {
+		return invoker;
+	}
+
+	/**
+	 * Replaces the {@link MethodInvoker} used to invoke this action, by default methods are invoked reflectively.
+	 * 
+	 * @param invoker
+	 */
+	public void invoker(MethodInvoker invoker) {
+		this.invoker = invoker;
+	}
+
+	/**
+	 * @return the controller instance this action is invoked on, or null if it has not been resolved yet
+	 */
+	Object controller() {
+		return controller;
+	}
+
+	void controller(Object controller) {
+		this.controller = controller;
+	}
+
+	/**
+	 * @return the interceptors which apply to this action, or null if they have not been resolved yet
+	 */
+	InterceptorChain interceptors() {
+		return interceptors;
+	}
+
+	void interceptors(InterceptorChain interceptors) {
+		this.interceptors = interceptors;
 	}
 
 	@Override
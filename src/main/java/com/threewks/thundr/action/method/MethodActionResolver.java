@@ -20,12 +20,13 @@ package com.threewks.thundr.action.method;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -37,19 +38,22 @@ import com.threewks.thundr.action.ActionException;
 import com.threewks.thundr.action.ActionResolver;
 import com.threewks.thundr.action.method.bind.ActionMethodBinder;
 import com.threewks.thundr.action.method.bind.ActionMethodBinderRegistry;
+import com.threewks.thundr.action.method.bind.ActionMethodBindingPlan;
 import com.threewks.thundr.exception.BaseException;
 import com.threewks.thundr.injection.UpdatableInjectionContext;
-import com.threewks.thundr.introspection.ParameterDescription;
 import com.threewks.thundr.logger.Logger;
+import com.threewks.thundr.profiler.StartupProfiler;
 import com.threewks.thundr.route.RouteType;
 
 public class MethodActionResolver implements ActionResolver<MethodAction>, ActionInterceptorRegistry {
 
-	private Map<Class<?>, Object> controllerInstances = new HashMap<Class<?>, Object>();
-	private Map<Class<? extends Annotation>, ActionInterceptor<? extends Annotation>> actionInterceptors = new HashMap<Class<? extends Annotation>, ActionInterceptor<? extends Annotation>>();
+	private ConcurrentHashMap<Class<?>, Object> controllerInstances = new ConcurrentHashMap<Class<?>, Object>();
+	// replaced, never modified, when an interceptor is registered so that interceptor chains can tell if they are out of date
+	private volatile Map<Class<? extends Annotation>, ActionInterceptor<? extends Annotation>> actionInterceptors = Collections.emptyMap();
 	private ActionMethodBinderRegistry methodBinderRegistry = new ActionMethodBinderRegistry();
 	private UpdatableInjectionContext injectionContext;
-	private Map<Method, Map<Annotation, ActionInterceptor<Annotation>>> interceptorCache = new WeakHashMap<Method, Map<Annotation, ActionInterceptor<Annotation>>>();
+	private Map<MethodAction, ActionMethodBindingPlan> bindingPlans = new ConcurrentHashMap<MethodAction, ActionMethodBindingPlan>();
+	private ActionIndex actionIndex = ActionIndex.load(MethodActionResolver.class.getClassLoader());
 
 	public MethodActionResolver(UpdatableInjectionContext injectionContext) {
 		this.injectionContext = injectionContext;
@@ -59,12 +63,28 @@ public class MethodActionResolver implements ActionResolver<MethodAction>, Actio
 	@Override
 	public void initialise(MethodAction methodAction) {
 		// force instantiation of controller - this allows controllers to be injected into eachother
-		// and also flushes out instantiation issues at startup
-		Object controller = createController(methodAction);
-		Class<Object> key = methodAction.type();
-		if (!controllerInstances.containsKey(key)) {
-			controllerInstances.put(key, controller);
+		// and also flushes out instantiation issues at startup. Shares creation with the request path so that actions
+		// initialised in the background never race a request into creating a second controller
+		StartupProfiler.Timing timing = StartupProfiler.from(injectionContext).start(StartupProfiler.ControllerInitialise, methodAction.type().getName());
+		try {
+			getOrCreateController(methodAction);
+		} finally {
+			timing.stop();
 		}
+		getInterceptors(methodAction);
+		getBindingPlan(methodAction);
+		methodAction.invoker(MethodInvokers.create(methodAction.method()));
+	}
+
+	/**
+	 * @return the index parameter names are read from before falling back to reading bytecode
+	 */
+	public ActionIndex getActionIndex() {
+		return actionIndex;
+	}
+
+	public void setActionIndex(ActionIndex actionIndex) {
+		this.actionIndex = actionIndex;
 	}
 
 	@Override
@@ -77,7 +97,7 @@ public class MethodActionResolver implements ActionResolver<MethodAction>, Actio
 		}
 		try {
 			Class<?> clazz = Class.forName(className); // TODO - Restricted in GAE - why is this better? ClassLoaderUtil.loadClass(className);
-			MethodAction methodAction = new MethodAction(clazz, methodName);
+			MethodAction methodAction = new MethodAction(clazz, methodName, actionIndex);
 			return methodAction;
 		} catch (ActionException e) {
 			return null;
@@ -91,15 +111,15 @@ public class MethodActionResolver implements ActionResolver<MethodAction>, Actio
 	@Override
 	public Object resolve(MethodAction action, RouteType routeType, HttpServletRequest req, HttpServletResponse resp, Map<String, String> pathVars) throws ActionException {
 		Object controller = getOrCreateController(action);
-		Map<Annotation, ActionInterceptor<Annotation>> interceptors = getInterceptors(action);
+		InterceptorChain interceptors = getInterceptors(action);
 		Object result = null;
 		Exception exception = null;
 		try {
-			result = beforeInterceptors(interceptors, req, resp);
+			result = interceptors.before(req, resp);
 			if (result == null) {
-				List<?> arguments = bindArguments(action, req, resp, pathVars);
+				Object[] arguments = getBindingPlan(action).bind(req, resp, pathVars);
 				result = action.invoke(controller, arguments);
-				result = afterInterceptors(result, interceptors, req, resp);
+				result = interceptors.after(result, req, resp);
 			}
 		} catch (InvocationTargetException e) {
 			// we need to unwrap InvocationTargetExceptions to get at the real exception
@@ -111,7 +131,7 @@ public class MethodActionResolver implements ActionResolver<MethodAction>, Actio
 			exception = e;
 		}
 		if (exception != null) {
-			result = exceptionInterceptors(interceptors, req, resp, exception);
+			result = interceptors.exception(exception, req, resp);
 			if (result == null) {
 				throw new ActionException(exception, "Failed in %s: %s", action, exception.getMessage());
 			}
@@ -120,70 +140,54 @@ public class MethodActionResolver implements ActionResolver<MethodAction>, Actio
 		return result;
 	}
 
-	private Map<Annotation, ActionInterceptor<Annotation>> getInterceptors(MethodAction action) {
-		Method method = action.method();
-		Map<Annotation, ActionInterceptor<Annotation>> results = interceptorCache.get(method);
-		if (results == null) {
-			results = findInterceptors(method);
-			interceptorCache.put(method, results);
+	/**
+	 * Returns the interceptor chain for the given action, building it if it has not been built or if interceptors have been
+	 * registered since it was built.
+	 */
+	InterceptorChain getInterceptors(MethodAction action) {
+		Map<Class<? extends Annotation>, ActionInterceptor<? extends Annotation>> registeredInterceptors = this.actionInterceptors;
+		InterceptorChain chain = action.interceptors();
+		if (chain == null || !chain.isFor(registeredInterceptors)) {
+			chain = new InterceptorChain(findInterceptors(action.method(), registeredInterceptors), registeredInterceptors);
+			action.interceptors(chain);
 		}
-		return results;
+		return chain;
 	}
 
 	List<Object> bindArguments(MethodAction action, HttpServletRequest req, HttpServletResponse resp, Map<String, String> pathVars) {
-		Map<ParameterDescription, Object> boundParameters = new LinkedHashMap<ParameterDescription, Object>();
-		for (ParameterDescription parameterDescription : action.parameters()) {
-			boundParameters.put(parameterDescription, null);
-		}
-		if (!boundParameters.isEmpty()) {
-			for (ActionMethodBinder binder : methodBinderRegistry.getRegisteredActionMethodBinders()) {
-				binder.bindAll(boundParameters, req, resp, pathVars);
-			}
-		}
-		return new ArrayList<Object>(boundParameters.values());
-	}
-
-	private Object afterInterceptors(Object result, Map<Annotation, ActionInterceptor<Annotation>> interceptors, HttpServletRequest req, HttpServletResponse resp) {
-		for (Map.Entry<Annotation, ActionInterceptor<Annotation>> interceptorEntry : interceptors.entrySet()) {
-			Object interceptorResult = interceptorEntry.getValue().after(interceptorEntry.getKey(), result, req, resp);
-			if (interceptorResult != null) {
-				return interceptorResult;
-			}
-		}
-
-		return result;
+		return Arrays.asList(getBindingPlan(action).bind(req, resp, pathVars));
 	}
 
-	private Object exceptionInterceptors(Map<Annotation, ActionInterceptor<Annotation>> interceptors, HttpServletRequest req, HttpServletResponse resp, Exception e) {
-		for (Map.Entry<Annotation, ActionInterceptor<Annotation>> interceptorEntry : interceptors.entrySet()) {
-			Object interceptorResult = interceptorEntry.getValue().exception(interceptorEntry.getKey(), e, req, resp);
-			if (interceptorResult != null) {
-				return interceptorResult;
-			}
+	/**
+	 * Returns the binding plan for the given action, preparing it if it has not been prepared or if the registered
+	 * {@link ActionMethodBinder}s have changed since it was prepared.
+	 */
+	ActionMethodBindingPlan getBindingPlan(MethodAction action) {
+		Iterable<ActionMethodBinder> binders = methodBinderRegistry.getRegisteredActionMethodBinders();
+		ActionMethodBindingPlan plan = bindingPlans.get(action);
+		if (plan == null || !plan.isFor(binders)) {
+			plan = new ActionMethodBindingPlan(action.parameters(), binders);
+			bindingPlans.put(action, plan);
 		}
-		return null;
-	}
-
-	private Object beforeInterceptors(Map<Annotation, ActionInterceptor<Annotation>> interceptors, HttpServletRequest req, HttpServletResponse resp) {
-		for (Map.Entry<Annotation, ActionInterceptor<Annotation>> interceptorEntry : interceptors.entrySet()) {
-			Object interceptorResult = interceptorEntry.getValue().before(interceptorEntry.getKey(), req, resp);
-			if (interceptorResult != null) {
-				return interceptorResult;
-			}
-		}
-		return null;
+		return plan;
 	}
 
 	private Object getOrCreateController(MethodAction methodAction) {
-		Object controller = controllerInstances.get(methodAction.type());
+		Object controller = methodAction.controller();
 		if (controller == null) {
-			synchronized (controllerInstances) {
-				controller = controllerInstances.get(methodAction.type());
-				if (controller == null) {
-					controller = createController(methodAction);
-					controllerInstances.put(methodAction.type(), controller);
+			controller = controllerInstances.get(methodAction.type());
+			if (controller == null) {
+				synchronized (controllerInstances) {
+					controller = controllerInstances.get(methodAction.type());
+					if (controller == null) {
+						controller = createController(methodAction);
+						if (controller != null) {
+							controllerInstances.put(methodAction.type(), controller);
+						}
+					}
 				}
 			}
+			methodAction.controller(controller);
 		}
 		return controller;
 	}
@@ -201,10 +205,15 @@ public class MethodActionResolver implements ActionResolver<MethodAction>, Actio
 	}
 
 	Map<Annotation, ActionInterceptor<Annotation>> findInterceptors(Method method) {
+		return findInterceptors(method, this.actionInterceptors);
+	}
+
+	@SuppressWarnings("unchecked")
+	private Map<Annotation, ActionInterceptor<Annotation>> findInterceptors(Method method, Map<Class<? extends Annotation>, ActionInterceptor<? extends Annotation>> registeredInterceptors) {
 		Map<Annotation, ActionInterceptor<Annotation>> interceptors = new LinkedHashMap<Annotation, ActionInterceptor<Annotation>>();
 		for (Annotation annotation : method.getDeclaredAnnotations()) {
 			Class<? extends Annotation> annotationType = annotation.annotationType();
-			ActionInterceptor<Annotation> actionInterceptor = interceptor(annotationType);
+			ActionInterceptor<Annotation> actionInterceptor = (ActionInterceptor<Annotation>) registeredInterceptors.get(annotationType);
 			if (actionInterceptor != null) {
 				interceptors.put(annotation, actionInterceptor);
 			}
@@ -214,8 +223,10 @@ public class MethodActionResolver implements ActionResolver<MethodAction>, Actio
 	}
 
 	@Override
-	public <A extends Annotation> void registerInterceptor(Class<A> annotation, ActionInterceptor<A> interceptor) {
+	public synchronized <A extends Annotation> void registerInterceptor(Class<A> annotation, ActionInterceptor<A> interceptor) {
+		Map<Class<? extends Annotation>, ActionInterceptor<? extends Annotation>> actionInterceptors = new HashMap<Class<? extends Annotation>, ActionInterceptor<? extends Annotation>>(this.actionInterceptors);
 		actionInterceptors.put(annotation, interceptor);
+		this.actionInterceptors = Collections.unmodifiableMap(actionInterceptors);
 		Logger.info("Added ActionInterceptor %s for methods annotated with %s", interceptor, annotation);
 	}
 
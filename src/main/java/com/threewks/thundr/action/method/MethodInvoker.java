@@ -0,0 +1,36 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.method;
+
+/**
+ * Invokes a controller method. Implementations are created once for each {@link MethodAction}.
+ * 
+ * Unlike {@link java.lang.reflect.Method#invoke(Object, Object...)}, an exception thrown by the controller method may be thrown directly
+ * rather than wrapped in an {@link java.lang.reflect.InvocationTargetException}, so callers should handle both.
+ * 
+ * @see MethodInvokers
+ */
+public interface MethodInvoker {
+	/**
+	 * @param controller the controller instance to invoke the method on, ignored for static methods
+	 * @param args the arguments, in order
+	 * @return the result of the invoked method, boxed if it is a primitive, or null if the method is void
+	 * @throws Exception
+	 */
+	public Object invoke(Object controller, Object[] args) throws Exception;
+}
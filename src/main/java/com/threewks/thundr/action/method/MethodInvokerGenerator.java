@@ -0,0 +1,218 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.method;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jodd.asm5.ClassWriter;
+import jodd.asm5.MethodVisitor;
+import jodd.asm5.Opcodes;
+import jodd.asm5.Type;
+
+import com.threewks.thundr.action.ActionException;
+
+/**
+ * Generates a {@link MethodInvoker} class for a single method. The generated class is equivalent to:
+ * 
+ * <pre>
+ * public final class Invoker implements MethodInvoker {
+ * 	public Object invoke(Object controller, Object[] args) {
+ * 		return ((Controller) controller).method((String) args[0], ((Integer) args[1]).intValue());
+ * 	}
+ * }
+ * </pre>
+ * 
+ * The class is written using the ASM library repackaged in jodd proxetta. Generated classes are defined in a class loader
+ * shared by all the controllers of a class loader, and parented by it, so they can be unloaded along with the controllers.
+ */
+class MethodInvokerGenerator {
+	private static final String GeneratedPackage = "com/threewks/thundr/action/method/generated/";
+	private static final String InvokerInterface = Type.getInternalName(MethodInvoker.class);
+	private static final String InvokeDescriptor = "(Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;";
+
+	private static final Map<Class<?>, Class<?>> Wrappers = new HashMap<Class<?>, Class<?>>();
+	static {
+		Wrappers.put(boolean.class, Boolean.class);
+		Wrappers.put(byte.class, Byte.class);
+		Wrappers.put(char.class, Character.class);
+		Wrappers.put(short.class, Short.class);
+		Wrappers.put(int.class, Integer.class);
+		Wrappers.put(long.class, Long.class);
+		Wrappers.put(float.class, Float.class);
+		Wrappers.put(double.class, Double.class);
+	}
+
+	private AtomicInteger count = new AtomicInteger();
+	/*
+	 * The loaders are held weakly, so that they are only retained by the invokers they have defined. The InvokerClassLoader refers to
+	 * its parent, so holding it strongly as a value would prevent the key ever being collected.
+	 */
+	private Map<ClassLoader, WeakReference<InvokerClassLoader>> classLoaders = new WeakHashMap<ClassLoader, WeakReference<InvokerClassLoader>>();
+
+	/**
+	 * A generated invoker can only call methods which are accessible from outside the package of the controller.
+	 * 
+	 * @param method
+	 * @return true if an invoker can be generated for the given method
+	 */
+	static boolean canGenerate(Method method) {
+		Class<?> owner = method.getDeclaringClass();
+		if (!Modifier.isPublic(method.getModifiers()) || !isPublic(owner)) {
+			return false;
+		}
+		for (Class<?> parameterType : method.getParameterTypes()) {
+			if (!isPublic(parameterType)) {
+				return false;
+			}
+		}
+		return isVisible(loaderFor(owner));
+	}
+
+	MethodInvoker generate(Method method) {
+		Class<?> owner = method.getDeclaringClass();
+		String className = GeneratedPackage + owner.getSimpleName() + "$" + method.getName() + "$Invoker" + count.incrementAndGet();
+		byte[] classFile = write(className, method);
+		try {
+			Class<?> invokerClass = classLoaderFor(loaderFor(owner)).define(className.replace('/', '.'), classFile);
+			return (MethodInvoker) invokerClass.newInstance();
+		} catch (Exception e) {
+			throw new ActionException(e, "Failed to generate an invoker for %s: %s", method, e.getMessage());
+		}
+	}
+
+	byte[] write(String className, Method method) {
+		ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		classWriter.visit(Opcodes.V1_5, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, className, null, "java/lang/Object", new String[] { InvokerInterface });
+		writeConstructor(classWriter);
+		writeInvoke(classWriter, method);
+		classWriter.visitEnd();
+		return classWriter.toByteArray();
+	}
+
+	private void writeConstructor(ClassWriter classWriter) {
+		MethodVisitor mv = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(Opcodes.ALOAD, 0);
+		mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		mv.visitInsn(Opcodes.RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	private void writeInvoke(ClassWriter classWriter, Method method) {
+		Class<?> owner = method.getDeclaringClass();
+		String ownerName = Type.getInternalName(owner);
+		boolean isStatic = Modifier.isStatic(method.getModifiers());
+		boolean isInterface = owner.isInterface();
+		Class<?>[] parameterTypes = method.getParameterTypes();
+
+		MethodVisitor mv = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "invoke", InvokeDescriptor, null, null);
+		mv.visitCode();
+		if (!isStatic) {
+			mv.visitVarInsn(Opcodes.ALOAD, 1);
+			mv.visitTypeInsn(Opcodes.CHECKCAST, ownerName);
+		}
+		for (int i = 0; i < parameterTypes.length; i++) {
+			Class<?> parameterType = parameterTypes[i];
+			mv.visitVarInsn(Opcodes.ALOAD, 2);
+			mv.visitLdcInsn(i);
+			mv.visitInsn(Opcodes.AALOAD);
+			if (parameterType.isPrimitive()) {
+				String wrapper = Type.getInternalName(Wrappers.get(parameterType));
+				mv.visitTypeInsn(Opcodes.CHECKCAST, wrapper);
+				mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, wrapper, parameterType.getName() + "Value", "()" + Type.getDescriptor(parameterType), false);
+			} else if (parameterType != Object.class) {
+				mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(parameterType));
+			}
+		}
+
+		String descriptor = Type.getMethodDescriptor(method);
+		if (isStatic) {
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, ownerName, method.getName(), descriptor, isInterface);
+		} else if (isInterface) {
+			mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, ownerName, method.getName(), descriptor, true);
+		} else {
+			mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, ownerName, method.getName(), descriptor, false);
+		}
+
+		Class<?> returnType = method.getReturnType();
+		if (returnType == void.class) {
+			mv.visitInsn(Opcodes.ACONST_NULL);
+		} else if (returnType.isPrimitive()) {
+			Class<?> wrapper = Wrappers.get(returnType);
+			mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(wrapper), "valueOf", "(" + Type.getDescriptor(returnType) + ")" + Type.getDescriptor(wrapper), false);
+		}
+		mv.visitInsn(Opcodes.ARETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+	}
+
+	private synchronized InvokerClassLoader classLoaderFor(ClassLoader parent) {
+		WeakReference<InvokerClassLoader> reference = classLoaders.get(parent);
+		InvokerClassLoader classLoader = reference == null ? null : reference.get();
+		if (classLoader == null) {
+			classLoader = new InvokerClassLoader(parent);
+			classLoaders.put(parent, new WeakReference<InvokerClassLoader>(classLoader));
+		}
+		return classLoader;
+	}
+
+	private static boolean isPublic(Class<?> type) {
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+		for (Class<?> current = type; current != null; current = current.getEnclosingClass()) {
+			if (!current.isPrimitive() && !Modifier.isPublic(current.getModifiers())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * The generated class must be able to see the same {@link MethodInvoker} interface as this class.
+	 */
+	private static boolean isVisible(ClassLoader classLoader) {
+		try {
+			return Class.forName(MethodInvoker.class.getName(), false, classLoader) == MethodInvoker.class;
+		} catch (ClassNotFoundException e) {
+			return false;
+		}
+	}
+
+	private static ClassLoader loaderFor(Class<?> owner) {
+		ClassLoader classLoader = owner.getClassLoader();
+		return classLoader == null ? MethodInvoker.class.getClassLoader() : classLoader;
+	}
+
+	private static class InvokerClassLoader extends ClassLoader {
+		InvokerClassLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		Class<?> define(String name, byte[] classFile) {
+			return defineClass(name, classFile, 0, classFile.length);
+		}
+	}
+}
@@ -0,0 +1,48 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.method;
+
+import java.lang.reflect.Method;
+
+import com.threewks.thundr.logger.Logger;
+
+/**
+ * Creates {@link MethodInvoker}s for controller methods.
+ * 
+ * Where possible, a class is generated which calls the controller method directly, avoiding the cost of reflection on every request.
+ * This is possible for public methods on public classes whose parameter types are public. For any other method, or if the
+ * class cannot be generated (for example because a security manager prevents it), a {@link ReflectiveMethodInvoker} is used instead.
+ */
+public class MethodInvokers {
+	private static MethodInvokerGenerator generator = new MethodInvokerGenerator();
+
+	public static MethodInvoker create(Method method) {
+		if (MethodInvokerGenerator.canGenerate(method)) {
+			try {
+				return generator.generate(method);
+			} catch (Throwable e) {
+				Logger.debug("Unable to generate an invoker for %s, falling back to reflection: %s", method, e.getMessage());
+			}
+		}
+		return reflective(method);
+	}
+
+	public static MethodInvoker reflective(Method method) {
+		return new ReflectiveMethodInvoker(method);
+	}
+}
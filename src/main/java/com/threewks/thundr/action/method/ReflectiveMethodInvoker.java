@@ -0,0 +1,41 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.method;
+
+import java.lang.reflect.Method;
+
+/**
+ * A {@link MethodInvoker} which uses reflection. This works for any method, and is used when a more direct invoker cannot be generated.
+ */
+public class ReflectiveMethodInvoker implements MethodInvoker {
+	private Method method;
+
+	public ReflectiveMethodInvoker(Method method) {
+		this.method = method;
+	}
+
+	@Override
+	public Object invoke(Object controller, Object[] args) throws Exception {
+		return method.invoke(controller, args);
+	}
+
+	@Override
+	public String toString() {
+		return "Reflective invoker for " + method;
+	}
+}
@@ -17,7 +17,10 @@
  */
 package com.threewks.thundr.action.method.bind;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.threewks.thundr.action.method.bind.http.HttpBinder;
@@ -32,6 +35,7 @@ import com.threewks.thundr.action.method.bind.request.SessionAttributeBinder;
 
 public class ActionMethodBinderRegistry {
 	private Map<Class<? extends ActionMethodBinder>, ActionMethodBinder> methodBinders = new LinkedHashMap<Class<? extends ActionMethodBinder>, ActionMethodBinder>();
+	private volatile List<ActionMethodBinder> registeredBinders = Collections.emptyList();
 
 	public ActionMethodBinderRegistry() {
 	}
@@ -49,16 +53,24 @@ public class ActionMethodBinderRegistry {
 		registerActionMethodBinder(new MultipartHttpBinder());
 	}
 
-	public void registerActionMethodBinder(ActionMethodBinder binder) {
+	public synchronized void registerActionMethodBinder(ActionMethodBinder binder) {
 		methodBinders.put(binder.getClass(), binder);
+		registeredBinders = Collections.unmodifiableList(new ArrayList<ActionMethodBinder>(methodBinders.values()));
 	}
 
-	public void deregisterActionMethodBinder(Class<? extends ActionMethodBinder> type) {
+	public synchronized void deregisterActionMethodBinder(Class<? extends ActionMethodBinder> type) {
 		methodBinders.remove(type);
+		registeredBinders = Collections.unmodifiableList(new ArrayList<ActionMethodBinder>(methodBinders.values()));
 	}
 
+	/**
+	 * Returns the registered binders in the order they should be applied. The returned value is an immutable snapshot,
+	 * a new instance is returned after any binder is registered or deregistered.
+	 * 
+	 * @return
+	 */
 	public Iterable<ActionMethodBinder> getRegisteredActionMethodBinders() {
-		return methodBinders.values();
+		return registeredBinders;
 	}
 
 }
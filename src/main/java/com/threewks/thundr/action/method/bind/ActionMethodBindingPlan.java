@@ -0,0 +1,104 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.method.bind;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.atomicleopard.expressive.Cast;
+import com.threewks.thundr.introspection.ParameterDescription;
+
+/**
+ * Records the {@link ActionMethodBinder}s which need to be applied to bind the arguments of a controller method.
+ * 
+ * A plan is prepared once per method from the binders registered at the time. Binders which cannot bind any parameter
+ * of the method (see {@link SelectiveActionMethodBinder}) are left out, and no binders are run once every argument is bound.
+ * Bound arguments are written directly into the array which is passed to the method.
+ */
+public class ActionMethodBindingPlan {
+	private final ParameterDescription[] parameters;
+	private final ActionMethodBinder[] binders;
+	private final Iterable<ActionMethodBinder> registeredBinders;
+
+	public ActionMethodBindingPlan(List<ParameterDescription> parameters, Iterable<ActionMethodBinder> registeredBinders) {
+		this.parameters = parameters.toArray(new ParameterDescription[parameters.size()]);
+		this.registeredBinders = registeredBinders;
+		List<ActionMethodBinder> binders = new ArrayList<ActionMethodBinder>();
+		if (!parameters.isEmpty()) {
+			for (ActionMethodBinder binder : registeredBinders) {
+				SelectiveActionMethodBinder selectiveBinder = Cast.as(binder, SelectiveActionMethodBinder.class);
+				if (selectiveBinder == null || selectiveBinder.canBindAny(parameters)) {
+					binders.add(binder);
+				}
+			}
+		}
+		this.binders = binders.toArray(new ActionMethodBinder[binders.size()]);
+	}
+
+	/**
+	 * @param registeredBinders
+	 * @return true if this plan was prepared from the given binders
+	 */
+	public boolean isFor(Iterable<ActionMethodBinder> registeredBinders) {
+		return this.registeredBinders == registeredBinders;
+	}
+
+	/**
+	 * @return the binders which will be applied by this plan, in order
+	 */
+	public List<ActionMethodBinder> getBinders() {
+		return Collections.unmodifiableList(Arrays.asList(binders));
+	}
+
+	/**
+	 * Binds the arguments for the planned method from the given request.
+	 * 
+	 * @param req
+	 * @param resp
+	 * @param pathVariables
+	 * @return the arguments, in the order of the method parameters. Arguments which could not be bound are null.
+	 */
+	public Object[] bind(HttpServletRequest req, HttpServletResponse resp, Map<String, String> pathVariables) {
+		Object[] arguments = new Object[parameters.length];
+		if (binders.length > 0) {
+			Map<ParameterDescription, Object> bindings = new ParameterBindings(parameters, arguments);
+			for (ActionMethodBinder binder : binders) {
+				binder.bindAll(bindings, req, resp, pathVariables);
+				if (allBound(arguments)) {
+					break;
+				}
+			}
+		}
+		return arguments;
+	}
+
+	private static boolean allBound(Object[] arguments) {
+		for (Object argument : arguments) {
+			if (argument == null) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
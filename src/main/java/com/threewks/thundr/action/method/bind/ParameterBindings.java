@@ -0,0 +1,159 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.method.bind;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.threewks.thundr.introspection.ParameterDescription;
+
+/**
+ * A map of parameters to their bound values which writes the values straight into an argument array.
+ * The set of parameters is fixed, values can be replaced but parameters cannot be added or removed.
+ */
+class ParameterBindings extends AbstractMap<ParameterDescription, Object> {
+	private final ParameterDescription[] parameters;
+	private final Object[] values;
+
+	ParameterBindings(ParameterDescription[] parameters, Object[] values) {
+		this.parameters = parameters;
+		this.values = values;
+	}
+
+	@Override
+	public int size() {
+		return parameters.length;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) > -1;
+	}
+
+	@Override
+	public Object get(Object key) {
+		int index = indexOf(key);
+		return index < 0 ? null : values[index];
+	}
+
+	@Override
+	public Object put(ParameterDescription key, Object value) {
+		int index = indexOf(key);
+		if (index < 0) {
+			throw new UnsupportedOperationException(String.format("Cannot bind %s, it is not a parameter of this method", key));
+		}
+		Object previous = values[index];
+		values[index] = value;
+		return previous;
+	}
+
+	@Override
+	public Set<Entry<ParameterDescription, Object>> entrySet() {
+		return new AbstractSet<Entry<ParameterDescription, Object>>() {
+			@Override
+			public Iterator<Entry<ParameterDescription, Object>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return parameters.length;
+			}
+		};
+	}
+
+	private int indexOf(Object key) {
+		for (int i = 0; i < parameters.length; i++) {
+			if (parameters[i] == key) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private class Binding implements Entry<ParameterDescription, Object> {
+		private final int index;
+
+		Binding(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public ParameterDescription getKey() {
+			return parameters[index];
+		}
+
+		@Override
+		public Object getValue() {
+			return values[index];
+		}
+
+		@Override
+		public Object setValue(Object value) {
+			Object previous = values[index];
+			values[index] = value;
+			return previous;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> other = (Entry<?, ?>) o;
+			Object value = getValue();
+			return getKey().equals(other.getKey()) && (value == null ? other.getValue() == null : value.equals(other.getValue()));
+		}
+
+		@Override
+		public int hashCode() {
+			Object value = getValue();
+			return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+		}
+
+		@Override
+		public String toString() {
+			return getKey() + "=" + getValue();
+		}
+	}
+
+	private class EntryIterator implements Iterator<Entry<ParameterDescription, Object>> {
+		private int index = 0;
+
+		@Override
+		public boolean hasNext() {
+			return index < parameters.length;
+		}
+
+		@Override
+		public Entry<ParameterDescription, Object> next() {
+			if (index >= parameters.length) {
+				throw new NoSuchElementException();
+			}
+			return new Binding(index++);
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,37 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.method.bind;
+
+import java.util.List;
+
+import com.threewks.thundr.introspection.ParameterDescription;
+
+/**
+ * An {@link ActionMethodBinder} which can tell ahead of time whether it could ever bind any of a given set of parameters.
+ * 
+ * When preparing an {@link ActionMethodBindingPlan}, binders implementing this interface are left out of the plan for methods
+ * whose parameters they can never bind, so they are not invoked for requests to those methods.
+ * Binders which do not implement this interface are always invoked.
+ */
+public interface SelectiveActionMethodBinder extends ActionMethodBinder {
+	/**
+	 * @param parameters all parameters of a controller method
+	 * @return false if this binder will never bind any of the given parameters, regardless of the request
+	 */
+	public boolean canBindAny(List<ParameterDescription> parameters);
+}
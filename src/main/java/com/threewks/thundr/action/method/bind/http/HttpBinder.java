@@ -23,17 +23,17 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import com.threewks.thundr.action.method.bind.ActionMethodBinder;
+import com.threewks.thundr.http.RequestIndex;
 import com.threewks.thundr.introspection.ParameterDescription;
 
 public class HttpBinder implements ActionMethodBinder {
 	public HttpBinder() {
 	}
 
-	@SuppressWarnings("unchecked")
 	@Override
 	public void bindAll(Map<ParameterDescription, Object> bindings, HttpServletRequest req, HttpServletResponse resp, Map<String, String> pathVariables) {
-		Map<String, String[]> parameterMap = req.getParameterMap();
-		ParameterBinderSet binders = new ParameterBinderSet();
+		Map<String, String[]> parameterMap = RequestIndex.of(req).getParameters();
+		ParameterBinderSet binders = ParameterBinderSet.shared();
 		binders.bind(bindings, parameterMap, null);
 	}
 }
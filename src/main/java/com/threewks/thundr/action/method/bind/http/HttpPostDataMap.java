@@ -21,41 +21,45 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 
 /**
  * Represents post parameters or query parameters in a structured hierarchical way so that
  * they can be meaningfully parsed to java objects.
  * 
- * Given a request map, alters the key to represent the path as components.
+ * Given a request map, parses each key into a path of components, and holds the values in a tree of those components.
  * For example object[0].name should be a key of object, [0], name
  * 
  * This allows us to pop keys as we walk a path.
  * For the above example, when dealing with object, the path should then be [0], name
+ * 
+ * The tree is built once, and the maps returned by {@link #pathMapFor(String)} and {@link #pushPath(String)} are views which
+ * share it rather than copies.
  */
 public class HttpPostDataMap {
+	private final Node root;
+	/**
+	 * Views of a child node don't include the value held by the child node itself, only the values of its descendants
+	 */
+	private final boolean includeRootValue;
 
-	private Map<List<String>, String[]> delegate = new LinkedHashMap<List<String>, String[]>();
-
-	private HttpPostDataMap() {
-
+	private HttpPostDataMap(Node root, boolean includeRootValue) {
+		this.root = root;
+		this.includeRootValue = includeRootValue;
 	}
 
 	public HttpPostDataMap(Map<String, String[]> input) {
-		this();
+		this(new Node(), true);
 		if (input != null) {
 			for (Map.Entry<String, String[]> entry : input.entrySet()) {
-				String key = entry.getKey();
-				String removeDashes = key.replaceAll("-", "");
-				String expandedKey = removeDashes.replaceAll("\\.", "\r");
-				expandedKey = expandedKey.replaceAll("\\[([^\\]])", "\r[$1");
-				List<String> path = Collections.unmodifiableList(Arrays.asList(expandedKey.split("\r")));
-				delegate.put(path, entry.getValue());
+				Node node = root;
+				for (String element : parsePath(entry.getKey())) {
+					node = node.child(element);
+				}
+				node.set(entry.getValue());
 			}
 		}
 	}
@@ -67,53 +71,65 @@ public class HttpPostDataMap {
 	 * @return
 	 */
 	public HttpPostDataMap pushPath(String name) {
-		HttpPostDataMap pathMap = new HttpPostDataMap();
-		for (Map.Entry<List<String>, String[]> entry : delegate.entrySet()) {
-			List<String> path = entry.getKey();
-			List<String> newPath = new ArrayList<String>(path);
-			newPath.add(0, name);
-			pathMap.delegate.put(newPath, entry.getValue());
-		}
-		return pathMap;
+		Node parent = new Node();
+		parent.children = new LinkedHashMap<String, Node>();
+		parent.children.put(name, includeRootValue ? root : root.withoutValue());
+		return new HttpPostDataMap(parent, false);
 	}
 
 	public HttpPostDataMap pathMapFor(String key) {
-		HttpPostDataMap pathMap = new HttpPostDataMap();
-		for (Map.Entry<List<String>, String[]> entry : delegate.entrySet()) {
-			List<String> path = entry.getKey();
-			if (path.size() > 1 && path.get(0).equals(key)) {
-				List<String> newPath = path.subList(1, path.size());
-				pathMap.delegate.put(newPath, entry.getValue());
-			}
-		}
-		return pathMap;
+		Node child = root.children == null ? null : root.children.get(key);
+		return new HttpPostDataMap(child == null ? new Node() : child, false);
 	}
 
 	public Set<String> uniqueChildren() {
-		Set<String> results = new HashSet<String>();
-		for (Map.Entry<List<String>, String[]> entry : delegate.entrySet()) {
-			List<String> path = entry.getKey();
-			String child = path.get(0);
-			results.add(child);
-		}
-		return results;
+		return root.children == null ? Collections.<String> emptySet() : Collections.unmodifiableSet(root.children.keySet());
 	}
 
 	public String[] get(List<String> arg0) {
-		return delegate.get(arg0);
+		Node node = root;
+		for (int i = 0; node != null && i < arg0.size(); i++) {
+			node = node.children == null ? null : node.children.get(arg0.get(i));
+		}
+		return node == null || (node == root && !includeRootValue) ? null : node.values;
 	}
 
 	public String[] get(String arg0) {
-		return delegate.get(Collections.singletonList(arg0));
+		Node node = root.children == null ? null : root.children.get(arg0);
+		return node == null ? null : node.values;
+	}
+
+	/**
+	 * @param key
+	 * @return true if a value is present for the given child, even if that value is null
+	 */
+	boolean hasValue(String key) {
+		Node node = root.children == null ? null : root.children.get(key);
+		return node != null && node.hasValue;
 	}
 
 	public int size() {
-		return delegate.size();
+		return root.size() - (root.hasValue && !includeRootValue ? 1 : 0);
 	}
 
 	@Override
 	public String toString() {
-		return delegate.toString();
+		Map<List<String>, String> entries = new LinkedHashMap<List<String>, String>();
+		toString(root, new ArrayList<String>(), entries);
+		return entries.toString();
+	}
+
+	private void toString(Node node, List<String> path, Map<List<String>, String> entries) {
+		if (node.hasValue && (node != root || includeRootValue)) {
+			entries.put(new ArrayList<String>(path), Arrays.toString(node.values));
+		}
+		if (node.children != null) {
+			for (Map.Entry<String, Node> child : node.children.entrySet()) {
+				path.add(child.getKey());
+				toString(child.getValue(), path, entries);
+				path.remove(path.size() - 1);
+			}
+		}
 	}
 
 	/**
@@ -133,26 +149,9 @@ public class HttpPostDataMap {
 	 */
 	public Map<String, Object> toStringMap(String pathElement) {
 		Map<String, Object> stringMap = new HashMap<String, Object>();
-		for (Entry<List<String>, String[]> entry : delegate.entrySet()) {
-			List<String> key = entry.getKey();
-
-			if (pathElement.equals(key.get(0))) {
-				StringBuilder joinedKey = new StringBuilder();
-				boolean first = true;
-				for (int i = 1; i < key.size(); i++) {
-					String string = key.get(i);
-					if (!first && !string.startsWith("[")) {
-						joinedKey.append(".");
-					}
-					joinedKey.append(string);
-					first = false;
-				}
-				String stringKey = joinedKey.toString();
-				if (stringKey.length() > 0) {
-					String[] value = entry.getValue();
-					stringMap.put(stringKey, value == null || value.length > 1 ? value : value[0]);
-				}
-			}
+		Node node = root.children == null ? null : root.children.get(pathElement);
+		if (node != null) {
+			collect(node, new StringBuilder(), 0, stringMap, true);
 		}
 		return stringMap;
 	}
@@ -172,24 +171,128 @@ public class HttpPostDataMap {
 	 */
 	public Map<String, String[]> toStringMap() {
 		Map<String, String[]> stringMap = new HashMap<String, String[]>();
-		for (Entry<List<String>, String[]> entry : delegate.entrySet()) {
-			List<String> key = entry.getKey();
-
-			StringBuilder joinedKey = new StringBuilder();
-			boolean first = true;
-			for (int i = 0; i < key.size(); i++) {
-				String string = key.get(i);
-				if (!first && !string.startsWith("[")) {
-					joinedKey.append(".");
+		collect(root, new StringBuilder(), 0, stringMap, false);
+		return stringMap;
+	}
+
+	/**
+	 * Adds the values of the given node and its descendants to the given map, keyed by their joined path relative to the given node.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private void collect(Node node, StringBuilder key, int depth, Map stringMap, boolean collapseSingleValues) {
+		if (node.hasValue && key.length() > 0) {
+			String[] value = node.values;
+			stringMap.put(key.toString(), collapseSingleValues && value != null && value.length == 1 ? value[0] : value);
+		}
+		if (node.children != null) {
+			int length = key.length();
+			for (Map.Entry<String, Node> child : node.children.entrySet()) {
+				String element = child.getKey();
+				if (depth > 0 && !element.startsWith("[")) {
+					key.append('.');
+				}
+				key.append(element);
+				collect(child.getValue(), key, depth + 1, stringMap, collapseSingleValues);
+				key.setLength(length);
+			}
+		}
+	}
+
+	/**
+	 * Parses a parameter name into its path elements. Dashes are removed, elements are separated by a '.' or
+	 * begin with a '[', so a[0].b-c becomes a, [0], bc. Empty brackets don't begin a new element, so a[] remains a[].
+	 * As with {@link String#split(String)}, trailing empty elements are discarded.
+	 * 
+	 * @param key
+	 * @return
+	 */
+	static List<String> parsePath(String key) {
+		List<String> path = new ArrayList<String>(4);
+		StringBuilder element = new StringBuilder(key.length());
+		boolean separated = false;
+		int length = key.length();
+		for (int i = 0; i < length; i++) {
+			char c = key.charAt(i);
+			if (c == '-') {
+				continue;
+			}
+			if (c == '.' || c == '\r') {
+				path.add(element.toString());
+				element.setLength(0);
+				separated = true;
+			} else if (c == '[' && nextNonDash(key, i) < length && key.charAt(nextNonDash(key, i)) != ']') {
+				path.add(element.toString());
+				element.setLength(0);
+				separated = true;
+				element.append(c);
+				// the character following the bracket can't begin another element
+				int next = nextNonDash(key, i);
+				char following = key.charAt(next);
+				if (following == '[') {
+					element.append(following);
+					i = next;
 				}
-				joinedKey.append(string);
-				first = false;
+			} else {
+				element.append(c);
 			}
-			String stringKey = joinedKey.toString();
-			if (stringKey.length() > 0) {
-				stringMap.put(stringKey, entry.getValue());
+		}
+		path.add(element.toString());
+		if (separated) {
+			int last = path.size() - 1;
+			while (last >= 0 && path.get(last).length() == 0) {
+				path.remove(last--);
 			}
 		}
-		return stringMap;
+		return path;
+	}
+
+	private static int nextNonDash(String key, int i) {
+		int next = i + 1;
+		while (next < key.length() && key.charAt(next) == '-') {
+			next++;
+		}
+		return next;
+	}
+
+	/**
+	 * A node in the parameter tree, holding the values for the path which leads to it
+	 */
+	private static class Node {
+		private String[] values;
+		private boolean hasValue;
+		private Map<String, Node> children;
+
+		private Node child(String element) {
+			if (children == null) {
+				children = new LinkedHashMap<String, Node>(4);
+			}
+			Node child = children.get(element);
+			if (child == null) {
+				child = new Node();
+				children.put(element, child);
+			}
+			return child;
+		}
+
+		private void set(String[] values) {
+			this.values = values;
+			this.hasValue = true;
+		}
+
+		private Node withoutValue() {
+			Node node = new Node();
+			node.children = children;
+			return node;
+		}
+
+		private int size() {
+			int size = hasValue ? 1 : 0;
+			if (children != null) {
+				for (Node child : children.values()) {
+					size += child.size();
+				}
+			}
+			return size;
+		}
 	}
 }
@@ -17,7 +17,6 @@
  */
 package com.threewks.thundr.action.method.bind.http;
 
-import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 
 import com.threewks.thundr.introspection.ParameterDescription;
@@ -30,6 +29,6 @@ public class InputStreamBinaryParameterBinder implements BinaryParameterBinder<I
 
 	@Override
 	public InputStream bind(ParameterDescription parameterDescription, MultipartFile file) {
-        return (file != null)?new ByteArrayInputStream(file.getData()):null;
+        return (file != null)?file.getInputStream():null;
 	}
 }
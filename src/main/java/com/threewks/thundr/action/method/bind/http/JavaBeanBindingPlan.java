@@ -0,0 +1,397 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.method.bind.http;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import jodd.bean.BeanUtil;
+import jodd.typeconverter.TypeConverterManager;
+import jodd.util.ReflectUtil;
+
+import com.threewks.thundr.introspection.ClassIntrospector;
+
+/**
+ * Populates javabeans of a specific class from a {@link HttpPostDataMap}.
+ * 
+ * The bean properties of the class, along with their setters, getters or public fields, are determined once when the plan is
+ * created. Binding then walks the request parameters by path, converting values to the property type, creating nested beans
+ * and growing indexed lists and arrays as it goes, rather than resolving each property by name for every request.
+ * 
+ * The outcome is the same as loading a string map of the parameters using jodd's BeanLoaderManager: values which can't be
+ * converted or set are ignored. Shapes which aren't planned for, such as maps or properties only accessible through a private
+ * field, are set through jodd.
+ * 
+ * Plans are cached per class, use {@link #forType(Class)} to obtain one.
+ */
+public class JavaBeanBindingPlan {
+	private static final ConcurrentHashMap<Class<?>, JavaBeanBindingPlan> plans = new ConcurrentHashMap<Class<?>, JavaBeanBindingPlan>();
+
+	public static JavaBeanBindingPlan forType(Class<?> type) {
+		JavaBeanBindingPlan plan = plans.get(type);
+		if (plan == null) {
+			plan = new JavaBeanBindingPlan(type);
+			JavaBeanBindingPlan existing = plans.putIfAbsent(type, plan);
+			plan = existing == null ? plan : existing;
+		}
+		return plan;
+	}
+
+	private final Map<String, Property> properties;
+	/**
+	 * Names which jodd may be able to resolve where this plan can't, for example private fields
+	 */
+	private final Set<String> unplannedNames;
+
+	JavaBeanBindingPlan(Class<?> type) {
+		Map<String, Method> setters = new HashMap<String, Method>();
+		Map<String, Method> getters = new HashMap<String, Method>();
+		Set<String> ambiguous = new HashSet<String>();
+		for (Method method : ReflectUtil.getSupportedMethods(type)) {
+			if (Modifier.isPublic(method.getModifiers()) && !Modifier.isStatic(method.getModifiers())) {
+				String setterName = ReflectUtil.getBeanPropertySetterName(method);
+				if (setterName != null && setters.put(setterName, method) != null) {
+					ambiguous.add(setterName);
+				}
+				String getterName = ReflectUtil.getBeanPropertyGetterName(method);
+				if (getterName != null && !getters.containsKey(getterName)) {
+					getters.put(getterName, method);
+				}
+			}
+		}
+		Map<String, Field> fields = new HashMap<String, Field>();
+		for (Field field : type.getFields()) {
+			if (!Modifier.isStatic(field.getModifiers()) && !fields.containsKey(field.getName())) {
+				fields.put(field.getName(), field);
+			}
+		}
+
+		Set<String> names = new HashSet<String>(setters.keySet());
+		names.addAll(getters.keySet());
+		names.addAll(fields.keySet());
+		names.removeAll(ambiguous);
+
+		Map<String, Property> properties = new HashMap<String, Property>();
+		for (String name : names) {
+			properties.put(name, new Property(setters.get(name), getters.get(name), fields.get(name)));
+		}
+		Set<String> unplannedNames = new HashSet<String>(ambiguous);
+		for (Field field : ReflectUtil.getSupportedFields(type)) {
+			if (!properties.containsKey(field.getName())) {
+				unplannedNames.add(field.getName());
+			}
+		}
+		this.properties = properties;
+		this.unplannedNames = unplannedNames;
+	}
+
+	/**
+	 * Binds the entries of the given {@link HttpPostDataMap} onto the given bean, where the top level entries of the map are
+	 * the properties of the bean.
+	 * 
+	 * @param bean
+	 * @param data
+	 */
+	public void bind(Object bean, HttpPostDataMap data) {
+		for (String name : data.uniqueChildren()) {
+			Property property = properties.get(name);
+			if (property != null) {
+				property.bind(bean, name, data);
+			} else if (unplannedNames.contains(name)) {
+				if (data.hasValue(name)) {
+					BeanUtil.setPropertyForcedSilent(bean, name, collapse(data.get(name)));
+				}
+				bindUnplanned(bean, name, data, name);
+			}
+		}
+	}
+
+	/**
+	 * Sets all descendant values of the given element through jodd, using their full property path.
+	 */
+	private static void bindUnplanned(Object bean, String path, HttpPostDataMap data, String element) {
+		for (Map.Entry<String, Object> entry : data.toStringMap(element).entrySet()) {
+			String key = entry.getKey();
+			String propertyPath = key.startsWith("[") ? path + key : path + "." + key;
+			BeanUtil.setPropertyForcedSilent(bean, propertyPath, entry.getValue());
+		}
+	}
+
+	private static Object collapse(String[] values) {
+		return values != null && values.length == 1 ? values[0] : values;
+	}
+
+	private static Object convert(String[] values, Class<?> type) {
+		try {
+			return TypeConverterManager.convertType(collapse(values), type);
+		} catch (Exception e) {
+			return Unconvertable;
+		}
+	}
+
+	private static final Object Unconvertable = new Object();
+
+	/**
+	 * Returns the indexes of the given children, or null if any of them isn't a valid index
+	 */
+	private static Map<String, Integer> indexes(Set<String> children) {
+		Map<String, Integer> indexes = new HashMap<String, Integer>();
+		for (String child : children) {
+			int length = child.length();
+			if (length < 3 || child.charAt(0) != '[' || child.charAt(length - 1) != ']') {
+				return null;
+			}
+			try {
+				indexes.put(child, Integer.valueOf(child.substring(1, length - 1)));
+			} catch (NumberFormatException e) {
+				return null;
+			}
+			if (indexes.get(child) < 0) {
+				return null;
+			}
+		}
+		return indexes;
+	}
+
+	private static boolean hasIndexedChildren(Set<String> children) {
+		for (String child : children) {
+			if (child.startsWith("[")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static Object newInstance(Class<?> type) {
+		try {
+			return type.newInstance();
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	private static class Property {
+		private final Method setter;
+		private final Method getter;
+		private final Field field;
+		private final boolean fieldWritable;
+		private final Class<?> type;
+		private final Class<?> elementType;
+
+		private Property(Method setter, Method getter, Field field) {
+			this.setter = accessible(setter);
+			this.getter = accessible(getter);
+			this.field = accessible(field);
+			this.fieldWritable = field != null && !Modifier.isFinal(field.getModifiers());
+			Type genericType = setter != null ? setter.getGenericParameterTypes()[0] : fieldWritable ? field.getGenericType() : null;
+			this.type = genericType == null ? null : ReflectUtil.toClass(genericType);
+			Class<?> elementType = genericType == null ? null : ReflectUtil.getComponentType(genericType);
+			this.elementType = elementType == null ? Object.class : elementType;
+		}
+
+		private boolean isWritable() {
+			return type != null;
+		}
+
+		private void bind(Object bean, String name, HttpPostDataMap data) {
+			if (data.hasValue(name) && isWritable()) {
+				Object value = convert(data.get(name), type);
+				if (value != Unconvertable) {
+					set(bean, value);
+				}
+			}
+			HttpPostDataMap children = data.pathMapFor(name);
+			Set<String> childNames = children.uniqueChildren();
+			if (!childNames.isEmpty() && !(isWritable() && bindChildren(bean, name, children, childNames))) {
+				bindUnplanned(bean, name, data, name);
+			}
+		}
+
+		/**
+		 * @return false if the children can't be bound by this plan
+		 */
+		private boolean bindChildren(Object bean, String name, HttpPostDataMap children, Set<String> childNames) {
+			if (hasIndexedChildren(childNames)) {
+				Map<String, Integer> indexes = indexes(childNames);
+				if (indexes == null) {
+					return false;
+				}
+				if (type == List.class || type == ArrayList.class) {
+					bindList(bean, name, children, indexes);
+					return true;
+				}
+				if (type.isArray()) {
+					bindArray(bean, name, children, indexes);
+					return true;
+				}
+				return false;
+			}
+			if (ClassIntrospector.isAJavabean(type)) {
+				Object nested = get(bean);
+				if (nested == null) {
+					nested = newInstance(type);
+					if (nested == null || !set(bean, nested)) {
+						return true;
+					}
+				}
+				forType(nested.getClass()).bind(nested, children);
+				return true;
+			}
+			return false;
+		}
+
+		@SuppressWarnings("unchecked")
+		private void bindList(Object bean, String name, HttpPostDataMap children, Map<String, Integer> indexes) {
+			List<Object> list = (List<Object>) get(bean);
+			if (list == null) {
+				list = new ArrayList<Object>();
+				if (!set(bean, list)) {
+					return;
+				}
+			}
+			for (Map.Entry<String, Integer> index : indexes.entrySet()) {
+				String element = index.getKey();
+				int i = index.getValue();
+				if (children.hasValue(element)) {
+					Object value = convert(children.get(element), elementType);
+					if (value != Unconvertable) {
+						pad(list, i);
+						list.set(i, value);
+					}
+				}
+				HttpPostDataMap elementData = children.pathMapFor(element);
+				if (!elementData.uniqueChildren().isEmpty()) {
+					Object nested = elementBean(list, i);
+					if (nested == null) {
+						bindUnplanned(bean, name + element, children, element);
+					} else {
+						forType(nested.getClass()).bind(nested, elementData);
+					}
+				}
+			}
+		}
+
+		private void bindArray(Object bean, String name, HttpPostDataMap children, Map<String, Integer> indexes) {
+			Object array = get(bean);
+			int length = array == null ? 0 : Array.getLength(array);
+			int required = Collections.max(indexes.values()) + 1;
+			if (required > length) {
+				Object grown = Array.newInstance(type.getComponentType(), required);
+				if (array != null) {
+					System.arraycopy(array, 0, grown, 0, length);
+				}
+				if (!set(bean, grown)) {
+					return;
+				}
+				array = grown;
+			}
+			for (Map.Entry<String, Integer> index : indexes.entrySet()) {
+				String element = index.getKey();
+				int i = index.getValue();
+				if (children.hasValue(element)) {
+					Object value = convert(children.get(element), elementType);
+					if (value != Unconvertable) {
+						try {
+							Array.set(array, i, value);
+						} catch (IllegalArgumentException e) {
+							// as with jodd, values which can't be set are ignored
+						}
+					}
+				}
+				HttpPostDataMap elementData = children.pathMapFor(element);
+				if (!elementData.uniqueChildren().isEmpty()) {
+					Object nested = Array.get(array, i);
+					if (nested == null && ClassIntrospector.isAJavabean(elementType) && !hasIndexedChildren(elementData.uniqueChildren())) {
+						nested = newInstance(elementType);
+						Array.set(array, i, nested);
+					}
+					if (nested == null || !ClassIntrospector.isAJavabean(nested.getClass())) {
+						bindUnplanned(bean, name + element, children, element);
+					} else {
+						forType(nested.getClass()).bind(nested, elementData);
+					}
+				}
+			}
+		}
+
+		/**
+		 * Returns the existing or a newly created bean at the given index of the list, or null if the element is not a javabean
+		 */
+		private Object elementBean(List<Object> list, int i) {
+			Object nested = i < list.size() ? list.get(i) : null;
+			if (nested == null && ClassIntrospector.isAJavabean(elementType)) {
+				nested = newInstance(elementType);
+				if (nested != null) {
+					pad(list, i);
+					list.set(i, nested);
+				}
+			}
+			return nested != null && ClassIntrospector.isAJavabean(nested.getClass()) ? nested : null;
+		}
+
+		private static void pad(List<Object> list, int index) {
+			while (list.size() <= index) {
+				list.add(null);
+			}
+		}
+
+		private Object get(Object bean) {
+			try {
+				return getter != null ? getter.invoke(bean) : field != null ? field.get(bean) : null;
+			} catch (Exception e) {
+				return null;
+			}
+		}
+
+		private boolean set(Object bean, Object value) {
+			try {
+				if (setter != null) {
+					setter.invoke(bean, value);
+				} else {
+					field.set(bean, value);
+				}
+				return true;
+			} catch (Exception e) {
+				// as with jodd, values which can't be set are ignored
+				return false;
+			}
+		}
+
+		private static <T extends java.lang.reflect.AccessibleObject> T accessible(T accessibleObject) {
+			if (accessibleObject != null) {
+				try {
+					accessibleObject.setAccessible(true);
+				} catch (SecurityException e) {
+					// leave as is, public members of public classes remain accessible
+				}
+			}
+			return accessibleObject;
+		}
+	}
+}
@@ -17,21 +17,18 @@
  */
 package com.threewks.thundr.action.method.bind.http;
 
-import java.util.Map;
-
-import jodd.bean.BeanLoaderManager;
-
 import com.threewks.thundr.action.method.bind.BindException;
 import com.threewks.thundr.introspection.ClassIntrospector;
 import com.threewks.thundr.introspection.ParameterDescription;
 
 public class JavaBeanParameterBinder implements ParameterBinder<Object> {
 	public Object bind(ParameterBinderSet binders, ParameterDescription parameterDescription, HttpPostDataMap pathMap) {
-		Map<String, Object> stringMap = pathMap.toStringMap(parameterDescription.name());
-		if (!stringMap.isEmpty()) {
+		HttpPostDataMap beanData = pathMap.pathMapFor(parameterDescription.name());
+		if (beanData.size() > 0) {
 			try {
-				Object bean = parameterDescription.classType().newInstance();
-				BeanLoaderManager.load(bean, stringMap);
+				Class<?> type = parameterDescription.classType();
+				Object bean = type.newInstance();
+				JavaBeanBindingPlan.forType(type).bind(bean, beanData);
 				return bean;
 			} catch (Exception e) {
 				throw new BindException(e, "Failed to bind onto %s: %s", parameterDescription.classType(), e.getMessage());
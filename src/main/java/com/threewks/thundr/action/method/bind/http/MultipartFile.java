@@ -1,36 +1,86 @@
-/*
- * This file is a component of thundr, a software library from 3wks.
- * Read more: http://www.3wks.com.au/thundr
- * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
- *
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- *
- *         http://www.apache.org/licenses/LICENSE-2.0
- *
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
 package com.threewks.thundr.action.method.bind.http;
 
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.threewks.thundr.action.method.bind.BindException;
+import com.threewks.thundr.util.Streams;
+
+/**
+ * A file uploaded as part of a multipart request.
+ * 
+ * Small files are held in memory, larger files are spooled to a temporary file by the {@link MultipartHttpBinder}. The content of
+ * a spooled file is only read when {@link #getData()} or {@link #getInputStream()} is called, and the temporary file is deleted
+ * at the end of the request.
+ */
 public class MultipartFile {
 
     private byte[] data;
+    private File file;
+    private long size;
     private String name;
     private String contentType;
 
     public MultipartFile(String name, byte[] data, String contentType) {
         this.data = data;
+        this.size = data == null ? 0 : data.length;
         this.name = name;
         this.contentType = contentType;
     }
 
+    public MultipartFile(String name, File file, long size, String contentType) {
+        this.file = file;
+        this.size = size;
+        this.name = name;
+        this.contentType = contentType;
+    }
+
+    /**
+     * @return the content of this file, which for a spooled file is read from disk on every call. Prefer {@link #getInputStream()} for large files.
+     */
     public byte[] getData() {
-        return data;
+        if (file == null) {
+            return data;
+        }
+        InputStream inputStream = getInputStream();
+        try {
+            return Streams.readBytes(inputStream);
+        } finally {
+            close(inputStream);
+        }
+    }
+
+    /**
+     * @return a new {@link InputStream} over the content of this file
+     */
+    public InputStream getInputStream() {
+        if (file == null) {
+            return data == null ? null : new ByteArrayInputStream(data);
+        }
+        try {
+            return new BufferedInputStream(new FileInputStream(file));
+        } catch (IOException e) {
+            throw new BindException(e, "Failed to read uploaded file %s: %s", name, e.getMessage());
+        }
+    }
+
+    /**
+     * @return the temporary file holding the content of this file, or null if the content is held in memory
+     */
+    public File getFile() {
+        return file;
+    }
+
+    public boolean isInMemory() {
+        return file == null;
+    }
+
+    public long getSize() {
+        return size;
     }
 
     public String getName() {
@@ -40,4 +90,12 @@ public class MultipartFile {
     public String getContentType() {
         return contentType;
     }
+
+    private static void close(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException e) {
+            // ignore, the content has been read
+        }
+    }
 }
@@ -17,8 +17,9 @@
  */
 package com.threewks.thundr.action.method.bind.http;
 
-import com.threewks.thundr.action.method.bind.ActionMethodBinder;
+import com.threewks.thundr.action.method.bind.SelectiveActionMethodBinder;
 import com.threewks.thundr.action.method.bind.BindException;
+import com.threewks.thundr.action.method.bind.request.RequestClassBinder;
 import com.threewks.thundr.http.ContentType;
 import com.threewks.thundr.introspection.ParameterDescription;
 import com.threewks.thundr.util.Streams;
@@ -28,26 +29,89 @@ import org.apache.commons.fileupload.servlet.ServletFileUpload;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.*;
 
-public class MultipartHttpBinder implements ActionMethodBinder {
+/**
+ * Binds form fields and files from multipart/form-data requests.
+ * 
+ * Uploaded files up to the memory threshold (see {@link #setMemoryThreshold(int)}) are held in memory, larger files are spooled
+ * to temporary files in the spool directory (see {@link #setSpoolDirectory(File)}). Spooled files are deleted at the end of the
+ * request, see {@link #deleteSpooledFiles(HttpServletRequest)}.
+ * 
+ * Alternatively, an action can declare a {@link FileItemIterator} parameter to receive the parts of the request as they arrive.
+ * In this case the request body is not read by this binder, so no other form fields or files are bound.
+ */
+public class MultipartHttpBinder implements SelectiveActionMethodBinder {
+    public static final int DefaultMemoryThreshold = 256 * 1024;
+    private static final String SpooledFilesAttribute = MultipartHttpBinder.class.getName() + ".spooledFiles";
 
     private List<ContentType> supportedContentTypes = Arrays.asList(ContentType.MultipartFormData);
 
     private ServletFileUpload upload = new ServletFileUpload();
+    private int memoryThreshold = DefaultMemoryThreshold;
+    private File spoolDirectory = null;
 
     public MultipartHttpBinder() {
     }
 
+    /**
+     * Sets the size in bytes above which uploaded files are spooled to disk rather than held in memory.
+     * 
+     * @param memoryThreshold
+     */
+    public void setMemoryThreshold(int memoryThreshold) {
+        this.memoryThreshold = memoryThreshold;
+    }
+
+    public int getMemoryThreshold() {
+        return memoryThreshold;
+    }
+
+    /**
+     * Sets the directory uploaded files are spooled to, by default the system temporary directory is used.
+     * 
+     * @param spoolDirectory
+     */
+    public void setSpoolDirectory(File spoolDirectory) {
+        this.spoolDirectory = spoolDirectory;
+    }
+
+    public File getSpoolDirectory() {
+        return spoolDirectory;
+    }
+
+    /**
+     * Form fields and files can be bound to anything other than the request types, which are always bound before this binder runs.
+     */
+    @Override
+    public boolean canBindAny(List<ParameterDescription> parameters) {
+        for (ParameterDescription parameterDescription : parameters) {
+            if (!RequestClassBinder.BoundTypes.contains(parameterDescription.type())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public void bindAll(Map<ParameterDescription, Object> bindings, HttpServletRequest req, HttpServletResponse resp, Map<String, String> pathVariables) {
         if (ContentType.anyMatch(supportedContentTypes, req.getContentType()) && shouldTryToBind(bindings)) {
+            ParameterDescription itemIteratorParameter = findItemIteratorParameter(bindings);
+            if (itemIteratorParameter != null) {
+                bindings.put(itemIteratorParameter, itemIterator(req));
+                return;
+            }
             Map<String, List<String>> formFields = new HashMap<String, List<String>>();
             Map<String, MultipartFile> fileFields = new HashMap<String, MultipartFile>();
             extractParameters(req, formFields, fileFields);
             Map<String, String[]> parameterMap = ParameterBinderSet.convertListMapToArrayMap(formFields);
-            ParameterBinderSet parameterBinderSet = new ParameterBinderSet();
+            ParameterBinderSet parameterBinderSet = ParameterBinderSet.shared();
             parameterBinderSet.bind(bindings, parameterMap, fileFields);
         }
     }
@@ -78,7 +142,7 @@ public class MultipartHttpBinder implements ActionMethodBinder {
                     }
                     existing.add(Streams.readString(stream));
                 } else {
-                    MultipartFile file = new MultipartFile(item.getName(), Streams.readBytes(stream), item.getContentType());
+                    MultipartFile file = readFile(req, item, stream);
                     fileFields.put(fieldName, file);
                 }
                 stream.close();
@@ -87,4 +151,77 @@ public class MultipartHttpBinder implements ActionMethodBinder {
             throw new BindException(e, "Failed to bind multipart form data: %s", e.getMessage());
         }
     }
+
+    /**
+     * Reads the given file into memory, or if it is larger than the memory threshold spools it to a temporary file.
+     */
+    MultipartFile readFile(HttpServletRequest req, FileItemStream item, InputStream stream) throws IOException {
+        ByteArrayOutputStream memory = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        long size = 0;
+        int read;
+        while (size <= memoryThreshold && (read = stream.read(buffer)) > -1) {
+            memory.write(buffer, 0, read);
+            size += read;
+        }
+        if (size <= memoryThreshold) {
+            return new MultipartFile(item.getName(), memory.toByteArray(), item.getContentType());
+        }
+
+        File file = File.createTempFile("thundr-upload-", ".tmp", spoolDirectory);
+        spooledFiles(req).add(file);
+        OutputStream output = new FileOutputStream(file);
+        try {
+            memory.writeTo(output);
+            size += Streams.copy(stream, output, buffer);
+        } finally {
+            output.close();
+        }
+        return new MultipartFile(item.getName(), file, size, item.getContentType());
+    }
+
+    private ParameterDescription findItemIteratorParameter(Map<ParameterDescription, Object> bindings) {
+        for (Map.Entry<ParameterDescription, Object> binding : bindings.entrySet()) {
+            if (binding.getValue() == null && binding.getKey().isA(FileItemIterator.class)) {
+                return binding.getKey();
+            }
+        }
+        return null;
+    }
+
+    private FileItemIterator itemIterator(HttpServletRequest req) {
+        try {
+            return upload.getItemIterator(req);
+        } catch (Exception e) {
+            throw new BindException(e, "Failed to read multipart form data: %s", e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<File> spooledFiles(HttpServletRequest req) {
+        List<File> spooledFiles = (List<File>) req.getAttribute(SpooledFilesAttribute);
+        if (spooledFiles == null) {
+            spooledFiles = new ArrayList<File>();
+            req.setAttribute(SpooledFilesAttribute, spooledFiles);
+        }
+        return spooledFiles;
+    }
+
+    /**
+     * Deletes any files spooled to disk while binding the given request. This is called at the end of each request.
+     * 
+     * @param req
+     */
+    @SuppressWarnings("unchecked")
+    public static void deleteSpooledFiles(HttpServletRequest req) {
+        List<File> spooledFiles = (List<File>) req.getAttribute(SpooledFilesAttribute);
+        if (spooledFiles != null) {
+            req.removeAttribute(SpooledFilesAttribute);
+            for (File spooledFile : spooledFiles) {
+                if (spooledFile.exists() && !spooledFile.delete()) {
+                    spooledFile.deleteOnExit();
+                }
+            }
+        }
+    }
 }
@@ -23,23 +23,35 @@ import com.threewks.thundr.collection.factory.SimpleCollectionFactory;
 import com.threewks.thundr.collection.factory.SimpleMapFactory;
 import com.threewks.thundr.introspection.ParameterDescription;
 
+import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+/**
+ * An ordered set of {@link ParameterBinder}s and {@link BinaryParameterBinder}s, used to bind request data to parameters.
+ * 
+ * The binders which will bind a given parameter type are determined once and cached, so {@link ParameterBinder#willBind(ParameterDescription)}
+ * is expected to depend only on the type of the parameter.
+ * 
+ * Binders should generally use the immutable instance returned by {@link #shared()}, rather than creating a new set for each request.
+ */
 public class ParameterBinderSet {
 	private static final String[] emptyStringArray = new String[0];
 
 	private static List<ParameterBinder<?>> intrinsicBinders = binderMap();
-	private static List<ParameterBinder<?>> registeredBinders = new ArrayList<ParameterBinder<?>>();
+	private static List<ParameterBinder<?>> registeredBinders = new CopyOnWriteArrayList<ParameterBinder<?>>();
 	private static List<BinaryParameterBinder<?>> intrinsicBinaryBinders = binaryBinders();
-	private static List<BinaryParameterBinder<?>> registeredBinaryBinders = new ArrayList<BinaryParameterBinder<?>>();
+	private static List<BinaryParameterBinder<?>> registeredBinaryBinders = new CopyOnWriteArrayList<BinaryParameterBinder<?>>();
+	private static volatile ParameterBinderSet shared;
 
 	/**
 	 * Allows consumer code to introduce binding for defined/user types
 	 * 
 	 * @param binder
 	 */
-	public static <T> void registerGlobalBinder(ParameterBinder<T> binder) {
+	public static synchronized <T> void registerGlobalBinder(ParameterBinder<T> binder) {
 		registeredBinders.add(binder);
+		shared = null;
 	}
 
 	/**
@@ -47,8 +59,9 @@ public class ParameterBinderSet {
 	 * 
 	 * @param binder
 	 */
-	public static void registerGlobalBinder(BinaryParameterBinder<?> binder) {
+	public static synchronized void registerGlobalBinder(BinaryParameterBinder<?> binder) {
 		registeredBinaryBinders.add(binder);
+		shared = null;
 	}
 
 	/**
@@ -57,8 +70,9 @@ public class ParameterBinderSet {
 	 * 
 	 * @param binder
 	 */
-	public static void unregisterGlobalBinder(BinaryParameterBinder<?> binder) {
+	public static synchronized void unregisterGlobalBinder(BinaryParameterBinder<?> binder) {
 		registeredBinaryBinders.remove(binder);
+		shared = null;
 	}
 
 	/**
@@ -67,14 +81,41 @@ public class ParameterBinderSet {
 	 * 
 	 * @param binder
 	 */
-	public static <T> void unregisterGlobalBinder(ParameterBinder<T> binder) {
+	public static synchronized <T> void unregisterGlobalBinder(ParameterBinder<T> binder) {
 		registeredBinders.remove(binder);
+		shared = null;
 	}
 
+	/**
+	 * @return an immutable {@link ParameterBinderSet} of the globally registered and intrinsic binders, which is shared until
+	 *         the globally registered binders change
+	 */
+	public static ParameterBinderSet shared() {
+		ParameterBinderSet parameterBinderSet = shared;
+		if (parameterBinderSet == null) {
+			synchronized (ParameterBinderSet.class) {
+				if (shared == null) {
+					shared = new ParameterBinderSet(true);
+				}
+				parameterBinderSet = shared;
+			}
+		}
+		return parameterBinderSet;
+	}
+
+	private final boolean immutable;
 	private List<ParameterBinder<?>> binders = new ArrayList<ParameterBinder<?>>();
 	private List<BinaryParameterBinder<?>> binaryBinders = new ArrayList<BinaryParameterBinder<?>>();
+	// weakly keyed, as the shared set outlives the applications whose parameter types it caches
+	private final Map<Type, List<ParameterBinder<?>>> bindersByType = Collections.synchronizedMap(new WeakHashMap<Type, List<ParameterBinder<?>>>());
+	private final Map<Type, List<BinaryParameterBinder<?>>> binaryBindersByType = Collections.synchronizedMap(new WeakHashMap<Type, List<BinaryParameterBinder<?>>>());
 
 	public ParameterBinderSet() {
+		this(false);
+	}
+
+	private ParameterBinderSet(boolean immutable) {
+		this.immutable = immutable;
 		binders.addAll(registeredBinders);
 		binders.addAll(intrinsicBinders);
 		binaryBinders.addAll(registeredBinaryBinders);
@@ -82,12 +123,16 @@ public class ParameterBinderSet {
 	}
 
 	public ParameterBinderSet addBinder(ParameterBinder<?> binder) {
+		checkMutable();
 		binders.add(binder);
+		bindersByType.clear();
 		return this;
 	}
 
 	public ParameterBinderSet addBinder(BinaryParameterBinder<?> binder) {
+		checkMutable();
 		binaryBinders.add(binder);
+		binaryBindersByType.clear();
 		return this;
 	}
 
@@ -100,31 +145,63 @@ public class ParameterBinderSet {
 	}
 
 	public Object createFor(ParameterDescription parameterDescription, HttpPostDataMap pathMap) {
-		for (ParameterBinder<?> binder : binders) {
-			if (binder.willBind(parameterDescription)) {
-				// return the first non-null object
-				Object result = binder.bind(this, parameterDescription, pathMap);
-				if (result != null) {
-					return result;
-				}
+		for (ParameterBinder<?> binder : findBinders(parameterDescription)) {
+			// return the first non-null object
+			Object result = binder.bind(this, parameterDescription, pathMap);
+			if (result != null) {
+				return result;
 			}
 		}
 		return null;
 	}
 
 	public Object createFor(ParameterDescription parameterDescription, MultipartFile file) {
-		for (BinaryParameterBinder<?> binder : binaryBinders) {
-			if (binder.willBind(parameterDescription)) {
-				// return the first non-null object
-				Object result = binder.bind(parameterDescription, file);
-				if (result != null) {
-					return result;
-				}
+		for (BinaryParameterBinder<?> binder : findBinaryBinders(parameterDescription)) {
+			// return the first non-null object
+			Object result = binder.bind(parameterDescription, file);
+			if (result != null) {
+				return result;
 			}
 		}
 		return null;
 	}
 
+	private List<ParameterBinder<?>> findBinders(ParameterDescription parameterDescription) {
+		Type type = parameterDescription.type();
+		List<ParameterBinder<?>> candidates = bindersByType.get(type);
+		if (candidates == null) {
+			candidates = new ArrayList<ParameterBinder<?>>();
+			for (ParameterBinder<?> binder : binders) {
+				if (binder.willBind(parameterDescription)) {
+					candidates.add(binder);
+				}
+			}
+			bindersByType.put(type, candidates);
+		}
+		return candidates;
+	}
+
+	private List<BinaryParameterBinder<?>> findBinaryBinders(ParameterDescription parameterDescription) {
+		Type type = parameterDescription.type();
+		List<BinaryParameterBinder<?>> candidates = binaryBindersByType.get(type);
+		if (candidates == null) {
+			candidates = new ArrayList<BinaryParameterBinder<?>>();
+			for (BinaryParameterBinder<?> binder : binaryBinders) {
+				if (binder.willBind(parameterDescription)) {
+					candidates.add(binder);
+				}
+			}
+			binaryBindersByType.put(type, candidates);
+		}
+		return candidates;
+	}
+
+	private void checkMutable() {
+		if (immutable) {
+			throw new UnsupportedOperationException("The shared ParameterBinderSet cannot be modified, create a new ParameterBinderSet to add binders");
+		}
+	}
+
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	private static List<ParameterBinder<?>> binderMap() {
 		List<ParameterBinder<?>> list = new ArrayList<ParameterBinder<?>>();
@@ -18,6 +18,8 @@
 package com.threewks.thundr.action.method.bind.json;
 
 import java.io.BufferedReader;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -28,19 +30,18 @@ import javax.servlet.http.HttpServletResponse;
 import com.atomicleopard.expressive.Expressive;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-import com.threewks.thundr.action.method.bind.ActionMethodBinder;
+import com.google.gson.stream.JsonReader;
+import com.threewks.thundr.action.method.bind.SelectiveActionMethodBinder;
 import com.threewks.thundr.action.method.bind.BindException;
 import com.threewks.thundr.action.method.bind.path.PathVariableBinder;
 import com.threewks.thundr.action.method.bind.request.CookieBinder;
 import com.threewks.thundr.action.method.bind.request.RequestClassBinder;
 import com.threewks.thundr.http.ContentType;
 import com.threewks.thundr.introspection.ParameterDescription;
+import com.threewks.thundr.json.GsonProvider;
 import com.threewks.thundr.json.GsonSupport;
 
-public class GsonBinder implements ActionMethodBinder {
+public class GsonBinder implements SelectiveActionMethodBinder {
 	/**
 	 * When trying to bind to a Pojo/DTO, we know there is a specific set of objects that we shouldn't bother trying with. This list contains those types.
 	 */
@@ -51,36 +52,60 @@ public class GsonBinder implements ActionMethodBinder {
 	 */
 	public static final List<Class<?>> TypesIndicatingBindingShouldBeSkipped = Expressive.<Class<?>> list(HttpServletRequest.class, ServletRequest.class);
 
-	private GsonBuilder gsonBuilder;
+	private GsonProvider gsonProvider;
 
 	public GsonBinder() {
 		this(GsonSupport.createBasicGsonBuilder());
 	}
 
 	public GsonBinder(GsonBuilder gsonBuilder) {
-		this.gsonBuilder = gsonBuilder;
+		this.gsonProvider = new GsonProvider(gsonBuilder);
 	}
 
 	/**
 	 * Exposes the underlying builder, allowing the modification of how Json is bound.
+	 * Changes made to the builder after the next request is bound require a call to {@link #rebuildGson()}.
 	 * 
 	 * @return
 	 */
 	public GsonBuilder getGsonBuilder() {
-		return gsonBuilder;
+		return gsonProvider.getGsonBuilder();
+	}
+
+	/**
+	 * Causes changes made to the gson builder to be used for subsequent requests.
+	 */
+	public void rebuildGson() {
+		gsonProvider.rebuild();
 	}
 
 	public boolean canBind(String contentType) {
 		return ContentType.ApplicationJson.value().equalsIgnoreCase(contentType);
 	}
 
+	/**
+	 * Json can be bound to a single bean parameter, or by name to any unbound parameters. It cannot be bound to a method
+	 * which only takes request types, or which has no bean parameters but takes the request and so consumes the body itself.
+	 */
+	@Override
+	public boolean canBindAny(List<ParameterDescription> parameters) {
+		boolean hasBindableParameter = false;
+		for (ParameterDescription parameterDescription : parameters) {
+			if (!NonBindableTypes.contains(parameterDescription.type())) {
+				return true;
+			}
+			hasBindableParameter |= !RequestClassBinder.BoundTypes.contains(parameterDescription.type());
+		}
+		return hasBindableParameter && shouldBindToUnboundParameters(parameters);
+	}
+
 	@Override
 	public void bindAll(Map<ParameterDescription, Object> bindings, HttpServletRequest req, HttpServletResponse resp, Map<String, String> pathVariables) {
 		if (!bindings.isEmpty() && bindings.containsValue(null)) {
 			String sanitisedContentType = ContentType.cleanContentType(req.getContentType());
 			if (canBind(sanitisedContentType)) {
 				ParameterDescription jsonParameterDescription = findParameterDescriptionForJsonParameter(bindings);
-				Gson gson = gsonBuilder.create();
+				Gson gson = gsonProvider.get();
 				if (jsonParameterDescription != null) {
 					bindToSingleParameter(bindings, req, gson, jsonParameterDescription);
 				} else {
@@ -90,22 +115,28 @@ public class GsonBinder implements ActionMethodBinder {
 		}
 	}
 
+	/**
+	 * Binds the top level members of the json body to the unbound parameters of the same name.
+	 * The body is read in a single pass, members which match an unbound parameter are deserialised directly
+	 * and all other members are skipped without being read into memory.
+	 */
 	private void bindToUnboundParameters(Map<ParameterDescription, Object> bindings, HttpServletRequest req, Gson gson) {
 		if (shouldBindToUnboundParameters(bindings)) {
 			try {
 				BufferedReader reader = req.getReader();
 				if (reader != null) {
-					JsonObject json = new JsonParser().parse(reader).getAsJsonObject();
-
-					for (Map.Entry<ParameterDescription, Object> entry : bindings.entrySet()) {
-						if (entry.getValue() == null) {
-							ParameterDescription parameterDescription = entry.getKey();
+					Map<String, ParameterDescription> unbound = findUnboundParameters(bindings);
+					JsonReader jsonReader = new JsonReader(reader);
+					jsonReader.setLenient(true);
+					jsonReader.beginObject();
+					while (jsonReader.hasNext()) {
+						ParameterDescription parameterDescription = unbound.get(jsonReader.nextName());
+						if (parameterDescription == null) {
+							jsonReader.skipValue();
+						} else {
 							try {
-								JsonElement jsonElement = json.get(parameterDescription.name());
-								if (jsonElement != null) {
-									Object value = gson.fromJson(jsonElement, parameterDescription.type());
-									bindings.put(parameterDescription, value);
-								}
+								Object value = gson.fromJson(jsonReader, parameterDescription.type());
+								bindings.put(parameterDescription, value);
 							} catch (Exception e) {
 								throw new BindException(e, "Failed to bind parameter '%s' as %s using JSON: %s", parameterDescription.name(), parameterDescription.type(), e.getMessage());
 							}
@@ -120,8 +151,22 @@ public class GsonBinder implements ActionMethodBinder {
 		}
 	}
 
+	private Map<String, ParameterDescription> findUnboundParameters(Map<ParameterDescription, Object> bindings) {
+		Map<String, ParameterDescription> unbound = new HashMap<String, ParameterDescription>();
+		for (Map.Entry<ParameterDescription, Object> entry : bindings.entrySet()) {
+			if (entry.getValue() == null) {
+				unbound.put(entry.getKey().name(), entry.getKey());
+			}
+		}
+		return unbound;
+	}
+
 	protected boolean shouldBindToUnboundParameters(Map<ParameterDescription, Object> bindings) {
-		for (ParameterDescription parameterDescription : bindings.keySet()) {
+		return shouldBindToUnboundParameters(bindings.keySet());
+	}
+
+	private boolean shouldBindToUnboundParameters(Collection<ParameterDescription> parameters) {
+		for (ParameterDescription parameterDescription : parameters) {
 			if (TypesIndicatingBindingShouldBeSkipped.contains(parameterDescription.classType())) {
 				return false;
 			}
@@ -32,11 +32,11 @@ import jodd.typeconverter.TypeConverterManager;
 
 import org.joda.time.DateTime;
 
-import com.threewks.thundr.action.method.bind.ActionMethodBinder;
+import com.threewks.thundr.action.method.bind.SelectiveActionMethodBinder;
 import com.threewks.thundr.action.method.bind.http.BasicTypesParameterBinder;
 import com.threewks.thundr.introspection.ParameterDescription;
 
-public class PathVariableBinder implements ActionMethodBinder {
+public class PathVariableBinder implements SelectiveActionMethodBinder {
 	{
 		// we rely on the static init in this class to register some type convertors
 		// this is horrible, i'm not sure how better to handle the reliance on static registration.
@@ -73,6 +73,16 @@ public class PathVariableBinder implements ActionMethodBinder {
 		}
 	}
 
+	@Override
+	public boolean canBindAny(List<ParameterDescription> parameters) {
+		for (ParameterDescription parameterDescription : parameters) {
+			if (canBindFromPathVariable(parameterDescription)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private boolean canBindFromPathVariable(ParameterDescription parameterDescription) {
 		return PathVariableTypes.contains(parameterDescription.type());
 	}
@@ -17,11 +17,6 @@
  */
 package com.threewks.thundr.action.method.bind.request;
 
-import static com.atomicleopard.expressive.Expressive.*;
-
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -29,14 +24,13 @@ import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import com.atomicleopard.expressive.ETransformer;
 import com.atomicleopard.expressive.Expressive;
 import com.threewks.thundr.action.method.bind.ActionMethodBinder;
 import com.threewks.thundr.action.method.bind.http.ParameterBinderSet;
+import com.threewks.thundr.http.RequestIndex;
 import com.threewks.thundr.introspection.ParameterDescription;
 
 public class CookieBinder implements ActionMethodBinder {
-	private static final ETransformer<Collection<Cookie>, Map<String, List<Cookie>>> toLookup = Expressive.Transformers.<Cookie, String> toBeanLookup("name", Cookie.class);
 	public static final List<Class<?>> BoundTypes = Expressive.<Class<?>>list(Cookie.class);
 
 	public CookieBinder() {
@@ -44,37 +38,19 @@ public class CookieBinder implements ActionMethodBinder {
 
 	@Override
 	public void bindAll(Map<ParameterDescription, Object> bindings, HttpServletRequest req, HttpServletResponse resp, Map<String, String> pathVariables) {
-		if (req.getCookies() != null && bindings.values().contains(null)) {
-			ParameterBinderSet parameterBinderSet = new ParameterBinderSet();
-			Map<String, List<String>> cookieValueLookup = createCookieMap(req);
-			Map<String, String[]> parameterMap = ParameterBinderSet.convertListMapToArrayMap(cookieValueLookup);
-			parameterBinderSet.bind(bindings, parameterMap, null);
-
-			Map<String, List<Cookie>> lookup = toLookup.from(list(req.getCookies()));
-			for (Map.Entry<ParameterDescription, Object> binding : bindings.entrySet()) {
-				ParameterDescription key = binding.getKey();
-				if (binding.getValue() == null && key.isA(Cookie.class)) {
-					String name = key.name();
-					List<Cookie> namedCookies = lookup.get(name);
-					Cookie cookie = isNotEmpty(namedCookies) ? namedCookies.get(0) : null;
-					bindings.put(key, cookie);
+		if (bindings.values().contains(null)) {
+			RequestIndex requestIndex = RequestIndex.of(req);
+			if (requestIndex.hasCookies()) {
+				ParameterBinderSet parameterBinderSet = ParameterBinderSet.shared();
+				parameterBinderSet.bind(bindings, requestIndex.getCookieValues(), null);
+
+				for (Map.Entry<ParameterDescription, Object> binding : bindings.entrySet()) {
+					ParameterDescription key = binding.getKey();
+					if (binding.getValue() == null && key.isA(Cookie.class)) {
+						bindings.put(key, requestIndex.getCookie(key.name()));
+					}
 				}
 			}
 		}
 	}
-
-	private Map<String, List<String>> createCookieMap(HttpServletRequest req) {
-		Map<String, List<String>> lookup = new HashMap<String, List<String>>();
-		for (Cookie cookie : req.getCookies()) {
-			String name = cookie.getName();
-			String value = cookie.getValue();
-			List<String> existing = lookup.get(name);
-			if (existing == null) {
-				existing = new ArrayList<String>();
-				lookup.put(name, existing);
-			}
-			existing.add(value);
-		}
-		return lookup;
-	}
 }
@@ -35,7 +35,7 @@ public class RequestAttributeBinder implements ActionMethodBinder {
 
 	@Override
 	public void bindAll(Map<ParameterDescription, Object> bindings, HttpServletRequest req, HttpServletResponse resp, Map<String, String> pathVariables) {
-		ParameterBinderSet parameterBinderSet = new ParameterBinderSet();
+		ParameterBinderSet parameterBinderSet = ParameterBinderSet.shared();
 		Map<String, String[]> requestAttributes = createStringRequestAttributes(req);
 		parameterBinderSet.bind(bindings, requestAttributes, null);
 		for (Map.Entry<ParameterDescription, Object> binding : bindings.entrySet()) {
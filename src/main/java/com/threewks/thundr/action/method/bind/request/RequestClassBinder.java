@@ -25,12 +25,24 @@ import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
 import com.atomicleopard.expressive.Expressive;
-import com.threewks.thundr.action.method.bind.ActionMethodBinder;
+import com.threewks.thundr.action.method.bind.SelectiveActionMethodBinder;
 import com.threewks.thundr.introspection.ParameterDescription;
 
-public class RequestClassBinder implements ActionMethodBinder {
+public class RequestClassBinder implements SelectiveActionMethodBinder {
 	public static final List<Class<?>> BoundTypes = Expressive.<Class<?>> list(HttpServletRequest.class, HttpServletResponse.class, HttpSession.class);
 
+	@Override
+	public boolean canBindAny(List<ParameterDescription> parameters) {
+		for (ParameterDescription parameterDescription : parameters) {
+			for (Class<?> type : BoundTypes) {
+				if (parameterDescription.isA(type)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public void bindAll(Map<ParameterDescription, Object> bindings, HttpServletRequest req, HttpServletResponse resp, Map<String, String> pathVariables) {
 		for (Map.Entry<ParameterDescription, Object> binding : bindings.entrySet()) {
@@ -17,23 +17,14 @@
  */
 package com.threewks.thundr.action.method.bind.request;
 
-import static com.atomicleopard.expressive.Expressive.list;
-
-import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-import jodd.util.StringPool;
-
-import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.text.WordUtils;
-
-import com.atomicleopard.expressive.Expressive;
 import com.threewks.thundr.action.method.bind.ActionMethodBinder;
 import com.threewks.thundr.action.method.bind.http.ParameterBinderSet;
+import com.threewks.thundr.http.RequestIndex;
 import com.threewks.thundr.introspection.ParameterDescription;
 
 public class RequestHeaderBinder implements ActionMethodBinder {
@@ -43,31 +34,8 @@ public class RequestHeaderBinder implements ActionMethodBinder {
 
 	@Override
 	public void bindAll(Map<ParameterDescription, Object> bindings, HttpServletRequest req, HttpServletResponse resp, Map<String, String> pathVariables) {
-		ParameterBinderSet parameterBinderSet = new ParameterBinderSet();
-		Map<String, String[]> parameterMap = createNormalisedHeaderMap(req);
+		ParameterBinderSet parameterBinderSet = ParameterBinderSet.shared();
+		Map<String, String[]> parameterMap = RequestIndex.of(req).getNormalisedHeaders();
 		parameterBinderSet.bind(bindings, parameterMap, null);
 	}
-
-	@SuppressWarnings("unchecked")
-	private Map<String, String[]> createNormalisedHeaderMap(HttpServletRequest req) {
-		Map<String, String[]> results = new HashMap<String, String[]>();
-		Enumeration<String> headerNames = req.getHeaderNames();
-		if (headerNames != null) {
-			for (String name : Expressive.iterable(headerNames)) {
-				String[] values = headerValues(req.getHeaders(name));
-				results.put(normaliseHeaderName(name), values);
-			}
-		}
-		return results;
-	}
-
-	String normaliseHeaderName(String header) {
-		String capitalised = WordUtils.capitalizeFully(header, '-');
-		String withoutDashes = capitalised.replaceAll(StringPool.DASH, StringPool.EMPTY);
-		return StringUtils.uncapitalize(withoutDashes);
-	}
-
-	private String[] headerValues(Enumeration<String> headers) {
-		return list(Expressive.iterable(headers)).toArray(new String[0]);
-	}
 }
@@ -19,6 +19,7 @@ package com.threewks.thundr.action.method.bind.request;
 
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
@@ -26,17 +27,61 @@ import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
 import com.atomicleopard.expressive.Expressive;
-import com.threewks.thundr.action.method.bind.ActionMethodBinder;
+import com.threewks.thundr.action.method.bind.SelectiveActionMethodBinder;
 import com.threewks.thundr.action.method.bind.http.ParameterBinderSet;
 import com.threewks.thundr.introspection.ParameterDescription;
 
-public class SessionAttributeBinder implements ActionMethodBinder {
+/**
+ * Binds session attributes to parameters of the same name. Session attributes which are strings are converted
+ * to the parameter type where required, and javabean parameters can be populated from dotted attribute names.
+ * 
+ * In lean mode, enabled with {@link #setLean(boolean)}, this binder never causes a session to be created and only reads the attributes
+ * named by unbound parameters. Javabeans are then not populated from dotted attribute names. Applications enable it on the
+ * binder found in {@link com.threewks.thundr.action.method.bind.ActionMethodBinderRegistry#getRegisteredActionMethodBinders()}
+ * so that it keeps its place in the binding order.
+ */
+public class SessionAttributeBinder implements SelectiveActionMethodBinder {
+	private boolean lean = false;
 
 	public SessionAttributeBinder() {
 	}
 
+	public SessionAttributeBinder(boolean lean) {
+		this.lean = lean;
+	}
+
+	public boolean isLean() {
+		return lean;
+	}
+
+	public void setLean(boolean lean) {
+		this.lean = lean;
+	}
+
+	@Override
+	public boolean canBindAny(List<ParameterDescription> parameters) {
+		if (!lean) {
+			// the default mode gets the session on every request, which creates it if required
+			return true;
+		}
+		for (ParameterDescription parameterDescription : parameters) {
+			if (!RequestClassBinder.BoundTypes.contains(parameterDescription.type())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public void bindAll(Map<ParameterDescription, Object> bindings, HttpServletRequest req, HttpServletResponse resp, Map<String, String> pathVariables) {
+		if (lean) {
+			bindNamedAttributes(bindings, req);
+		} else {
+			bindAllAttributes(bindings, req);
+		}
+	}
+
+	private void bindAllAttributes(Map<ParameterDescription, Object> bindings, HttpServletRequest req) {
 		HttpSession session = req.getSession();
 		if (session != null) {
 			ParameterBinderSet parameterBinderSet = new ParameterBinderSet();
@@ -54,6 +99,29 @@ public class SessionAttributeBinder implements ActionMethodBinder {
 		}
 	}
 
+	private void bindNamedAttributes(Map<ParameterDescription, Object> bindings, HttpServletRequest req) {
+		HttpSession session = req.getSession(false);
+		if (session != null) {
+			Map<String, String[]> stringAttributes = null;
+			for (Map.Entry<ParameterDescription, Object> binding : bindings.entrySet()) {
+				if (binding.getValue() == null) {
+					ParameterDescription key = binding.getKey();
+					String name = key.name();
+					Object value = session.getAttribute(name);
+					if (value != null && key.isA(value.getClass())) {
+						bindings.put(key, value);
+					} else if (value instanceof String) {
+						stringAttributes = stringAttributes == null ? new HashMap<String, String[]>() : stringAttributes;
+						stringAttributes.put(name, new String[] { (String) value });
+					}
+				}
+			}
+			if (stringAttributes != null) {
+				new ParameterBinderSet().bind(bindings, stringAttributes, null);
+			}
+		}
+	}
+
 	@SuppressWarnings("unchecked")
 	private Map<String, String[]> createStringSessionAttributes(HttpSession session) {
 		Map<String, String[]> results = new HashMap<String, String[]>();
@@ -0,0 +1,118 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.staticResource;
+
+/**
+ * A single byte range requested using the http Range header, as described in RFC 2616 section 14.35.
+ */
+public class ByteRange {
+	private static final String BytesUnit = "bytes=";
+
+	private long start;
+	private long end;
+	private long length;
+
+	public ByteRange(long start, long end, long length) {
+		this.start = start;
+		this.end = end;
+		this.length = length;
+	}
+
+	/**
+	 * @return the first byte in the range
+	 */
+	public long getStart() {
+		return start;
+	}
+
+	/**
+	 * @return the last byte in the range, inclusive
+	 */
+	public long getEnd() {
+		return end;
+	}
+
+	/**
+	 * @return the number of bytes in the range
+	 */
+	public long getCount() {
+		return end - start + 1;
+	}
+
+	/**
+	 * @return the total length of the resource the range applies to
+	 */
+	public long getLength() {
+		return length;
+	}
+
+	public boolean isSatisfiable() {
+		return start <= end && start < length;
+	}
+
+	/**
+	 * @return the value of the Content-Range header describing this range
+	 */
+	public String getContentRange() {
+		return isSatisfiable() ? String.format("bytes %d-%d/%d", start, end, length) : String.format("bytes */%d", length);
+	}
+
+	@Override
+	public String toString() {
+		return getContentRange();
+	}
+
+	/**
+	 * Parses the given Range header against a resource of the given length. Only a single range is supported, a header
+	 * which requests multiple ranges or which cannot be parsed results in null, meaning the whole resource should be sent.
+	 * 
+	 * @param header
+	 * @param length
+	 * @return the requested range, which may not be satisfiable, or null if the header should be ignored
+	 */
+	public static ByteRange parse(String header, long length) {
+		if (header == null || !header.startsWith(BytesUnit) || header.indexOf(',') > -1) {
+			return null;
+		}
+		String spec = header.substring(BytesUnit.length()).trim();
+		int dash = spec.indexOf('-');
+		if (dash < 0) {
+			return null;
+		}
+		try {
+			String first = spec.substring(0, dash).trim();
+			String last = spec.substring(dash + 1).trim();
+			if (first.length() == 0) {
+				// a suffix range, i.e. the last n bytes
+				long suffix = Long.parseLong(last);
+				if (suffix < 0) {
+					return null;
+				}
+				return suffix == 0 ? new ByteRange(length, length - 1, length) : new ByteRange(Math.max(0, length - suffix), length - 1, length);
+			}
+			long start = Long.parseLong(first);
+			long end = last.length() == 0 ? length - 1 : Math.min(Long.parseLong(last), length - 1);
+			if (start < 0 || (last.length() > 0 && Long.parseLong(last) < start)) {
+				return null;
+			}
+			return new ByteRange(start, end, length);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,115 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.staticResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+import com.threewks.thundr.util.Encoder;
+
+/**
+ * The content of a static resource held in memory, along with a gzipped variant of it if one is worthwhile, and
+ * the metadata required to answer conditional requests for it.
+ */
+public class StaticResource {
+	private String mimeType;
+	private byte[] content;
+	private byte[] gzippedContent;
+	private long lastModified;
+	private String etag;
+	private String gzippedEtag;
+	private File file;
+	private long fileLastModified;
+	private long fileLength;
+
+	public StaticResource(String mimeType, byte[] content, long lastModified, boolean compress) {
+		this(mimeType, content, lastModified, compress, null);
+	}
+
+	/**
+	 * @param file the file the content was read from, if any, which is checked by {@link #isModified()}
+	 */
+	public StaticResource(String mimeType, byte[] content, long lastModified, boolean compress, File file) {
+		this.mimeType = mimeType;
+		this.content = content;
+		this.lastModified = lastModified;
+		String hash = new Encoder(content).md5().hex().string();
+		this.etag = "\"" + hash + "\"";
+		this.gzippedEtag = "\"" + hash + "-gzip\"";
+		this.gzippedContent = compress ? gzip(content) : null;
+		this.file = file;
+		this.fileLastModified = file == null ? 0 : file.lastModified();
+		this.fileLength = file == null ? 0 : file.length();
+	}
+
+	/**
+	 * @return true if this resource was read from a file which has since changed. Resources not read from a file, such as those
+	 *         in a jar, are never modified.
+	 */
+	public boolean isModified() {
+		return file != null && (file.lastModified() != fileLastModified || file.length() != fileLength);
+	}
+
+	public String getMimeType() {
+		return mimeType;
+	}
+
+	public long getLastModified() {
+		return lastModified;
+	}
+
+	public boolean isGzipped() {
+		return gzippedContent != null;
+	}
+
+	public byte[] getContent(boolean gzipped) {
+		return gzipped && isGzipped() ? gzippedContent : content;
+	}
+
+	/**
+	 * @param gzipped
+	 * @return the strong entity tag of the plain or gzipped representation of this resource
+	 */
+	public String getETag(boolean gzipped) {
+		return gzipped && isGzipped() ? gzippedEtag : etag;
+	}
+
+	/**
+	 * @return the number of bytes held in memory by this resource
+	 */
+	public long size() {
+		return content.length + (gzippedContent == null ? 0 : gzippedContent.length);
+	}
+
+	/**
+	 * Compresses the given content, returning null if compressing it would not make it any smaller.
+	 */
+	private static byte[] gzip(byte[] content) {
+		try {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream(content.length / 2 + 32);
+			GZIPOutputStream gzip = new GZIPOutputStream(baos);
+			gzip.write(content);
+			gzip.close();
+			return baos.size() < content.length ? baos.toByteArray() : null;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+}
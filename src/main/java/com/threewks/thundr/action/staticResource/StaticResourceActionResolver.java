@@ -17,11 +17,16 @@
  */
 package com.threewks.thundr.action.staticResource;
 
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -33,21 +38,24 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import jodd.io.FileUtil;
 import jodd.io.StreamUtil;
 import jodd.servlet.filter.GzipResponseWrapper;
 import jodd.util.Wildcard;
 
+import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
 
+import com.atomicleopard.expressive.Cast;
 import com.threewks.thundr.action.ActionException;
 import com.threewks.thundr.action.ActionResolver;
 import com.threewks.thundr.exception.BaseException;
+import com.threewks.thundr.http.HttpSupport;
 import com.threewks.thundr.http.HttpSupport.Header;
 import com.threewks.thundr.logger.Logger;
 import com.threewks.thundr.route.RouteType;
+import com.threewks.thundr.util.BufferPool;
 
-// TODO - Better caching control:
-// TODO - Vary: Accept-Encoding
 public class StaticResourceActionResolver implements ActionResolver<StaticResourceAction> {
 
 	private static final String ActionName = "static";
@@ -79,6 +87,19 @@ public class StaticResourceActionResolver implements ActionResolver<StaticResour
 	private int cacheDuration = 24 * 60 * 60;
 	private ServletContext servletContext;
 
+	/**
+	 * The default number of bytes of static content held in memory
+	 */
+	public static final long DefaultCacheSize = 16 * 1024 * 1024;
+	/**
+	 * The default size in bytes of the largest resource which will be held in memory
+	 */
+	public static final int DefaultMaxCachedResourceSize = 1024 * 1024;
+
+	private StaticResourceCache cache = new StaticResourceCache(DefaultCacheSize);
+	private int maxCachedResourceSize = DefaultMaxCachedResourceSize;
+	private BufferPool transferBuffers = new BufferPool(64 * 1024, 16);
+
 	public StaticResourceActionResolver(ServletContext servletContext) {
 		this.servletContext = servletContext;
 	}
@@ -106,12 +127,50 @@ public class StaticResourceActionResolver implements ActionResolver<StaticResour
 	public void initialise(StaticResourceAction action) {
 	}
 
-	protected void serve(StaticResourceAction action, HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+	/**
+	 * Sets the number of bytes of static content to hold in memory, discarding anything currently cached.
+	 * A size of 0 disables caching.
+	 * 
+	 * @param bytes
+	 */
+	public void setCacheSize(long bytes) {
+		this.cache = new StaticResourceCache(bytes);
+	}
 
+	/**
+	 * Sets the size in bytes of the largest resource which will be held in memory. Larger resources are streamed on each request.
+	 * 
+	 * @param bytes
+	 */
+	public void setMaxCachedResourceSize(int bytes) {
+		this.maxCachedResourceSize = bytes;
+	}
+
+	public StaticResourceCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Serves the requested resource. HEAD requests are answered with the same headers as a GET, but the content of large resources
+	 * is never read and no content is written.
+	 */
+	protected void serve(StaticResourceAction action, HttpServletRequest request, HttpServletResponse response) throws ServletException, IOException {
+		boolean head = HttpSupport.Methods.isHead(request);
 		String resource = request.getRequestURI();
-		URL resourceUrl = servletContext.getResource(resource);
 		boolean allowed = isAllowed(resource);
-		if (resourceUrl == null || !allowed) {
+		StaticResource staticResource = allowed ? cache.get(resource) : null;
+		if (staticResource != null && staticResource.isModified()) {
+			// reloaded and replaced in the cache below
+			staticResource = null;
+		}
+		if (staticResource != null) {
+			serve(staticResource, head, request, response);
+			Logger.debug("%s -> %s resolved from cache as %s", resource, action, staticResource.getMimeType());
+			return;
+		}
+
+		URL resourceUrl = allowed ? servletContext.getResource(resource) : null;
+		if (resourceUrl == null) {
 			response.sendError(HttpServletResponse.SC_NOT_FOUND);
 			Logger.info("%s -> %s not resolved: %s", resource, action, allowed ? "Not found" : "Not Permitted");
 			return;
@@ -121,34 +180,280 @@ public class StaticResourceActionResolver implements ActionResolver<StaticResour
 		String mimeType = deriveMimeType(resource);
 		long contentLength = urlConnection.getContentLength();
 		long lastModified = urlConnection.getLastModified();
-		String acceptEncoding = request.getHeader(Header.AcceptEncoding);
-		long cacheTimeSeconds = deriveCacheDuration(resource, mimeType);
 
+		boolean cacheable = contentLength >= 0 && contentLength <= maxCachedResourceSize;
+		File file = toReadableFile(resourceUrl);
+		if (cacheable) {
+			staticResource = load(urlConnection, mimeType, lastModified, file);
+			cache.put(resource, staticResource);
+			serve(staticResource, head, request, response);
+		} else if (file != null && !shouldZip(request.getHeader(Header.AcceptEncoding), mimeType)) {
+			serve(file, mimeType, head, request, response);
+		} else {
+			serve(urlConnection, mimeType, contentLength, lastModified, head, request, response);
+		}
+		Logger.debug("%s -> %s resolved as %s(%d bytes)", resource, action, mimeType, contentLength);
+	}
+
+	protected void serve(StaticResource staticResource, boolean head, HttpServletRequest request, HttpServletResponse response) throws IOException {
+		String mimeType = staticResource.getMimeType();
+		long lastModified = staticResource.getLastModified();
+		ByteRange range = head ? null : findRange(request, staticResource.getContent(false).length, staticResource.getETag(false), lastModified);
+		// ranges are always served from the plain content
+		boolean gzip = range == null && staticResource.isGzipped() && shouldZip(request.getHeader(Header.AcceptEncoding), mimeType);
+		String etag = staticResource.getETag(gzip);
+
+		setCacheHeaders(response, mimeType, lastModified);
+		response.setHeader(Header.ETag, etag);
+		response.setHeader(Header.AcceptRanges, "bytes");
+		if (isNotModified(request, lastModified, staticResource.getETag(false), staticResource.getETag(true))) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+
+		byte[] content = staticResource.getContent(gzip);
 		response.setContentType(mimeType);
-		response.setDateHeader(Header.Expires, System.currentTimeMillis() + cacheTimeSeconds * 1000L); // HTTP 1.0
-		response.setHeader(Header.CacheControl, String.format("max-age=%d, public", cacheTimeSeconds)); // HTTP 1.1
-		response.setDateHeader(Header.LastModified, lastModified);
+		if (gzip) {
+			response.setHeader(Header.ContentEncoding, "gzip");
+		}
+		if (startRange(range, response)) {
+			response.setContentLength(range == null ? content.length : (int) range.getCount());
+			if (head) {
+				return;
+			}
+			OutputStream os = response.getOutputStream();
+			if (range == null) {
+				os.write(content);
+			} else {
+				os.write(content, (int) range.getStart(), (int) range.getCount());
+			}
+			os.close();
+		}
+	}
 
-		OutputStream os = null;
-		InputStream is = urlConnection.getInputStream();
+	/**
+	 * Serves a file which is too large to be cached. The servlet 2.5 API offers no zero-copy path to the response, so the
+	 * file is only handed to {@link FileChannel#transferTo(long, long, WritableByteChannel)} when the container's output
+	 * stream is itself a {@link WritableByteChannel}, where the container can use sendfile. Otherwise it is copied through
+	 * a pooled buffer.
+	 */
+	protected void serve(File file, String mimeType, boolean head, HttpServletRequest request, HttpServletResponse response) throws IOException {
+		long length = file.length();
+		long lastModified = file.lastModified();
+		String etag = String.format("\"%x-%x\"", length, lastModified);
+		ByteRange range = head ? null : findRange(request, length, etag, lastModified);
 
-		if (shouldZip(acceptEncoding, mimeType)) {
-			GzipResponseWrapper wrapper = new GzipResponseWrapper(response);
-			os = wrapper.getOutputStream();
-			StreamUtil.copy(is, os);
-			wrapper.finishResponse();
-		} else {
-			response.setHeader(Header.ContentLength, Long.toString(contentLength));
-			os = response.getOutputStream();
-			StreamUtil.copy(is, os);
+		setCacheHeaders(response, mimeType, lastModified);
+		response.setHeader(Header.ETag, etag);
+		response.setHeader(Header.AcceptRanges, "bytes");
+		if (isNotModified(request, lastModified, etag)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+
+		response.setContentType(mimeType);
+		if (startRange(range, response)) {
+			long start = range == null ? 0 : range.getStart();
+			long count = range == null ? length : range.getCount();
+			response.setHeader(Header.ContentLength, Long.toString(count));
+			if (head) {
+				return;
+			}
+			OutputStream os = response.getOutputStream();
+			WritableByteChannel target = Cast.as(os, WritableByteChannel.class);
+			if (target != null) {
+				transfer(file, start, count, target);
+			} else {
+				copy(file, start, count, os);
+			}
 			os.close();
 		}
+	}
+
+	private void transfer(File file, long start, long count, WritableByteChannel target) throws IOException {
+		FileInputStream fis = new FileInputStream(file);
+		try {
+			FileChannel channel = fis.getChannel();
+			while (count > 0) {
+				long transferred = channel.transferTo(start, count, target);
+				if (transferred <= 0) {
+					break;
+				}
+				start += transferred;
+				count -= transferred;
+			}
+		} finally {
+			StreamUtil.close(fis);
+		}
+	}
 
+	private void copy(File file, long start, long count, OutputStream os) throws IOException {
+		RandomAccessFile input = new RandomAccessFile(file, "r");
+		byte[] buffer = transferBuffers.acquire();
+		try {
+			input.seek(start);
+			while (count > 0) {
+				int read = input.read(buffer, 0, (int) Math.min(buffer.length, count));
+				if (read < 0) {
+					break;
+				}
+				os.write(buffer, 0, read);
+				count -= read;
+			}
+		} finally {
+			transferBuffers.release(buffer);
+			input.close();
+		}
+	}
+
+	/**
+	 * Streams a resource which is too large to be cached and is not available as a file.
+	 */
+	protected void serve(URLConnection urlConnection, String mimeType, long contentLength, long lastModified, boolean head, HttpServletRequest request, HttpServletResponse response) throws IOException {
+		setCacheHeaders(response, mimeType, lastModified);
+		if (isNotModified(request, lastModified)) {
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			return;
+		}
+
+		response.setContentType(mimeType);
 		response.setStatus(HttpServletResponse.SC_OK);
-		Logger.debug("%s -> %s resolved as %s(%d bytes)", resource, action, mimeType, contentLength);
+		if (head) {
+			// the length of gzipped content isn't known without compressing it
+			if (shouldZip(request.getHeader(Header.AcceptEncoding), mimeType)) {
+				response.setHeader(Header.ContentEncoding, "gzip");
+			} else if (contentLength >= 0) {
+				response.setHeader(Header.ContentLength, Long.toString(contentLength));
+			}
+			return;
+		}
+		InputStream is = urlConnection.getInputStream();
+		try {
+			if (shouldZip(request.getHeader(Header.AcceptEncoding), mimeType)) {
+				GzipResponseWrapper wrapper = new GzipResponseWrapper(response);
+				StreamUtil.copy(is, wrapper.getOutputStream());
+				wrapper.finishResponse();
+			} else {
+				response.setHeader(Header.ContentLength, Long.toString(contentLength));
+				OutputStream os = response.getOutputStream();
+				StreamUtil.copy(is, os);
+				os.close();
+			}
+		} finally {
+			StreamUtil.close(is);
+		}
+	}
+
+	protected StaticResource load(URLConnection urlConnection, String mimeType, long lastModified, File file) throws IOException {
+		InputStream is = urlConnection.getInputStream();
+		try {
+			byte[] content = StreamUtil.readBytes(is);
+			return new StaticResource(mimeType, content, lastModified, gzipEnabled && matchesCompressedMimeTypes(mimeType), file);
+		} finally {
+			StreamUtil.close(is);
+		}
+	}
+
+	/**
+	 * @return the file the given url refers to, or null if it is not a file or cannot be read directly
+	 */
+	File toReadableFile(URL url) {
+		try {
+			File file = FileUtil.toFile(url);
+			return file != null && file.isFile() && file.canRead() ? file : null;
+		} catch (RuntimeException e) {
+			// some containers do not permit direct file access
+			return null;
+		}
+	}
+
+	/**
+	 * Sets the status for the given range, returning false if the range cannot be satisfied and no content should be written.
+	 */
+	private boolean startRange(ByteRange range, HttpServletResponse response) {
+		if (range == null) {
+			response.setStatus(HttpServletResponse.SC_OK);
+			return true;
+		}
+		response.setHeader(Header.ContentRange, range.getContentRange());
+		if (range.isSatisfiable()) {
+			response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+			return true;
+		}
+		response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+		return false;
+	}
+
+	/**
+	 * @return the requested range, or null if the whole resource should be sent
+	 */
+	ByteRange findRange(HttpServletRequest request, long length, String etag, long lastModified) {
+		String rangeHeader = request.getHeader(Header.Range);
+		return rangeHeader != null && isRangeCurrent(request, etag, lastModified) ? ByteRange.parse(rangeHeader, length) : null;
+	}
+
+	/**
+	 * A range is only honoured if the If-Range header, when present, matches the current entity tag or modification date.
+	 */
+	boolean isRangeCurrent(HttpServletRequest request, String etag, long lastModified) {
+		String ifRange = request.getHeader(Header.IfRange);
+		if (ifRange == null) {
+			return true;
+		}
+		ifRange = ifRange.trim();
+		if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+			return ifRange.equals(etag);
+		}
+		try {
+			return lastModified > 0 && request.getDateHeader(Header.IfRange) / 1000 == lastModified / 1000;
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	private void setCacheHeaders(HttpServletResponse response, String mimeType, long lastModified) {
+		long cacheTimeSeconds = deriveCacheDuration(mimeType);
+		response.setDateHeader(Header.Expires, System.currentTimeMillis() + cacheTimeSeconds * 1000L); // HTTP 1.0
+		response.setHeader(Header.CacheControl, String.format("max-age=%d, public", cacheTimeSeconds)); // HTTP 1.1
+		if (lastModified > 0) {
+			response.setDateHeader(Header.LastModified, lastModified);
+		}
+		if (gzipEnabled && matchesCompressedMimeTypes(mimeType)) {
+			response.setHeader(Header.Vary, Header.AcceptEncoding);
+		}
+	}
+
+	/**
+	 * If-None-Match takes precedence over If-Modified-Since when both are present, as per RFC 2616 section 14.26.
+	 */
+	boolean isNotModified(HttpServletRequest request, long lastModified, String... etags) {
+		String ifNoneMatch = request.getHeader(Header.IfNoneMatch);
+		if (ifNoneMatch != null) {
+			for (String etag : ifNoneMatch.split(",")) {
+				etag = StringUtils.removeStart(etag.trim(), "W/");
+				if ("*".equals(etag) || ArrayUtils.contains(etags, etag)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		return isNotModifiedSince(request, lastModified);
+	}
+
+	boolean isNotModifiedSince(HttpServletRequest request, long lastModified) {
+		if (lastModified <= 0) {
+			return false;
+		}
+		try {
+			long ifModifiedSince = request.getDateHeader(Header.IfModifiedSince);
+			// http dates have a resolution of seconds
+			return ifModifiedSince >= 0 && lastModified / 1000 <= ifModifiedSince / 1000;
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
 	}
 
-	private long deriveCacheDuration(String resource, String mimeType) {
+	private long deriveCacheDuration(String mimeType) {
 		return cacheDuration;
 	}
 
@@ -0,0 +1,124 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.staticResource;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache of {@link StaticResource}s bounded by the total number of bytes they hold. When adding a resource would
+ * exceed that budget, the least recently used resources are evicted.
+ * 
+ * Reads never lock, they only record when each resource was last used. Adding and removing resources is serialised,
+ * and eviction scans for the least recently used resources, which is cheap next to loading the resource being added.
+ */
+public class StaticResourceCache {
+	private final long capacity;
+	private final Map<String, Entry> resources = new ConcurrentHashMap<String, Entry>();
+	private final AtomicLong clock = new AtomicLong();
+	private volatile long size = 0;
+
+	/**
+	 * @param capacity the maximum number of bytes to hold, 0 disables caching
+	 */
+	public StaticResourceCache(long capacity) {
+		this.capacity = capacity;
+	}
+
+	public StaticResource get(String key) {
+		Entry entry = resources.get(key);
+		if (entry == null) {
+			return null;
+		}
+		entry.lastUsed = clock.incrementAndGet();
+		return entry.resource;
+	}
+
+	/**
+	 * Adds the given resource, evicting the least recently used resources as required to remain within capacity.
+	 * Resources which are larger than the capacity are not cached.
+	 * 
+	 * @param key
+	 * @param resource
+	 * @return true if the resource was cached
+	 */
+	public synchronized boolean put(String key, StaticResource resource) {
+		if (resource.size() > capacity) {
+			return false;
+		}
+		remove(key);
+		long size = this.size + resource.size();
+		while (size > capacity) {
+			size -= evictLeastRecentlyUsed();
+		}
+		resources.put(key, new Entry(resource, clock.incrementAndGet()));
+		this.size = size;
+		return true;
+	}
+
+	private long evictLeastRecentlyUsed() {
+		Map.Entry<String, Entry> oldest = null;
+		for (Map.Entry<String, Entry> entry : resources.entrySet()) {
+			if (oldest == null || entry.getValue().lastUsed < oldest.getValue().lastUsed) {
+				oldest = entry;
+			}
+		}
+		resources.remove(oldest.getKey());
+		return oldest.getValue().resource.size();
+	}
+
+	public synchronized StaticResource remove(String key) {
+		Entry removed = resources.remove(key);
+		if (removed != null) {
+			size -= removed.resource.size();
+			return removed.resource;
+		}
+		return null;
+	}
+
+	public synchronized void clear() {
+		resources.clear();
+		size = 0;
+	}
+
+	public int count() {
+		return resources.size();
+	}
+
+	/**
+	 * @return the number of bytes currently held in this cache
+	 */
+	public long size() {
+		return size;
+	}
+
+	public long capacity() {
+		return capacity;
+	}
+
+	private static class Entry {
+		private final StaticResource resource;
+		private volatile long lastUsed;
+
+		private Entry(StaticResource resource, long lastUsed) {
+			this.resource = resource;
+			this.lastUsed = lastUsed;
+		}
+	}
+}
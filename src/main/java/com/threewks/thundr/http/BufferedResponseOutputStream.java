@@ -0,0 +1,121 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.http;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * An {@link OutputStream} which collects content for a response in a fixed size buffer.
+ * 
+ * If all of the content fits in the buffer, the Content-Length of the response is set and the content written when the stream
+ * is finished. Otherwise, as soon as the buffer is full it is written to the response, along with all further content, without
+ * a Content-Length - allowing the container to send the response chunked. Memory use is therefore bounded by the size of the buffer
+ * rather than the size of the content.
+ * 
+ * Until the buffer overflows nothing is written to the response, so a failure while generating the content can still be reported
+ * with a different response.
+ */
+public class BufferedResponseOutputStream extends OutputStream {
+	private final HttpServletResponse response;
+	private final byte[] buffer;
+	private int count = 0;
+	private long size = 0;
+	private OutputStream out = null;
+	private boolean finished = false;
+
+	/**
+	 * @param response the response to write to
+	 * @param buffer the buffer to use, which must not be used elsewhere until this stream is finished
+	 */
+	public BufferedResponseOutputStream(HttpServletResponse response, byte[] buffer) {
+		this.response = response;
+		this.buffer = buffer;
+	}
+
+	@Override
+	public void write(int b) throws IOException {
+		if (out == null && count < buffer.length) {
+			buffer[count++] = (byte) b;
+		} else {
+			overflow().write(b);
+		}
+		size++;
+	}
+
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		if (out == null && len <= buffer.length - count) {
+			System.arraycopy(b, off, buffer, count, len);
+			count += len;
+		} else {
+			overflow().write(b, off, len);
+		}
+		size += len;
+	}
+
+	/**
+	 * Writes any buffered content to the response, setting the Content-Length if all the content was buffered.
+	 * The response output stream is flushed, but not closed.
+	 * 
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		if (!finished) {
+			finished = true;
+			if (out == null) {
+				response.setContentLength(count);
+				out = response.getOutputStream();
+				out.write(buffer, 0, count);
+			}
+			out.flush();
+		}
+	}
+
+	/**
+	 * @return true if the content did not fit in the buffer, and so is being written to the response without a Content-Length
+	 */
+	public boolean isOverflowed() {
+		return size > buffer.length;
+	}
+
+	/**
+	 * @return the number of bytes written to this stream
+	 */
+	public long size() {
+		return size;
+	}
+
+	@Override
+	public void close() throws IOException {
+		finish();
+	}
+
+	private OutputStream overflow() throws IOException {
+		if (finished) {
+			throw new IOException("Cannot write to a response which has been finished");
+		}
+		if (out == null) {
+			out = response.getOutputStream();
+			out.write(buffer, 0, count);
+		}
+		return out;
+	}
+}
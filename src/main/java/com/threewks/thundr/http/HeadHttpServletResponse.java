@@ -0,0 +1,154 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.http;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Wraps the response to a HEAD request, passing headers and status through to the underlying response but discarding any content.
+ * 
+ * View resolvers which can determine the Content-Length of a response without producing the content should set it and
+ * write nothing when {@link HttpSupport.Methods#isHead(HttpServletRequest)} is true for the request. For any others, the discarded
+ * content is counted and the Content-Length set from it when {@link #finish()} is called.
+ */
+public class HeadHttpServletResponse extends HttpServletResponseWrapper {
+	private long count = 0;
+	private boolean contentLengthSet = false;
+	private PrintWriter writer;
+	private ServletOutputStream os = new ServletOutputStream() {
+		@Override
+		public void write(int b) throws IOException {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			count += len;
+		}
+	};
+
+	public HeadHttpServletResponse(HttpServletResponse response) {
+		super(response);
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() throws IOException {
+		return os;
+	}
+
+	@Override
+	public PrintWriter getWriter() throws IOException {
+		if (writer == null) {
+			writer = new PrintWriter(new OutputStreamWriter(os, getCharacterEncoding()));
+		}
+		return writer;
+	}
+
+	@Override
+	public void setContentLength(int len) {
+		super.setContentLength(len);
+		contentLengthSet = true;
+	}
+
+	@Override
+	public void setHeader(String name, String value) {
+		super.setHeader(name, value);
+		contentLengthSet |= HttpSupport.Header.ContentLength.equalsIgnoreCase(name);
+	}
+
+	@Override
+	public void addHeader(String name, String value) {
+		super.addHeader(name, value);
+		contentLengthSet |= HttpSupport.Header.ContentLength.equalsIgnoreCase(name);
+	}
+
+	@Override
+	public void setIntHeader(String name, int value) {
+		super.setIntHeader(name, value);
+		contentLengthSet |= HttpSupport.Header.ContentLength.equalsIgnoreCase(name);
+	}
+
+	@Override
+	public void addIntHeader(String name, int value) {
+		super.addIntHeader(name, value);
+		contentLengthSet |= HttpSupport.Header.ContentLength.equalsIgnoreCase(name);
+	}
+
+	/**
+	 * Flushing is deferred until {@link #finish()}, as committing the response would prevent the Content-Length being set.
+	 */
+	@Override
+	public void flushBuffer() throws IOException {
+		if (writer != null) {
+			writer.flush();
+		}
+	}
+
+	@Override
+	public void resetBuffer() {
+		super.resetBuffer();
+		discard();
+	}
+
+	@Override
+	public void reset() {
+		super.reset();
+		discard();
+		contentLengthSet = false;
+	}
+
+	/**
+	 * Content still buffered in the writer was written before the reset, so it is flushed before the count is cleared.
+	 */
+	private void discard() {
+		if (writer != null) {
+			writer.flush();
+		}
+		count = 0;
+	}
+
+	/**
+	 * @return the number of bytes of content discarded
+	 */
+	public long getDiscardedContentLength() {
+		if (writer != null) {
+			writer.flush();
+		}
+		return count;
+	}
+
+	/**
+	 * Sets the Content-Length from the discarded content if none was set and content was written, then flushes the underlying response.
+	 * 
+	 * @throws IOException
+	 */
+	public void finish() throws IOException {
+		long discarded = getDiscardedContentLength();
+		if (!contentLengthSet && discarded > 0 && !isCommitted()) {
+			super.setHeader(HttpSupport.Header.ContentLength, Long.toString(discarded));
+		}
+		super.flushBuffer();
+	}
+}
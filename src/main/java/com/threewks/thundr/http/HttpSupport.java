@@ -19,25 +19,34 @@ package com.threewks.thundr.http;
 
 import java.net.URI;
 
+import javax.servlet.http.HttpServletRequest;
+
 public class HttpSupport {
 	public static class Header {
 		public static final String Accept = "Accept";
 		public static final String AcceptCharset = "Accept-Charset";
 		public static final String AcceptEncoding = "Accept-Encoding";
+		public static final String AcceptRanges = "Accept-Ranges";
 		public static final String Authorization = "Authorization";
 		public static final String CacheControl = "Cache-Control";
 		public static final String ContentLength = "Content-Length";
 		public static final String ContentType = "Content-Type";
 		public static final String ContentDisposition = "Content-Disposition";
 		public static final String ContentEncoding = "Content-Encoding";
+		public static final String ContentRange = "Content-Range";
+		public static final String ETag = "ETag";
 		public static final String Expires = "Expires";
 		public static final String IfModifiedSince = "If-Modified-Since";
+		public static final String IfNoneMatch = "If-None-Match";
+		public static final String IfRange = "If-Range";
 		public static final String LastModified = "Last-Modified";
 		public static final String Origin = "Origin";
 		public static final String Pragma = "Pragma";
+		public static final String Range = "Range";
 		public static final String SetCookie = "Set-Cookie";
 		public static final String SetCookie2 = "Set-Cookie2";
 		public static final String UserAgent = "User-Agent";
+		public static final String Vary = "Vary";
 		public static final String XHttpMethodOverride = "X-HTTP-Method-Override";
 	}
 
@@ -57,6 +66,12 @@ public class HttpSupport {
 		public static final String Connect = "CONNECT";
 		public static final String Patch = "PATCH";
 
+		/**
+		 * The request attribute holding the method a request is being handled as, when this differs from {@link HttpServletRequest#getMethod()}
+		 * (i.e. a POST overridden to HEAD using X-HTTP-Method-Override or a _method parameter).
+		 */
+		public static final String EffectiveMethodAttribute = "thundr.effectiveMethod";
+
 		/**
 		 * @param method
 		 * @return true if the given method is GET, case-insensitive
@@ -65,6 +80,26 @@ public class HttpSupport {
 			return Get.equalsIgnoreCase(method);
 		}
 
+		/**
+		 * @param method
+		 * @return true if the given method is HEAD, case-insensitive
+		 */
+		public static boolean isHead(String method) {
+			return Head.equalsIgnoreCase(method);
+		}
+
+		/**
+		 * @param req
+		 * @return true if the given request is not null and is a HEAD request, or is being handled as one
+		 */
+		public static boolean isHead(HttpServletRequest req) {
+			if (req == null) {
+				return false;
+			}
+			Object effectiveMethod = req.getAttribute(EffectiveMethodAttribute);
+			return isHead(effectiveMethod == null ? req.getMethod() : effectiveMethod.toString());
+		}
+
 		/**
 		 * 
 		 * @param method
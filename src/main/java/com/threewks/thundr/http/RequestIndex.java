@@ -0,0 +1,249 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.http;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * A lazily built index of the headers, cookies and parameters of a request. The index for a request is held as
+ * a request attribute, so obtaining it using {@link #of(HttpServletRequest)} allows the binders and the servlet
+ * to share the work of building it. Each part of the index is only built when first queried.
+ */
+public class RequestIndex {
+	public static final String RequestAttributeName = RequestIndex.class.getName();
+	private static final String[] NoValues = new String[0];
+	/**
+	 * Bounds the cache of normalised header names, so that arbitrary header names sent by clients cannot grow it indefinitely
+	 */
+	private static final int MaxNormalisedHeaderNames = 1024;
+	private static final Map<String, String> normalisedHeaderNames = new ConcurrentHashMap<String, String>();
+
+	/**
+	 * @param req
+	 * @return the index for the given request, creating it if it does not yet exist
+	 */
+	public static RequestIndex of(HttpServletRequest req) {
+		Object existing = req.getAttribute(RequestAttributeName);
+		if (existing instanceof RequestIndex && ((RequestIndex) existing).req == req) {
+			return (RequestIndex) existing;
+		}
+		RequestIndex index = new RequestIndex(req);
+		req.setAttribute(RequestAttributeName, index);
+		return index;
+	}
+
+	/**
+	 * Normalises a header name to the form used to bind it to a parameter, i.e. X-Http-Method-Override becomes xHttpMethodOverride.
+	 * Header names are treated case insensitively. Results are cached, as the same header names are seen on almost every request.
+	 * 
+	 * @param header
+	 * @return
+	 */
+	public static String normaliseHeaderName(String header) {
+		String normalised = normalisedHeaderNames.get(header);
+		if (normalised == null) {
+			normalised = createNormalisedHeaderName(header);
+			if (normalisedHeaderNames.size() < MaxNormalisedHeaderNames) {
+				normalisedHeaderNames.put(header, normalised);
+			}
+		}
+		return normalised;
+	}
+
+	private static String createNormalisedHeaderName(String header) {
+		StringBuilder sb = new StringBuilder(header.length());
+		boolean capitalise = false;
+		for (int i = 0; i < header.length(); i++) {
+			char c = header.charAt(i);
+			if (c == '-') {
+				capitalise = true;
+			} else {
+				sb.append(capitalise && sb.length() > 0 ? Character.toTitleCase(c) : Character.toLowerCase(c));
+				capitalise = false;
+			}
+		}
+		return sb.toString();
+	}
+
+	private final HttpServletRequest req;
+	private Map<String, String[]> normalisedHeaders;
+	private Map<String, String[]> headers;
+	private Map<String, String[]> cookieValues;
+	private Map<String, Cookie> cookies;
+	private Map<String, String[]> parameters;
+	private Map<String, String[]> parametersIgnoringCase;
+
+	public RequestIndex(HttpServletRequest req) {
+		this.req = req;
+	}
+
+	/**
+	 * @return all request headers keyed by their normalised name, as per {@link #normaliseHeaderName(String)}
+	 */
+	public Map<String, String[]> getNormalisedHeaders() {
+		indexHeaders();
+		return normalisedHeaders;
+	}
+
+	/**
+	 * @param name
+	 * @return the first value of the named header, ignoring case, or null if there is none
+	 */
+	public String getHeader(String name) {
+		return first(getHeaders(name));
+	}
+
+	/**
+	 * @param name
+	 * @return all values of the named header, ignoring case
+	 */
+	public String[] getHeaders(String name) {
+		indexHeaders();
+		String[] values = headers.get(name.toLowerCase(Locale.ENGLISH));
+		return values == null ? NoValues : values;
+	}
+
+	/**
+	 * @return the values of all cookies, keyed by cookie name
+	 */
+	public Map<String, String[]> getCookieValues() {
+		indexCookies();
+		return cookieValues;
+	}
+
+	/**
+	 * @param name
+	 * @return the first cookie with the given name, or null if there is none
+	 */
+	public Cookie getCookie(String name) {
+		indexCookies();
+		return cookies.get(name);
+	}
+
+	public boolean hasCookies() {
+		indexCookies();
+		return !cookies.isEmpty();
+	}
+
+	/**
+	 * @return the request parameter map
+	 */
+	public Map<String, String[]> getParameters() {
+		indexParameters();
+		return parameters;
+	}
+
+	/**
+	 * @param name
+	 * @return the first value of the named parameter, ignoring case, or null if there is none
+	 */
+	public String getParameter(String name) {
+		indexParameters();
+		return first(parametersIgnoringCase.get(name.toLowerCase(Locale.ENGLISH)));
+	}
+
+	@SuppressWarnings("unchecked")
+	private void indexHeaders() {
+		if (headers == null) {
+			Map<String, String[]> normalisedHeaders = new HashMap<String, String[]>();
+			Map<String, String[]> headers = new HashMap<String, String[]>();
+			Enumeration<String> headerNames = req.getHeaderNames();
+			if (headerNames != null) {
+				while (headerNames.hasMoreElements()) {
+					String name = headerNames.nextElement();
+					String[] values = toArray(req.getHeaders(name));
+					normalisedHeaders.put(normaliseHeaderName(name), values);
+					String lowerCaseName = name.toLowerCase(Locale.ENGLISH);
+					if (!headers.containsKey(lowerCaseName)) {
+						headers.put(lowerCaseName, values);
+					}
+				}
+			}
+			this.normalisedHeaders = Collections.unmodifiableMap(normalisedHeaders);
+			this.headers = headers;
+		}
+	}
+
+	private void indexCookies() {
+		if (cookies == null) {
+			Map<String, List<String>> values = new HashMap<String, List<String>>();
+			Map<String, Cookie> cookies = new HashMap<String, Cookie>();
+			Cookie[] requestCookies = req.getCookies();
+			if (requestCookies != null) {
+				for (Cookie cookie : requestCookies) {
+					String name = cookie.getName();
+					List<String> existing = values.get(name);
+					if (existing == null) {
+						existing = new ArrayList<String>(1);
+						values.put(name, existing);
+						cookies.put(name, cookie);
+					}
+					existing.add(cookie.getValue());
+				}
+			}
+			Map<String, String[]> cookieValues = new HashMap<String, String[]>();
+			for (Map.Entry<String, List<String>> entry : values.entrySet()) {
+				cookieValues.put(entry.getKey(), entry.getValue().toArray(NoValues));
+			}
+			this.cookieValues = Collections.unmodifiableMap(cookieValues);
+			this.cookies = cookies;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private void indexParameters() {
+		if (parameters == null) {
+			Map<String, String[]> parameters = req.getParameterMap();
+			parameters = parameters == null ? Collections.<String, String[]> emptyMap() : parameters;
+			Map<String, String[]> parametersIgnoringCase = new HashMap<String, String[]>();
+			for (Map.Entry<String, String[]> entry : parameters.entrySet()) {
+				String lowerCaseName = entry.getKey().toLowerCase(Locale.ENGLISH);
+				if (!parametersIgnoringCase.containsKey(lowerCaseName)) {
+					parametersIgnoringCase.put(lowerCaseName, entry.getValue());
+				}
+			}
+			this.parametersIgnoringCase = parametersIgnoringCase;
+			this.parameters = parameters;
+		}
+	}
+
+	private static String[] toArray(Enumeration<String> values) {
+		if (values == null) {
+			return NoValues;
+		}
+		List<String> list = new ArrayList<String>(1);
+		while (values.hasMoreElements()) {
+			list.add(values.nextElement());
+		}
+		return list.toArray(NoValues);
+	}
+
+	private static String first(String[] values) {
+		return values == null || values.length == 0 ? null : values[0];
+	}
+}
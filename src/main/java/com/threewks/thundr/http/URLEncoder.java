@@ -87,6 +87,10 @@ public class URLEncoder {
 		return unescape(value);
 	}
 
+	public static final String decodeQueryComponent(String value) {
+		return unescape(value);
+	}
+
 	private static String unescape(String value) {
 		try {
 			return URLDecoder.decode(value, "UTF-8");
@@ -23,14 +23,13 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
@@ -49,6 +48,18 @@ public class InjectionContextImpl implements UpdatableInjectionContext {
 
 	private Triplets<Class<?>, String, Class<?>> types = map();
 	private Triplets<Class<?>, String, Object> instances = map();
+	// the instances of each type by name, replaced rather than modified when an instance is added
+	private Map<Class<?>, Map<String, Object>> instancesByType = new ConcurrentHashMap<Class<?>, Map<String, Object>>();
+	// the results of previous lookups, discarded whenever a type or instance is added or the environment changes
+	private Map<Pair<Class<?>, String>, Object> resolved = new ConcurrentHashMap<Pair<Class<?>, String>, Object>();
+	private Map<String, String> environmentSpecificNames = new ConcurrentHashMap<String, String>();
+	private volatile String resolvedEnvironment = Environment.get();
+	// counts every change to the resolved lookups, so that a lookup overlapping one is not cached. Any such change can also change
+	// which constructor of a type is satisfiable, so it also invalidates the constructor chosen by each InjectionPlan
+	private volatile int resolvedGeneration = 0;
+	private Map<Class<?>, InjectionPlan<?>> injectionPlans = new ConcurrentHashMap<Class<?>, InjectionPlan<?>>();
+	// held while creating the instance for a type and name, so that it is only constructed once
+	private ConcurrentHashMap<Pair<Class<?>, String>, Object> creationLocks = new ConcurrentHashMap<Pair<Class<?>, String>, Object>();
 
 	private MethodIntrospector methodIntrospector = new MethodIntrospector();
 	private ClassIntrospector classIntrospector = new ClassIntrospector();
@@ -70,6 +81,29 @@ public class InjectionContextImpl implements UpdatableInjectionContext {
 
 	@Override
 	public <T> T get(Class<T> type) {
+		Pair<Class<?>, String> key = new Pair<Class<?>, String>(type, null);
+		T instance = getResolved(key);
+		if (instance == null) {
+			int generation = this.resolvedGeneration;
+			instance = resolve(type);
+			addResolved(key, instance, generation);
+		}
+		return instance;
+	}
+
+	@Override
+	public <T> T get(Class<T> type, String name) {
+		Pair<Class<?>, String> key = new Pair<Class<?>, String>(type, name);
+		T instance = getResolved(key);
+		if (instance == null) {
+			int generation = this.resolvedGeneration;
+			instance = resolve(type, name);
+			addResolved(key, instance, generation);
+		}
+		return instance;
+	}
+
+	private <T> T resolve(Class<T> type) {
 		T instance = getExistingInstance(type, null);
 		if (instance == null) {
 			instance = createAndAddInstance(type, null);
@@ -80,8 +114,7 @@ public class InjectionContextImpl implements UpdatableInjectionContext {
 		return instance;
 	}
 
-	@Override
-	public <T> T get(Class<T> type, String name) {
+	private <T> T resolve(Class<T> type, String name) {
 		T instance = getExistingInstance(type, name);
 		if (instance == null) {
 			instance = createAndAddInstance(type, name);
@@ -93,55 +126,164 @@ public class InjectionContextImpl implements UpdatableInjectionContext {
 	}
 
 	protected <T> void addType(Class<T> type, String name, Class<? extends T> as) {
-		types.put(type, name, as);
+		synchronized (instances) {
+			types.put(type, name, as);
+			modified();
+		}
 	}
 
 	protected <T> void addInstance(Class<T> type, String name, T as) {
-		instances.put(type, name, as);
+		synchronized (instances) {
+			putInstance(type, name, as);
+			modified();
+		}
+	}
+
+	private void putInstance(Class<?> type, String name, Object instance) {
+		instances.put(type, name, instance);
+		Map<String, Object> named = instancesByType.get(type);
+		named = named == null ? new HashMap<String, Object>() : new HashMap<String, Object>(named);
+		named.put(name, instance);
+		instancesByType.put(type, Collections.unmodifiableMap(named));
+	}
+
+	/**
+	 * Must be called holding the lock on instances
+	 */
+	private void modified() {
+		resolvedGeneration++;
+		resolved.clear();
+	}
+
+	/**
+	 * Discards the lookups of the given type only, for an instance created to fill an empty slot. Such an instance is what
+	 * a lookup for its slot would create anyway, so only lookups of the same type falling back to another name can change.
+	 * Must be called holding the lock on instances.
+	 */
+	private void filled(Class<?> type) {
+		resolvedGeneration++;
+		for (Pair<Class<?>, String> key : resolved.keySet()) {
+			if (key.getA() == type) {
+				resolved.remove(key);
+			}
+		}
 	}
 
+	@SuppressWarnings("unchecked")
+	private <T> T getResolved(Pair<Class<?>, String> key) {
+		checkEnvironment();
+		return (T) resolved.get(key);
+	}
+
+	private void checkEnvironment() {
+		String environment = Environment.get();
+		if (!StringUtils.equals(environment, resolvedEnvironment)) {
+			synchronized (instances) {
+				resolvedEnvironment = environment;
+				resolvedGeneration++;
+				resolved.clear();
+				environmentSpecificNames.clear();
+			}
+		}
+	}
+
+	private void addResolved(Pair<Class<?>, String> key, Object instance, int generation) {
+		// a lookup which overlapped with a type or instance being added may be stale, so is not kept. The check and put
+		// are made under the same lock as changes so that a put cannot land after the cache is cleared
+		if (instance != null) {
+			synchronized (instances) {
+				if (generation == this.resolvedGeneration) {
+					resolved.put(key, instance);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates the instance for the given type and name, unless another thread has already done so. Creation is serialised for
+	 * each type and name, rather than under the lock on instances, because constructing an instance looks up its dependencies.
+	 * This means an instance is constructed only once even when it is first requested by several threads at the same time (i.e.
+	 * requests being served while deferred actions are initialised in the background).
+	 */
 	@SuppressWarnings("unchecked")
 	private <T> T createAndAddInstance(Class<T> type, String name) {
-		T instance = null;
-		T newInstance = instantiate((Class<T>) types.get(type, name));
-		if (newInstance != null) {
+		synchronized (creationLock(type, name)) {
+			Class<T> implementation;
+			synchronized (instances) {
+				T existing = (T) instances.get(type, name);
+				if (existing != null) {
+					return existing;
+				}
+				implementation = (Class<T>) types.get(type, name);
+			}
+			T newInstance = instantiate(implementation);
+			if (newInstance == null) {
+				return null;
+			}
 			synchronized (instances) {
 				if (!instances.containsKey(type, name)) {
-					instances.put(type, name, newInstance);
+					putInstance(type, name, newInstance);
+					filled(type);
 				}
-				instance = (T) instances.get(type, name);
+				return (T) instances.get(type, name);
 			}
 		}
-		return instance;
+	}
+
+	private Object creationLock(Class<?> type, String name) {
+		Pair<Class<?>, String> key = new Pair<Class<?>, String>(type, name);
+		Object lock = creationLocks.get(key);
+		if (lock == null) {
+			Object newLock = new Object();
+			lock = creationLocks.putIfAbsent(key, newLock);
+			lock = lock == null ? newLock : lock;
+		}
+		return lock;
 	}
 
 	private <T> T instantiate(Class<T> type) {
 		if (type == null) {
 			return null;
 		}
-		List<Constructor<T>> ctors = classIntrospector.listConstructors(type);
+		InjectionPlan<T> plan = getInjectionPlan(type);
+		T instance = construct(type, plan);
+		instance = invokeSetters(type, plan, instance);
+		return setFields(type, plan, instance);
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> InjectionPlan<T> getInjectionPlan(Class<T> type) {
+		InjectionPlan<T> plan = (InjectionPlan<T>) injectionPlans.get(type);
+		if (plan == null) {
+			plan = new InjectionPlan<T>(type, classIntrospector, methodIntrospector);
+			injectionPlans.put(type, plan);
+		}
+		return plan;
+	}
+
+	private <T> T construct(Class<T> type, InjectionPlan<T> plan) {
+		List<InjectionPlan.ConstructorInjection<T>> ctors = plan.getConstructors();
+		int generation = this.resolvedGeneration;
 		List<ParameterDescription> minimalParameters = Collections.emptyList();
-		for (int i = ctors.size() - 1; i >= 0; i--) {
-			Constructor<T> constructor = ctors.get(i);
-			List<ParameterDescription> parameterDescriptions = methodIntrospector.getParameterDescriptions(constructor);
-			minimalParameters = parameterDescriptions;
-			if (canSatisfy(parameterDescriptions)) {
-				Object[] args = getAll(parameterDescriptions);
-				T instance = invokeConstructor(constructor, args);
-				instance = invokeSetters(type, instance);
-				return setFields(type, instance);
+		for (int i = plan.getChosenConstructor(generation); i < ctors.size(); i++) {
+			InjectionPlan.ConstructorInjection<T> ctor = ctors.get(i);
+			minimalParameters = ctor.getParameters();
+			Object[] args = getAll(minimalParameters);
+			if (args != null) {
+				plan.setChosenConstructor(i, generation);
+				return invokeConstructor(ctor.getConstructor(), args);
 			}
 		}
 
 		throw new InjectionException("Could not create a %s - cannot match parameters of any available constructors. The minimal set of parameters required is %s", type.getName(), minimalParameters);
 	}
 
-	private <T> T invokeSetters(Class<T> type, T instance) {
-		List<Method> setters = classIntrospector.listSetters(type);
-		for (Method method : setters) {
-			String name = getPropertyNameFromSetMethod(method);
+	private <T> T invokeSetters(Class<T> type, InjectionPlan<T> plan, T instance) {
+		for (InjectionPlan.SetterInjection setter : plan.getSetters()) {
+			Method method = setter.getMethod();
 			try {
-				Class<?> argumentType = method.getParameterTypes()[0];
+				Class<?> argumentType = setter.getType();
+				String name = setter.getName();
 				if (contains(argumentType, name)) {
 					method.invoke(instance, get(argumentType, name));
 				}
@@ -154,15 +296,11 @@ public class InjectionContextImpl implements UpdatableInjectionContext {
 
 	// TODO - Stack Overflow - A thread local storing types being created could bail
 	// out early in the case of stack overflow
-	private <T> T setFields(Class<T> type, T instance) {
-		List<Field> fields = classIntrospector.listInjectionFields(type);
-		for (Field field : fields) {
+	private <T> T setFields(Class<T> type, InjectionPlan<T> plan, T instance) {
+		for (Field field : plan.getFields()) {
 			try {
 				Object beanProperty = get(field.getType(), field.getName());
-				boolean accessible = field.isAccessible();
-				field.setAccessible(true);
 				field.set(instance, beanProperty);
-				field.setAccessible(accessible);
 			} catch (Exception e) {
 				throw new InjectionException(e, "Failed to inject into %s.%s: %s", type.getName(), field.getName(), getRootMessage(e));
 			}
@@ -171,13 +309,20 @@ public class InjectionContextImpl implements UpdatableInjectionContext {
 		return instance;
 	}
 
+	/**
+	 * @return the values for the given parameters, or null if any of them cannot be satisfied
+	 */
 	private Object[] getAll(List<ParameterDescription> parameterDescriptions) {
-		List<Object> args = new ArrayList<Object>(parameterDescriptions.size());
-		for (ParameterDescription parameterDescription : parameterDescriptions) {
+		Object[] args = new Object[parameterDescriptions.size()];
+		for (int i = 0; i < args.length; i++) {
+			ParameterDescription parameterDescription = parameterDescriptions.get(i);
 			Object arg = get(parameterDescription.classType(), parameterDescription.name());
-			args.add(arg);
+			if (arg == null) {
+				return null;
+			}
+			args[i] = arg;
 		}
-		return args.toArray();
+		return args;
 	}
 
 	@Override
@@ -188,68 +333,71 @@ public class InjectionContextImpl implements UpdatableInjectionContext {
 	@Override
 	public <T> boolean contains(Class<T> type, String name) {
 		boolean contains = false;
+		String envName = null;
 		if (name != null) {
-			String envName = environmentSpecificName(name);
-			// named or environment named instance
-			contains = contains || instances.containsKey(type, envName) || instances.containsKey(type, name);
-			// named or environment named type
-			contains = contains || types.containsKey(type, envName) || types.containsKey(type, name);
+			checkEnvironment();
+			envName = environmentSpecificName(name);
+		}
+		synchronized (instances) {
+			if (name != null) {
+				// named or environment named instance
+				contains = contains || instances.containsKey(type, envName) || instances.containsKey(type, name);
+				// named or environment named type
+				contains = contains || types.containsKey(type, envName) || types.containsKey(type, name);
+			}
+			// unnamed instance
+			contains = contains || instances.containsKey(type, null);
+			// unnamed type
+			contains = contains || types.containsKey(type, null);
 		}
-		// unnamed instance
-		contains = contains || instances.containsKey(type, null);
-		// unnamed type
-		contains = contains || types.containsKey(type, null);
 		return contains;
 	}
 
 	@Override
 	public String toString() {
-		return String.format("Injection context (%s instances, %s classes)", instances.size(), types.size());
+		synchronized (instances) {
+			return String.format("Injection context (%s instances, %s classes)", instances.size(), types.size());
+		}
 	}
 
 	@SuppressWarnings("unchecked")
 	private <T> T getExistingInstance(Class<T> type, String name) {
 		String environmentSpecificName = environmentSpecificName(name);
-		T instance = (T) instances.get(type, environmentSpecificName);
-		if (instance == null) {
-			instance = (T) instances.get(type, name);
+		synchronized (instances) {
+			T instance = (T) instances.get(type, environmentSpecificName);
+			if (instance == null) {
+				instance = (T) instances.get(type, name);
+			}
+			return instance;
 		}
-		return instance;
 	}
 
 	@SuppressWarnings("unchecked")
 	private <T> T getOnlyExistingNamedInstanceForNonBasicType(Class<T> type) {
 		boolean isBasicType = TypesRequiringAName.contains(type);
 		if (!isBasicType) {
-			Map<String, T> existing = new HashMap<String, T>();
-			for (Entry<Pair<Class<?>, String>, Object> entry : instances.entrySet()) {
-				Pair<Class<?>, String> key = entry.getKey();
-				if (type.equals(key.getA())) {
-					T t = (T) entry.getValue();
-					existing.put(key.getB(), t);
-				}
+			Map<String, Object> existing = instancesByType.get(type);
+			if (existing == null) {
+				return null;
 			}
 			if (existing.size() > 1) {
 				throw new InjectionException("Unable to get an instance of %s - the result is ambiguous. The following matches exist: %s. Check the casing of the expected parameter matches exactly.", type.getName(), StringUtils.join(existing.keySet(), ", "));
 			}
 			if (existing.size() == 1) {
-				return existing.values().iterator().next();
+				return (T) existing.values().iterator().next();
 			}
 		}
 		return null;
 	}
 
 	private String environmentSpecificName(String name) {
-		return name + ENVIRONMENT_SEPARATOR + Environment.get();
-	}
-
-	private boolean canSatisfy(List<ParameterDescription> parameterDescriptions) {
-		for (ParameterDescription parameterDescription : parameterDescriptions) {
-			if (get(parameterDescription.classType(), parameterDescription.name()) == null) {
-				return false;
-			}
+		String key = String.valueOf(name);
+		String environmentSpecificName = environmentSpecificNames.get(key);
+		if (environmentSpecificName == null) {
+			environmentSpecificName = key + ENVIRONMENT_SEPARATOR + Environment.get();
+			environmentSpecificNames.put(key, environmentSpecificName);
 		}
-		return true;
+		return environmentSpecificName;
 	}
 
 	private <T> T invokeConstructor(Constructor<T> constructor, Object[] args) {
@@ -266,11 +414,6 @@ public class InjectionContextImpl implements UpdatableInjectionContext {
 		return message;
 	}
 
-	private String getPropertyNameFromSetMethod(Method method) {
-		String nameWithUpperCaseFirstLetter = method.getName().replace("set", "");
-		return nameWithUpperCaseFirstLetter.substring(0, 1).toLowerCase() + nameWithUpperCaseFirstLetter.substring(1);
-	}
-
 	private <K1, K2, V> Triplets<K1, K2, V> map() {
 		return new Triplets<K1, K2, V>();
 	}
@@ -0,0 +1,154 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.injection;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.threewks.thundr.introspection.ClassIntrospector;
+import com.threewks.thundr.introspection.MethodIntrospector;
+import com.threewks.thundr.introspection.ParameterDescription;
+
+/**
+ * Describes how the {@link InjectionContextImpl} creates an instance of a type - the constructors it can choose between, most
+ * preferred first, and the setters and fields it injects. A plan is built once for each type, so the reflection involved is
+ * not repeated for every instance created.
+ */
+class InjectionPlan<T> {
+	private final List<ConstructorInjection<T>> constructors;
+	private final List<SetterInjection> setters;
+	private final List<Field> fields;
+	private volatile Choice choice;
+
+	InjectionPlan(Class<T> type, ClassIntrospector classIntrospector, MethodIntrospector methodIntrospector) {
+		List<Constructor<T>> ctors = classIntrospector.listConstructors(type);
+		List<ConstructorInjection<T>> constructors = new ArrayList<ConstructorInjection<T>>(ctors.size());
+		for (int i = ctors.size() - 1; i >= 0; i--) {
+			Constructor<T> constructor = ctors.get(i);
+			constructors.add(new ConstructorInjection<T>(constructor, methodIntrospector.getParameterDescriptions(constructor)));
+		}
+		List<SetterInjection> setters = new ArrayList<SetterInjection>();
+		for (Method method : classIntrospector.listSetters(type)) {
+			setters.add(new SetterInjection(method, method.getParameterTypes()[0], getPropertyNameFromSetMethod(method)));
+		}
+		List<Field> fields = classIntrospector.listInjectionFields(type);
+		for (Field field : fields) {
+			field.setAccessible(true);
+		}
+		this.constructors = Collections.unmodifiableList(constructors);
+		this.setters = Collections.unmodifiableList(setters);
+		this.fields = Collections.unmodifiableList(fields);
+	}
+
+	/**
+	 * @return the constructors of the type, most preferred (i.e. with the most parameters) first
+	 */
+	List<ConstructorInjection<T>> getConstructors() {
+		return constructors;
+	}
+
+	List<SetterInjection> getSetters() {
+		return setters;
+	}
+
+	/**
+	 * @return the fields to inject, which have already been made accessible
+	 */
+	List<Field> getFields() {
+		return fields;
+	}
+
+	/**
+	 * @param generation the generation of the injection context
+	 * @return the index of the constructor last chosen in the given generation of the injection context, or 0 if there is none
+	 */
+	int getChosenConstructor(int generation) {
+		Choice choice = this.choice;
+		return choice != null && choice.generation == generation ? choice.constructor : 0;
+	}
+
+	/**
+	 * Records the constructor chosen in the given generation of the injection context. The generation changes whenever a type or
+	 * instance is added, an empty slot is filled or the environment changes - any of which can make a more preferred constructor
+	 * satisfiable - so the choice only holds while it is unchanged.
+	 */
+	void setChosenConstructor(int constructor, int generation) {
+		this.choice = new Choice(constructor, generation);
+	}
+
+	private static String getPropertyNameFromSetMethod(Method method) {
+		String nameWithUpperCaseFirstLetter = method.getName().replace("set", "");
+		return nameWithUpperCaseFirstLetter.substring(0, 1).toLowerCase() + nameWithUpperCaseFirstLetter.substring(1);
+	}
+
+	static class ConstructorInjection<T> {
+		private final Constructor<T> constructor;
+		private final List<ParameterDescription> parameters;
+
+		ConstructorInjection(Constructor<T> constructor, List<ParameterDescription> parameters) {
+			this.constructor = constructor;
+			this.parameters = parameters;
+		}
+
+		Constructor<T> getConstructor() {
+			return constructor;
+		}
+
+		List<ParameterDescription> getParameters() {
+			return parameters;
+		}
+	}
+
+	static class SetterInjection {
+		private final Method method;
+		private final Class<?> type;
+		private final String name;
+
+		SetterInjection(Method method, Class<?> type, String name) {
+			this.method = method;
+			this.type = type;
+			this.name = name;
+		}
+
+		Method getMethod() {
+			return method;
+		}
+
+		Class<?> getType() {
+			return type;
+		}
+
+		String getName() {
+			return name;
+		}
+	}
+
+	private static class Choice {
+		private final int constructor;
+		private final int generation;
+
+		private Choice(int constructor, int generation) {
+			this.constructor = constructor;
+			this.generation = generation;
+		}
+	}
+}
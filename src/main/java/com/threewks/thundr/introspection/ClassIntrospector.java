@@ -20,11 +20,14 @@ package com.threewks.thundr.introspection;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 import javax.inject.Inject;
 
@@ -42,6 +45,8 @@ public class ClassIntrospector {
 	private static final Set<Class<?>> BasicTypes = Expressive.<Class<?>> set(boolean.class, byte.class, char.class, double.class, float.class, int.class, long.class, short.class, void.class);
 	private static Set<Class<?>> NonJavabeanBasicClasses = Expressive.<Class<?>> set(Object.class, String.class, boolean.class, byte.class, char.class, double.class, float.class, int.class,
 			long.class, short.class, void.class, Boolean.class, Byte.class, Character.class, Double.class, Float.class, Integer.class, Long.class, Short.class, Void.class);
+	// weakly keyed, so that the classes of an application are not retained after it is undeployed
+	private static final Map<Class<?>, Boolean> Javabeans = Collections.synchronizedMap(new WeakHashMap<Class<?>, Boolean>());
 
 	@SuppressWarnings({ "rawtypes" })
 	public <T> List<Constructor<T>> listConstructors(Class<T> type) {
@@ -106,10 +111,33 @@ public class ClassIntrospector {
 		}
 	}
 
+	/**
+	 * Determines if the given type is a javabean, that is a concrete class which can be instantiated using a no-args constructor.
+	 * An instance is created the first time a type is checked, so a type whose constructor throws is not a javabean. The result
+	 * is cached for each type, so later checks do not create an instance.
+	 * 
+	 * @param type
+	 * @return true if the given type is a javabean
+	 */
 	public static boolean isAJavabean(Class<?> type) {
+		if (type == null) {
+			return false;
+		}
+		Boolean javabean = Javabeans.get(type);
+		if (javabean == null) {
+			javabean = determineIfJavabean(type);
+			Javabeans.put(type, javabean);
+		}
+		return javabean;
+	}
+
+	private static boolean determineIfJavabean(Class<?> type) {
+		if (NonJavabeanBasicClasses.contains(type) || type.isInterface() || type.isArray() || type.isPrimitive() || type.isEnum() || Modifier.isAbstract(type.getModifiers())) {
+			return false;
+		}
 		try {
-			return type != null && !NonJavabeanBasicClasses.contains(type) && (type.newInstance() != null);
-		} catch (Exception e) {
+			return type.newInstance() != null;
+		} catch (Throwable e) {
 			return false;
 		}
 	}
@@ -0,0 +1,69 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Holds a {@link Gson} instance built from a {@link GsonBuilder}, so that it can be reused rather than created for every use.
+ * {@link Gson} instances are thread safe.
+ * 
+ * The {@link Gson} is built from the {@link GsonBuilder} when it is first used. The builder is mutable, so changes made to it
+ * after that are only used once {@link #rebuild()} is called. Building and discarding the {@link Gson} are synchronized, so
+ * a {@link Gson} built while {@link #rebuild()} is called is never kept in place of one reflecting the changes.
+ */
+public class GsonProvider {
+	private final GsonBuilder gsonBuilder;
+	private volatile Gson gson;
+
+	public GsonProvider(GsonBuilder gsonBuilder) {
+		this.gsonBuilder = gsonBuilder;
+	}
+
+	/**
+	 * @return the builder used to create the {@link Gson}
+	 */
+	public GsonBuilder getGsonBuilder() {
+		return gsonBuilder;
+	}
+
+	/**
+	 * @return the {@link Gson} built from the current state of the builder
+	 */
+	public Gson get() {
+		Gson current = gson;
+		if (current == null) {
+			synchronized (this) {
+				current = gson;
+				if (current == null) {
+					current = gsonBuilder.create();
+					gson = current;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Discards the current {@link Gson}, so that changes made to the builder are used from now on.
+	 */
+	public synchronized void rebuild() {
+		gson = null;
+	}
+}
@@ -21,10 +21,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -37,17 +40,20 @@ import com.threewks.thundr.injection.InjectionContext;
 import com.threewks.thundr.injection.Module;
 import com.threewks.thundr.injection.UpdatableInjectionContext;
 import com.threewks.thundr.logger.Logger;
+import com.threewks.thundr.profiler.StartupProfiler;
 
 public class Modules {
 	private Map<Class<? extends Module>, Collection<Class<? extends Module>>> moduleDependencies = new LinkedHashMap<Class<? extends Module>, Collection<Class<? extends Module>>>();
 	private Map<Class<? extends Module>, Module> instances = new LinkedHashMap<Class<? extends Module>, Module>();
-	private Map<Module, ModuleStatus> status = new HashMap<Module, ModuleStatus>();
+	private Map<Module, ModuleStatus> status = new ConcurrentHashMap<Module, ModuleStatus>();
 	private List<Module> orderedModules = null;
+	private int startupThreads = 1;
+	private StartupProfiler profiler = StartupProfiler.from(null);
 
 	public Modules() {
 	}
 
-	public void addModule(Class<? extends Module> module) {
+	public synchronized void addModule(Class<? extends Module> module) {
 		if (!hasModule(module)) {
 			Module instance = loadModule(module);
 			moduleDependencies.put(module, null);
@@ -57,11 +63,11 @@ public class Modules {
 		}
 	}
 
-	public <T extends Module> T getModule(Class<T> moduleClass) {
+	public synchronized <T extends Module> T getModule(Class<T> moduleClass) {
 		return Cast.as(instances.get(moduleClass), moduleClass);
 	}
 
-	public List<? extends Module> getModules(Collection<Class<? extends Module>> moduleClasses) {
+	public synchronized List<? extends Module> getModules(Collection<Class<? extends Module>> moduleClasses) {
 		List<Module> result = new ArrayList<Module>();
 		for (Class<? extends Module> moduleClass : moduleClasses) {
 			Module instance = instances.get(moduleClass);
@@ -72,33 +78,83 @@ public class Modules {
 		return result;
 	}
 
-	public boolean hasModule(Class<? extends Module> moduleClass) {
+	public synchronized boolean hasModule(Class<? extends Module> moduleClass) {
 		return instances.containsKey(moduleClass);
 	}
 
-	public List<Module> listModules() {
+	public synchronized List<Module> listModules() {
 		return new ArrayList<Module>(instances.values());
 	}
 
-	public void runStartupLifecycle(UpdatableInjectionContext injectionContext) {
+	/**
+	 * @return the number of threads used to run the startup lifecycle of modules which do not depend on each other
+	 */
+	public int getStartupThreads() {
+		return startupThreads;
+	}
+
+	/**
+	 * Sets the number of threads used to run the startup lifecycle. With more than one thread, modules which do not depend on each other,
+	 * directly or indirectly, may be initialised, configured and started concurrently, so they must be safe to run concurrently with
+	 * each other. Each step still only runs for a module once it has completed for all of that module's dependencies, and no module is
+	 * configured until all modules are initialised, or started until all modules are configured. The default is 1.
+	 * 
+	 * @param startupThreads
+	 */
+	public void setStartupThreads(int startupThreads) {
+		this.startupThreads = startupThreads;
+	}
+
+	public void runStartupLifecycle(final UpdatableInjectionContext injectionContext) {
 		Logger.debug("Loading modules...");
+		profiler = StartupProfiler.from(injectionContext);
+		StartupScheduler scheduler = new StartupScheduler(startupThreads);
+		Map<Module, List<Module>> dependencies = null;
 		List<Module> startupOrder = new ArrayList<Module>();
 		while (!allModulesStarted()) {
-			if (status.values().contains(ModuleStatus.Added)) {
+			if (hasMoreDependenciesToResolve()) {
 				resolveDependencies();
 				orderedModules = determineDependencyOrder();
+				dependencies = determineDependencies();
+			} else if (status.values().contains(ModuleStatus.DependenciesResolved)) {
+				scheduler.run(getModulesWithStatus(ModuleStatus.DependenciesResolved), dependencies, new StartupScheduler.Step() {
+					@Override
+					public void run(Module module) {
+						StartupProfiler.Timing timing = profiler.start(StartupProfiler.ModuleInitialise, module.getClass().getName());
+						try {
+							module.initialise(injectionContext);
+						} finally {
+							timing.stop();
+						}
+						status.put(module, ModuleStatus.Initialised);
+					}
+				});
+			} else if (status.values().contains(ModuleStatus.Initialised)) {
+				scheduler.run(getModulesWithStatus(ModuleStatus.Initialised), dependencies, new StartupScheduler.Step() {
+					@Override
+					public void run(Module module) {
+						StartupProfiler.Timing timing = profiler.start(StartupProfiler.ModuleConfigure, module.getClass().getName());
+						try {
+							module.configure(injectionContext);
+						} finally {
+							timing.stop();
+						}
+						status.put(module, ModuleStatus.Configured);
+					}
+				});
 			} else {
-				boolean allInitialised = initialiseNext(injectionContext);
-				boolean allConfigured = false;
-				if (allInitialised) {
-					allConfigured = configureNext(injectionContext);
-				}
-				if (allConfigured) {
-					Module started = startNext(injectionContext);
-					if (started != null) {
-						startupOrder.add(started);
+				startupOrder.addAll(scheduler.run(getModulesWithStatus(ModuleStatus.Configured), dependencies, new StartupScheduler.Step() {
+					@Override
+					public void run(Module module) {
+						StartupProfiler.Timing timing = profiler.start(StartupProfiler.ModuleStart, module.getClass().getName());
+						try {
+							module.start(injectionContext);
+						} finally {
+							timing.stop();
+						}
+						status.put(module, ModuleStatus.Started);
 					}
-				}
+				}));
 			}
 		}
 		Logger.info("Modules loaded");
@@ -114,45 +170,14 @@ public class Modules {
 	}
 
 	/**
-	 * @param injectionContext
-	 * @return true if all modules are initialised
+	 * @param status
+	 * @return the modules with the given status, in dependency order
 	 */
-	private boolean initialiseNext(UpdatableInjectionContext injectionContext) {
-		Module initialise = getFirstModuleWithStatus(ModuleStatus.DependenciesResolved);
-		if (initialise != null) {
-			initialise.initialise(injectionContext);
-			status.put(initialise, ModuleStatus.Initialised);
-		}
-		return initialise == null;
-	}
-
-	/**
-	 * @param injectionContext
-	 * @return true if all modules are already initialised
-	 */
-	private boolean configureNext(UpdatableInjectionContext injectionContext) {
-		Module configure = getFirstModuleWithStatus(ModuleStatus.Initialised);
-		if (configure != null) {
-			configure.configure(injectionContext);
-			status.put(configure, ModuleStatus.Configured);
-		}
-		return configure == null;
-	}
-
-	private Module startNext(UpdatableInjectionContext injectionContext) {
-		Module start = getFirstModuleWithStatus(ModuleStatus.Configured);
-		if (start != null) {
-			start.start(injectionContext);
-			status.put(start, ModuleStatus.Started);
-		}
-		return start;
-	}
-
-	private Module getFirstModuleWithStatus(ModuleStatus status) {
-		Module result = null;
-		for (Module injectionConfiguration : orderedModules) {
-			if (status.equals(this.status.get(injectionConfiguration))) {
-				return injectionConfiguration;
+	private List<Module> getModulesWithStatus(ModuleStatus status) {
+		List<Module> result = new ArrayList<Module>();
+		for (Module module : orderedModules) {
+			if (status.equals(this.status.get(module))) {
+				result.add(module);
 			}
 		}
 		return result;
@@ -177,21 +202,23 @@ public class Modules {
 	 * 
 	 * @return
 	 */
-	protected List<Module> determineDependencyOrder() {
+	protected synchronized List<Module> determineDependencyOrder() {
 		List<Module> orderedModules = new ArrayList<Module>();
+		Set<Module> ordered = new HashSet<Module>();
 
-		while (!orderedModules.containsAll(instances.values())) {
+		while (ordered.size() < instances.size()) {
 			boolean anyAdded = false;
 			for (Map.Entry<Class<? extends Module>, Module> entry : instances.entrySet()) {
 				Module instance = entry.getValue();
 
-				if (!orderedModules.contains(instance)) {
+				if (!ordered.contains(instance)) {
 					Class<? extends Module> configurationClass = entry.getKey();
 
 					Collection<Class<? extends Module>> dependencies = moduleDependencies.get(configurationClass);
 					List<? extends Module> injectionConfigurations = getModules(dependencies);
-					if (orderedModules.containsAll(injectionConfigurations)) {
+					if (ordered.containsAll(injectionConfigurations)) {
 						orderedModules.add(instance);
+						ordered.add(instance);
 						anyAdded = true;
 					}
 				}
@@ -207,6 +234,17 @@ public class Modules {
 		return orderedModules;
 	}
 
+	/**
+	 * @return the modules each module directly depends on
+	 */
+	private synchronized Map<Module, List<Module>> determineDependencies() {
+		Map<Module, List<Module>> dependencies = new HashMap<Module, List<Module>>();
+		for (Map.Entry<Class<? extends Module>, Module> entry : instances.entrySet()) {
+			dependencies.put(entry.getValue(), new ArrayList<Module>(getModules(moduleDependencies.get(entry.getKey()))));
+		}
+		return dependencies;
+	}
+
 	/**
 	 * Causes the dependent modules for any modules already added to be added as well.
 	 */
@@ -217,7 +255,12 @@ public class Modules {
 				Class<? extends Module> moduleClass = injectionConfiguration.getClass();
 
 				DependencyRegistry dependencyRegistry = new DependencyRegistry();
-				injectionConfiguration.requires(dependencyRegistry);
+				StartupProfiler.Timing timing = profiler.start(StartupProfiler.ModuleRequires, moduleClass.getName());
+				try {
+					injectionConfiguration.requires(dependencyRegistry);
+				} finally {
+					timing.stop();
+				}
 				Collection<Class<? extends Module>> dependencies = dependencyRegistry.getDependencies();
 				String moduleName = Transformers.toModuleName.from(moduleClass);
 				for (Class<? extends Module> dependencyClass : dependencies) {
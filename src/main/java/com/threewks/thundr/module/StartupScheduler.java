@@ -0,0 +1,169 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.module;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.threewks.thundr.injection.Module;
+
+/**
+ * Runs a single step of the module startup lifecycle (i.e. initialise, configure or start) over a set of modules. The step
+ * is only run for a module once it has completed for all of that module's dependencies, which allows modules in independent
+ * branches of the dependency graph to run concurrently on a bounded pool of threads.
+ * 
+ * With a single thread, the step is run on the calling thread for each module in the given order.
+ */
+class StartupScheduler {
+	private static final AtomicInteger pool = new AtomicInteger();
+	private final int threads;
+
+	StartupScheduler(int threads) {
+		this.threads = threads;
+	}
+
+	interface Step {
+		void run(Module module);
+	}
+
+	/**
+	 * @param modules the modules to run the step for, in dependency order
+	 * @param dependencies the modules each module depends on - dependencies which are not in the given modules are ignored
+	 * @param step
+	 * @return the modules in the order the step completed for them
+	 */
+	List<Module> run(List<Module> modules, Map<Module, ? extends Collection<Module>> dependencies, Step step) {
+		if (threads <= 1 || modules.size() <= 1) {
+			for (Module module : modules) {
+				step.run(module);
+			}
+			return modules;
+		}
+		ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, modules.size()), threadFactory());
+		try {
+			return run(executor, modules, dependencies, step);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ModuleLoadingException(e, "Interrupted while starting modules");
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private List<Module> run(ExecutorService executor, List<Module> modules, Map<Module, ? extends Collection<Module>> dependencies, final Step step) throws InterruptedException {
+		Set<Module> scheduled = new HashSet<Module>(modules);
+		Map<Module, Integer> outstanding = new HashMap<Module, Integer>();
+		Map<Module, List<Module>> dependents = new HashMap<Module, List<Module>>();
+		for (Module module : modules) {
+			int count = 0;
+			Collection<Module> moduleDependencies = dependencies.get(module);
+			if (moduleDependencies != null) {
+				for (Module dependency : moduleDependencies) {
+					if (scheduled.contains(dependency)) {
+						count++;
+						List<Module> dependentModules = dependents.get(dependency);
+						if (dependentModules == null) {
+							dependentModules = new ArrayList<Module>();
+							dependents.put(dependency, dependentModules);
+						}
+						dependentModules.add(module);
+					}
+				}
+			}
+			outstanding.put(module, count);
+		}
+
+		CompletionService<Module> completionService = new ExecutorCompletionService<Module>(executor);
+		List<Module> completed = new ArrayList<Module>(modules.size());
+		int submitted = 0;
+		for (Module module : modules) {
+			if (outstanding.get(module) == 0) {
+				submit(completionService, step, module);
+				submitted++;
+			}
+		}
+		Throwable failure = null;
+		int finished = 0;
+		while (finished < submitted) {
+			try {
+				Module module = completionService.take().get();
+				completed.add(module);
+				if (failure == null && dependents.containsKey(module)) {
+					for (Module dependent : dependents.get(module)) {
+						int remaining = outstanding.get(dependent) - 1;
+						outstanding.put(dependent, remaining);
+						if (remaining == 0) {
+							submit(completionService, step, dependent);
+							submitted++;
+						}
+					}
+				}
+			} catch (ExecutionException e) {
+				// once a step fails no more are started, but those already running are allowed to finish
+				failure = failure == null ? e.getCause() : failure;
+			}
+			finished++;
+		}
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		}
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+		if (failure != null) {
+			throw new ModuleLoadingException(failure, "Failed to start modules: %s", failure.getMessage());
+		}
+		return completed;
+	}
+
+	private void submit(CompletionService<Module> completionService, final Step step, final Module module) {
+		completionService.submit(new Callable<Module>() {
+			@Override
+			public Module call() throws Exception {
+				step.run(module);
+				return module;
+			}
+		});
+	}
+
+	private ThreadFactory threadFactory() {
+		final int poolNumber = pool.incrementAndGet();
+		final AtomicInteger threadNumber = new AtomicInteger();
+		return new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "thundr-module-startup-" + poolNumber + "-" + threadNumber.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		};
+	}
+}
@@ -0,0 +1,218 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.profiler;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import jodd.io.FileUtil;
+
+import com.threewks.thundr.exception.BaseException;
+import com.threewks.thundr.injection.InjectionContext;
+import com.threewks.thundr.json.GsonSupport;
+
+/**
+ * Records the time taken and memory allocated by each step of application startup, so that slow startup can be attributed
+ * to the modules, routes or controllers responsible.
+ * 
+ * The ThundrServlet creates a profiler for each startup and makes it available from the injection context, the recorded
+ * {@link StartupTiming}s are available from it once startup has completed. Timings are recorded like so:
+ * 
+ * <pre>
+ * <code>
+ * StartupProfiler.Timing timing = StartupProfiler.from(injectionContext).start(StartupProfiler.ModuleStart, name);
+ * try {
+ * 	...
+ * } finally {
+ * 	timing.stop();
+ * }
+ * </code>
+ * </pre>
+ * 
+ * Allocated bytes are measured per thread where the JVM supports it, and are otherwise reported as -1.
+ */
+public class StartupProfiler {
+	public static final String ModuleRequires = "module.requires";
+	public static final String ModuleInitialise = "module.initialise";
+	public static final String ModuleConfigure = "module.configure";
+	public static final String ModuleStart = "module.start";
+	public static final String RoutesParse = "routes.parse";
+	public static final String RoutesAdd = "routes.add";
+	public static final String RoutesCreateAction = "routes.createAction";
+	public static final String ControllerInitialise = "controller.initialise";
+	public static final String Startup = "startup";
+
+	private static final StartupProfiler Disabled = new StartupProfiler(false);
+	private static final Timing NoTiming = Disabled.new Timing(null, null);
+	private static final Object threadMXBean;
+	private static final Method getThreadAllocatedBytes;
+
+	static {
+		Object bean = null;
+		Method method = null;
+		try {
+			bean = ManagementFactory.getThreadMXBean();
+			Class<?> allocationBean = Class.forName("com.sun.management.ThreadMXBean");
+			if (allocationBean.isInstance(bean) && Boolean.TRUE.equals(allocationBean.getMethod("isThreadAllocatedMemorySupported").invoke(bean))) {
+				method = allocationBean.getMethod("getThreadAllocatedBytes", long.class);
+			}
+		} catch (Throwable e) {
+			// not available on this platform, i.e. Google App Engine or a non-Oracle JVM
+		}
+		threadMXBean = bean;
+		getThreadAllocatedBytes = method;
+	}
+
+	private final long origin = System.nanoTime();
+	private final List<StartupTiming> timings = new CopyOnWriteArrayList<StartupTiming>();
+	private volatile boolean recording;
+
+	public StartupProfiler() {
+		this(true);
+	}
+
+	private StartupProfiler(boolean recording) {
+		this.recording = recording;
+	}
+
+	/**
+	 * @param injectionContext
+	 * @return the {@link StartupProfiler} in the given injection context, or a profiler which records nothing if there is none
+	 */
+	public static StartupProfiler from(InjectionContext injectionContext) {
+		StartupProfiler profiler = injectionContext == null ? null : injectionContext.get(StartupProfiler.class);
+		return profiler == null ? Disabled : profiler;
+	}
+
+	/**
+	 * Starts timing a step of startup. The returned {@link Timing} must be stopped when the step completes, on the same thread.
+	 * 
+	 * @param phase the kind of step being timed
+	 * @param name what the step is being run for
+	 * @return
+	 */
+	public Timing start(String phase, String name) {
+		return recording ? new Timing(phase, name) : NoTiming;
+	}
+
+	/**
+	 * Stops recording, steps started after this are not recorded.
+	 */
+	public void finish() {
+		recording = false;
+	}
+
+	public boolean isRecording() {
+		return recording;
+	}
+
+	/**
+	 * @return the recorded timings, in the order the steps completed
+	 */
+	public List<StartupTiming> getTimings() {
+		return new ArrayList<StartupTiming>(timings);
+	}
+
+	/**
+	 * @param phase
+	 * @return the recorded timings for the given phase, in the order the steps completed
+	 */
+	public List<StartupTiming> getTimings(String phase) {
+		List<StartupTiming> result = new ArrayList<StartupTiming>();
+		for (StartupTiming timing : timings) {
+			if (phase.equals(timing.getPhase())) {
+				result.add(timing);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the total microseconds recorded for each phase, in the order each phase was first recorded. Steps of the same phase can run concurrently,
+	 *         so the total may exceed the elapsed time.
+	 */
+	public Map<String, Long> getTotalMicrosByPhase() {
+		Map<String, Long> totals = new LinkedHashMap<String, Long>();
+		for (StartupTiming timing : timings) {
+			Long total = totals.get(timing.getPhase());
+			totals.put(timing.getPhase(), (total == null ? 0 : total) + timing.getDurationMicros());
+		}
+		return totals;
+	}
+
+	public String toJson() {
+		Map<String, Object> report = new LinkedHashMap<String, Object>();
+		report.put("phases", getTotalMicrosByPhase());
+		report.put("timings", timings);
+		return GsonSupport.createBasicGsonBuilder().setPrettyPrinting().create().toJson(report);
+	}
+
+	public void writeJson(File file) {
+		try {
+			FileUtil.writeString(file, toJson(), "UTF-8");
+		} catch (Exception e) {
+			throw new BaseException(e, "Failed to write the startup profile to %s: %s", file, e.getMessage());
+		}
+	}
+
+	private long micros(long nanos) {
+		return nanos / 1000;
+	}
+
+	private static long allocatedBytes(Thread thread) {
+		if (getThreadAllocatedBytes != null) {
+			try {
+				return (Long) getThreadAllocatedBytes.invoke(threadMXBean, thread.getId());
+			} catch (Exception e) {
+				// fall through to unknown
+			}
+		}
+		return -1;
+	}
+
+	public class Timing {
+		private final String phase;
+		private final String name;
+		private final Thread thread;
+		private final long start;
+		private final long startAllocatedBytes;
+
+		private Timing(String phase, String name) {
+			this.phase = phase;
+			this.name = name;
+			this.thread = Thread.currentThread();
+			this.startAllocatedBytes = phase == null ? -1 : allocatedBytes(thread);
+			this.start = System.nanoTime();
+		}
+
+		public void stop() {
+			if (phase != null) {
+				long end = System.nanoTime();
+				long endAllocatedBytes = allocatedBytes(thread);
+				long allocated = startAllocatedBytes < 0 || endAllocatedBytes < 0 ? -1 : endAllocatedBytes - startAllocatedBytes;
+				timings.add(new StartupTiming(phase, name, thread.getName(), micros(start - origin), micros(end - start), allocated));
+			}
+		}
+	}
+}
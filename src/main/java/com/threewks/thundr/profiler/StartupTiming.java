@@ -0,0 +1,83 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.profiler;
+
+/**
+ * The time taken and memory allocated by one step of application startup, as recorded by a {@link StartupProfiler}.
+ */
+public class StartupTiming {
+	private String phase;
+	private String name;
+	private String thread;
+	private long startMicros;
+	private long durationMicros;
+	private long allocatedBytes;
+
+	public StartupTiming(String phase, String name, String thread, long startMicros, long durationMicros, long allocatedBytes) {
+		this.phase = phase;
+		this.name = name;
+		this.thread = thread;
+		this.startMicros = startMicros;
+		this.durationMicros = durationMicros;
+		this.allocatedBytes = allocatedBytes;
+	}
+
+	/**
+	 * @return the kind of step, i.e. {@link StartupProfiler#ModuleInitialise}
+	 */
+	public String getPhase() {
+		return phase;
+	}
+
+	/**
+	 * @return what the step was run for, i.e. the module class name or the action name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the name of the thread the step ran on
+	 */
+	public String getThread() {
+		return thread;
+	}
+
+	/**
+	 * @return the number of microseconds after the {@link StartupProfiler} was created that the step started
+	 */
+	public long getStartMicros() {
+		return startMicros;
+	}
+
+	public long getDurationMicros() {
+		return durationMicros;
+	}
+
+	/**
+	 * @return the number of bytes allocated by the thread during the step, or -1 if the JVM cannot measure this
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s %s: %dus, %d bytes", phase, name, durationMicros, allocatedBytes);
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.route;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.threewks.thundr.http.URLEncoder;
+
+/**
+ * An immutable map of path variable names to their decoded values, backed by a pair of arrays.
+ *
+ * Routes rarely declare more than a handful of path variables, so a linear scan over the names is cheaper
+ * than hashing and avoids allocating a hash table for every request.
+ */
+public class PathVariables extends AbstractMap<String, String> {
+	private static final String[] None = new String[0];
+	public static final PathVariables Empty = new PathVariables(None, None);
+
+	private final String[] names;
+	private final String[] values;
+	private final int size;
+
+	/**
+	 * Where the same name is given more than once, only the last value is kept - consistent with populating a map in order.
+	 * 
+	 * @param names the names of the path variables, in the order they appear in the route
+	 * @param values the raw (still encoded) values of the path variables, in the same order as the names
+	 */
+	public PathVariables(String[] names, String[] values) {
+		int count = Math.min(names.length, values.length);
+		String[] uniqueNames = new String[count];
+		String[] decodedValues = new String[count];
+		int size = 0;
+		for (int i = 0; i < count; i++) {
+			if (!isRepeatedLater(names, i, count)) {
+				uniqueNames[size] = names[i];
+				decodedValues[size] = URLEncoder.decodePathComponent(values[i]);
+				size++;
+			}
+		}
+		this.size = size;
+		this.names = uniqueNames;
+		this.values = decodedValues;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return indexOf(key) > -1;
+	}
+
+	@Override
+	public String get(Object key) {
+		int index = indexOf(key);
+		return index < 0 ? null : values[index];
+	}
+
+	@Override
+	public Set<Entry<String, String>> entrySet() {
+		return new AbstractSet<Entry<String, String>>() {
+			@Override
+			public Iterator<Entry<String, String>> iterator() {
+				return new EntryIterator();
+			}
+
+			@Override
+			public int size() {
+				return size;
+			}
+		};
+	}
+
+	private static boolean isRepeatedLater(String[] names, int index, int count) {
+		for (int i = index + 1; i < count; i++) {
+			if (names[i].equals(names[index])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int indexOf(Object key) {
+		for (int i = 0; i < size; i++) {
+			if (names[i].equals(key)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private class EntryIterator implements Iterator<Entry<String, String>> {
+		private int index = 0;
+
+		@Override
+		public boolean hasNext() {
+			return index < size;
+		}
+
+		@Override
+		public Entry<String, String> next() {
+			if (index >= size) {
+				throw new NoSuchElementException();
+			}
+			Entry<String, String> entry = new SimpleImmutableEntry<String, String>(names[index], values[index]);
+			index++;
+			return entry;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
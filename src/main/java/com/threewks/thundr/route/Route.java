@@ -19,7 +19,6 @@ package com.threewks.thundr.route;
 
 import static com.atomicleopard.expressive.Expressive.list;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -50,6 +49,7 @@ public class Route {
 	private Pattern routeMatchRegex;
 	private RouteType routeType;
 	private EList<String> pathParameters;
+	private String[] pathParameterNames;
 
 	public Route(RouteType routeType, String route, String nameOrNull) {
 		super();
@@ -57,6 +57,7 @@ public class Route {
 		this.route = route;
 		this.routeType = routeType;
 		this.pathParameters = extractPathParametersFromRoute(route);
+		this.pathParameterNames = pathParameters.toArray(new String[pathParameters.size()]);
 		this.routeMatchRegex = Pattern.compile(convertPathStringToRegex(route));
 	}
 
@@ -76,6 +77,21 @@ public class Route {
 		return routeType;
 	}
 
+	/**
+	 * @return the names of the path variables in this route, in the order they appear
+	 */
+	public List<String> getPathParameters() {
+		return pathParameters;
+	}
+
+	Pattern getRouteMatchPattern() {
+		return routeMatchRegex;
+	}
+
+	String[] getPathParameterNames() {
+		return pathParameterNames;
+	}
+
 	public boolean matches(String routePath) {
 		return routeMatchRegex.matcher(routePath).matches();
 	}
@@ -98,14 +114,11 @@ public class Route {
 	public Map<String, String> getPathVars(String routePath) {
 		Matcher matcher = routeMatchRegex.matcher(routePath);
 		matcher.find();
-		int count = matcher.groupCount();
-		Map<String, String> results = new HashMap<String, String>();
-		for (int i = 1; i <= count; i++) {
-			String name = pathParameters.get(i - 1);
-
-			results.put(name, URLEncoder.decodePathComponent(matcher.group(i)));
+		String[] values = new String[matcher.groupCount()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = matcher.group(i + 1);
 		}
-		return results;
+		return new PathVariables(pathParameterNames, values);
 	}
 
 	@Override
@@ -0,0 +1,494 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.route;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.threewks.thundr.action.Action;
+
+/**
+ * A compiled index of {@link Route}s, allowing a request path to be matched without evaluating the
+ * regular expression of every route in turn.
+ *
+ * Routes are broken into path segments and stored in a trie made up of literal, path variable (<code>{var}</code>),
+ * wildcard (<code>*</code>) and multi-segment wildcard (<code>**</code>) nodes. Segments which mix these elements,
+ * for example <code>file.{ext}</code> or <code>*.jpg</code>, are matched using a small pattern for just that segment.
+ * Path variables are captured as the trie is walked, so a match does not need to be evaluated a second time to
+ * extract them.
+ *
+ * Where more than one route matches a path, the route which was added first is returned - this is consistent with
+ * matching each route in the order it was added.
+ */
+public class RouteIndex {
+	private static final char Separator = '/';
+	private static final char ParameterSeparator = ';';
+	private static final String[] NoCaptures = new String[0];
+	private static final boolean[] AcceptableCharacters = createAcceptableCharacters();
+
+	private Node root = new Node(null);
+	private List<IndexedRoute> unindexedRoutes = new ArrayList<IndexedRoute>();
+	private int size = 0;
+	private int maxCaptures = 0;
+
+	/**
+	 * Adds the given route to this index. Routes added earlier take precedence over routes added later.
+	 *
+	 * @param route
+	 * @param action the action to return in a {@link RouteMatch} for this route
+	 */
+	public void add(Route route, Action action) {
+		IndexedRoute indexedRoute = new IndexedRoute(route, action, size++);
+		maxCaptures = Math.max(maxCaptures, route.getPathParameters().size());
+		String path = route.getRoute();
+		if (path.indexOf(ParameterSeparator) > -1) {
+			// path segment parameters are stripped before matching, so routes which explicitly declare them are matched the slow way
+			unindexedRoutes.add(indexedRoute);
+			return;
+		}
+
+		List<String> segments = split(path);
+		Node node = root;
+		node.includeIndex(indexedRoute.index);
+		for (int i = 0; i < segments.size(); i++) {
+			String segment = segments.get(i);
+			List<Token> tokens = Token.parse(segment);
+			if (tokens.size() == 1 && tokens.get(0).type == TokenType.MultiWildcard) {
+				node = node.child(new MultiWildcardMatcher());
+			} else if (Token.containsType(tokens, TokenType.MultiWildcard)) {
+				// a ** mixed in with other content can span any number of segments, so we match the rest of the route as a single pattern
+				node = node.child(new TailPatternMatcher(join(segments, i)));
+				node.includeIndex(indexedRoute.index);
+				break;
+			} else if (tokens.size() == 1 && tokens.get(0).type == TokenType.Wildcard) {
+				node = node.child(new WildcardMatcher());
+			} else if (tokens.size() == 1 && tokens.get(0).type == TokenType.Variable) {
+				node = node.child(new VariableMatcher());
+			} else if (tokens.isEmpty() || tokens.size() == 1 && tokens.get(0).type == TokenType.Literal) {
+				node = node.literal(segment);
+			} else {
+				node = node.child(new SegmentPatternMatcher(segment));
+			}
+			node.includeIndex(indexedRoute.index);
+		}
+		node.addRoute(indexedRoute);
+	}
+
+	/**
+	 * Finds the first route in this index which matches the given path.
+	 *
+	 * @param routePath
+	 * @return the match, or null if no route matches the given path
+	 */
+	public RouteMatch find(String routePath) {
+		int parameterStart = routePath.indexOf(ParameterSeparator);
+		String path = parameterStart < 0 ? routePath : routePath.substring(0, parameterStart);
+		Search search = new Search(path, maxCaptures);
+		search.visit(root, 0, 0);
+		for (IndexedRoute unindexed : unindexedRoutes) {
+			if (search.best != null && search.best.index < unindexed.index) {
+				break;
+			}
+			Matcher matcher = unindexed.route.getRouteMatchPattern().matcher(routePath);
+			if (matcher.matches()) {
+				String[] captures = new String[matcher.groupCount()];
+				for (int i = 0; i < captures.length; i++) {
+					captures[i] = matcher.group(i + 1);
+				}
+				search.best = unindexed;
+				search.bestCaptures = captures;
+				break;
+			}
+		}
+		if (search.best == null) {
+			return null;
+		}
+		Route route = search.best.route;
+		return new RouteMatch(route, search.best.action, new PathVariables(route.getPathParameterNames(), search.bestCaptures));
+	}
+
+	public int size() {
+		return size;
+	}
+
+	static boolean isAcceptable(String segment, boolean allowEmpty) {
+		int length = segment.length();
+		if (length == 0) {
+			return allowEmpty;
+		}
+		for (int i = 0; i < length; i++) {
+			char c = segment.charAt(i);
+			if (c >= AcceptableCharacters.length || !AcceptableCharacters[c]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static List<String> split(String path) {
+		List<String> segments = new ArrayList<String>();
+		int start = 0;
+		int end;
+		while ((end = path.indexOf(Separator, start)) > -1) {
+			segments.add(path.substring(start, end));
+			start = end + 1;
+		}
+		segments.add(path.substring(start));
+		return segments;
+	}
+
+	private static String join(List<String> segments, int from) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = from; i < segments.size(); i++) {
+			if (i > from) {
+				sb.append(Separator);
+			}
+			sb.append(segments.get(i));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Mirrors {@link Route#AcceptablePathCharacters}
+	 */
+	private static boolean[] createAcceptableCharacters() {
+		boolean[] acceptable = new boolean[128];
+		for (char c = 'a'; c <= 'z'; c++) {
+			acceptable[c] = true;
+		}
+		for (char c = 'A'; c <= 'Z'; c++) {
+			acceptable[c] = true;
+		}
+		for (char c = '0'; c <= '9'; c++) {
+			acceptable[c] = true;
+		}
+		for (char c : "_%:@&=+$,!~*'().-".toCharArray()) {
+			acceptable[c] = true;
+		}
+		return acceptable;
+	}
+
+	private static class IndexedRoute {
+		private Route route;
+		private Action action;
+		private int index;
+
+		IndexedRoute(Route route, Action action, int index) {
+			this.route = route;
+			this.action = action;
+			this.index = index;
+		}
+	}
+
+	private static class Node {
+		private SegmentMatcher matcher;
+		private Map<String, Node> literals = null;
+		private List<Node> children = new ArrayList<Node>(1);
+		private List<IndexedRoute> routes = new ArrayList<IndexedRoute>(1);
+		private int firstIndex = Integer.MAX_VALUE;
+
+		Node(SegmentMatcher matcher) {
+			this.matcher = matcher;
+		}
+
+		Node literal(String segment) {
+			if (literals == null) {
+				literals = new HashMap<String, Node>();
+			}
+			Node node = literals.get(segment);
+			if (node == null) {
+				node = new Node(null);
+				literals.put(segment, node);
+			}
+			return node;
+		}
+
+		Node child(SegmentMatcher matcher) {
+			for (Node child : children) {
+				if (child.matcher.key().equals(matcher.key())) {
+					return child;
+				}
+			}
+			Node node = new Node(matcher);
+			children.add(node);
+			return node;
+		}
+
+		void addRoute(IndexedRoute route) {
+			routes.add(route);
+		}
+
+		/**
+		 * Records the earliest route index reachable from this node, allowing a search to skip
+		 * branches which cannot improve on a match already found.
+		 */
+		void includeIndex(int index) {
+			firstIndex = Math.min(firstIndex, index);
+		}
+	}
+
+	private static class Search {
+		private String path;
+		private String[] segments;
+		private int[] offsets;
+		private String[] captures;
+		private IndexedRoute best;
+		private String[] bestCaptures;
+
+		Search(String path, int maxCaptures) {
+			this.path = path;
+			List<String> split = split(path);
+			this.segments = split.toArray(new String[split.size()]);
+			this.offsets = new int[segments.length];
+			int offset = 0;
+			for (int i = 0; i < segments.length; i++) {
+				offsets[i] = offset;
+				offset += segments[i].length() + 1;
+			}
+			this.captures = maxCaptures == 0 ? NoCaptures : new String[maxCaptures];
+		}
+
+		void visit(Node node, int segment, int captured) {
+			if (best != null && node.firstIndex >= best.index) {
+				return;
+			}
+			if (segment == segments.length) {
+				accept(node, captured);
+				return;
+			}
+			if (node.literals != null) {
+				Node literal = node.literals.get(segments[segment]);
+				if (literal != null) {
+					visit(literal, segment + 1, captured);
+				}
+			}
+			for (Node child : node.children) {
+				child.matcher.match(this, child, segment, captured);
+			}
+		}
+
+		void accept(Node node, int captured) {
+			if (!node.routes.isEmpty()) {
+				IndexedRoute candidate = node.routes.get(0);
+				if (best == null || candidate.index < best.index) {
+					best = candidate;
+					bestCaptures = new String[captured];
+					System.arraycopy(captures, 0, bestCaptures, 0, captured);
+				}
+			}
+		}
+
+		String remainder(int segment) {
+			return path.substring(offsets[segment]);
+		}
+	}
+
+	private static abstract class SegmentMatcher {
+		abstract String key();
+
+		abstract void match(Search search, Node node, int segment, int captured);
+	}
+
+	private static class VariableMatcher extends SegmentMatcher {
+		@Override
+		String key() {
+			return "{}";
+		}
+
+		@Override
+		void match(Search search, Node node, int segment, int captured) {
+			String value = search.segments[segment];
+			if (isAcceptable(value, false)) {
+				search.captures[captured] = value;
+				search.visit(node, segment + 1, captured + 1);
+			}
+		}
+	}
+
+	private static class WildcardMatcher extends SegmentMatcher {
+		@Override
+		String key() {
+			return "*";
+		}
+
+		@Override
+		void match(Search search, Node node, int segment, int captured) {
+			if (isAcceptable(search.segments[segment], true)) {
+				search.visit(node, segment + 1, captured);
+			}
+		}
+	}
+
+	private static class MultiWildcardMatcher extends SegmentMatcher {
+		@Override
+		String key() {
+			return "**";
+		}
+
+		@Override
+		void match(Search search, Node node, int segment, int captured) {
+			// consume as few segments as possible first, consistent with the reluctant quantifier of the equivalent regex
+			for (int end = segment; end < search.segments.length && isAcceptable(search.segments[end], true); end++) {
+				search.visit(node, end + 1, captured);
+			}
+		}
+	}
+
+	private static class SegmentPatternMatcher extends SegmentMatcher {
+		private Pattern pattern;
+
+		SegmentPatternMatcher(String segment) {
+			this.pattern = Pattern.compile(Token.toRegex(Token.parse(segment)));
+		}
+
+		@Override
+		String key() {
+			return pattern.pattern();
+		}
+
+		@Override
+		void match(Search search, Node node, int segment, int captured) {
+			Matcher matcher = pattern.matcher(search.segments[segment]);
+			if (matcher.matches()) {
+				int groups = matcher.groupCount();
+				for (int i = 1; i <= groups; i++) {
+					search.captures[captured++] = matcher.group(i);
+				}
+				search.visit(node, segment + 1, captured);
+			}
+		}
+	}
+
+	private static class TailPatternMatcher extends SegmentMatcher {
+		private Pattern pattern;
+
+		TailPatternMatcher(String remainingRoute) {
+			StringBuilder regex = new StringBuilder();
+			List<String> segments = split(remainingRoute);
+			for (int i = 0; i < segments.size(); i++) {
+				if (i > 0) {
+					regex.append(Separator);
+				}
+				regex.append(Token.toRegex(Token.parse(segments.get(i))));
+			}
+			this.pattern = Pattern.compile(regex.toString());
+		}
+
+		@Override
+		String key() {
+			return "/" + pattern.pattern();
+		}
+
+		@Override
+		void match(Search search, Node node, int segment, int captured) {
+			Matcher matcher = pattern.matcher(search.remainder(segment));
+			if (matcher.matches()) {
+				int groups = matcher.groupCount();
+				for (int i = 1; i <= groups; i++) {
+					search.captures[captured++] = matcher.group(i);
+				}
+				search.accept(node, captured);
+			}
+		}
+	}
+
+	private enum TokenType {
+		Literal,
+		Variable,
+		Wildcard,
+		MultiWildcard;
+	}
+
+	private static class Token {
+		private TokenType type;
+		private String value;
+
+		Token(TokenType type, String value) {
+			this.type = type;
+			this.value = value;
+		}
+
+		/**
+		 * Breaks a single route segment into literals, variables and wildcards, consistent with {@link Route#convertPathStringToRegex(String)}
+		 */
+		static List<Token> parse(String segment) {
+			List<Token> tokens = new ArrayList<Token>();
+			StringBuilder literal = new StringBuilder();
+			int length = segment.length();
+			for (int i = 0; i < length; i++) {
+				char c = segment.charAt(i);
+				int close = c == '{' ? segment.indexOf('}', i) : -1;
+				if (c == '*' || close > -1) {
+					if (literal.length() > 0) {
+						tokens.add(new Token(TokenType.Literal, literal.toString()));
+						literal.setLength(0);
+					}
+					if (close > -1) {
+						tokens.add(new Token(TokenType.Variable, segment.substring(i + 1, close)));
+						i = close;
+					} else if (i + 1 < length && segment.charAt(i + 1) == '*') {
+						tokens.add(new Token(TokenType.MultiWildcard, "**"));
+						i++;
+					} else {
+						tokens.add(new Token(TokenType.Wildcard, "*"));
+					}
+				} else {
+					literal.append(c);
+				}
+			}
+			if (literal.length() > 0) {
+				tokens.add(new Token(TokenType.Literal, literal.toString()));
+			}
+			return tokens;
+		}
+
+		static boolean containsType(List<Token> tokens, TokenType type) {
+			for (Token token : tokens) {
+				if (token.type == type) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		static String toRegex(List<Token> tokens) {
+			StringBuilder regex = new StringBuilder();
+			for (Token token : tokens) {
+				switch (token.type) {
+				case Literal:
+					regex.append(Pattern.quote(token.value));
+					break;
+				case Variable:
+					regex.append("([").append(Route.AcceptablePathCharacters).append("]+)");
+					break;
+				case Wildcard:
+					regex.append("[").append(Route.AcceptablePathCharacters).append("]*?");
+					break;
+				case MultiWildcard:
+					regex.append("[").append(Route.AcceptableMultiPathCharacters).append("]*?");
+					break;
+				}
+			}
+			return regex.toString();
+		}
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.route;
+
+import java.util.Map;
+
+import com.threewks.thundr.action.Action;
+
+/**
+ * The result of matching a request path against a set of {@link Route}s. Holds the matched route, the action bound to it
+ * and the decoded path variables captured while matching, so that the path does not need to be evaluated again.
+ */
+public class RouteMatch {
+	private Route route;
+	private Action action;
+	private Map<String, String> pathVars;
+
+	public RouteMatch(Route route, Action action, Map<String, String> pathVars) {
+		this.route = route;
+		this.action = action;
+		this.pathVars = pathVars;
+	}
+
+	public Route getRoute() {
+		return route;
+	}
+
+	public Action getAction() {
+		return action;
+	}
+
+	/**
+	 * @return the decoded path variables of the matched route, keyed by name
+	 */
+	public Map<String, String> getPathVars() {
+		return pathVars;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s -> %s %s", route, action, pathVars);
+	}
+}
@@ -26,10 +26,15 @@ import com.threewks.thundr.injection.BaseModule;
 import com.threewks.thundr.injection.UpdatableInjectionContext;
 import com.threewks.thundr.logger.Logger;
 import com.threewks.thundr.module.DependencyRegistry;
+import com.threewks.thundr.profiler.StartupProfiler;
 import com.threewks.thundr.util.Streams;
 import com.threewks.thundr.view.ViewModule;
 
 public class RouteModule extends BaseModule {
+	/**
+	 * The name of a {@link Boolean} in the injection context which, when true, defers action initialisation. See {@link Routes#setLazyInitialisation(boolean)}.
+	 */
+	public static final String LazyStartup = "lazyStartup";
 	private static final String RoutesJsonFilename = "routes.json";
 	private String filename = RoutesJsonFilename;
 
@@ -45,7 +50,14 @@ public class RouteModule extends BaseModule {
 	@Override
 	public void initialise(UpdatableInjectionContext injectionContext) {
 		super.initialise(injectionContext);
-		injectionContext.inject(new Routes()).as(Routes.class);
+		Routes routes = new Routes();
+		routes.setStartupProfiler(StartupProfiler.from(injectionContext));
+		routes.setLazyInitialisation(isLazyStartup(injectionContext));
+		injectionContext.inject(routes).as(Routes.class);
+	}
+
+	private boolean isLazyStartup(UpdatableInjectionContext injectionContext) {
+		return injectionContext.contains(Boolean.class, LazyStartup) && Boolean.TRUE.equals(injectionContext.get(Boolean.class, LazyStartup));
 	}
 
 	@Override
@@ -63,8 +75,20 @@ public class RouteModule extends BaseModule {
 		}
 		if (routesSource != null) {
 			Logger.info("Loading routes from %s", routesFile);
-			Map<Route, Action> routeMap = routes.parseJsonRoutes(routesSource);
-			routes.addRoutes(routeMap);
+			StartupProfiler profiler = StartupProfiler.from(injectionContext);
+			StartupProfiler.Timing timing = profiler.start(StartupProfiler.RoutesParse, routesFile);
+			Map<Route, Action> routeMap;
+			try {
+				routeMap = routes.parseJsonRoutes(routesSource);
+			} finally {
+				timing.stop();
+			}
+			timing = profiler.start(StartupProfiler.RoutesAdd, routesFile);
+			try {
+				routes.addRoutes(routeMap);
+			} finally {
+				timing.stop();
+			}
 		}
 	}
 }
@@ -30,7 +30,11 @@ public enum RouteType {
 	POST,
 	PUT,
 	PATCH,
-	DELETE;
+	DELETE,
+	/**
+	 * HEAD requests are matched against HEAD routes, falling back to GET routes. The action is run, but the response has no body.
+	 */
+	HEAD;
 
 	private static final List<RouteType> all = list(RouteType.values());
 	private static final Map<String, RouteType> lookup = createLookup();
@@ -19,6 +19,7 @@ package com.threewks.thundr.route;
 
 import static com.atomicleopard.expressive.Expressive.list;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -37,22 +38,28 @@ import com.threewks.thundr.action.ActionException;
 import com.threewks.thundr.action.ActionResolver;
 import com.threewks.thundr.configuration.JsonProperties;
 import com.threewks.thundr.logger.Logger;
+import com.threewks.thundr.profiler.StartupProfiler;
 
 public class Routes {
 	private Map<Route, Action> actionsForRoutes = new HashMap<Route, Action>();
 	private Map<RouteType, Map<String, Route>> routes = createRoutesMap();
+	private Map<RouteType, RouteIndex> routeIndexes = createRouteIndexes();
 	private Map<String, Route> namedRoutes = new HashMap<String, Route>();
 
 	private Map<Class<? extends Action>, ActionResolver<?>> actionResolvers = new LinkedHashMap<Class<? extends Action>, ActionResolver<?>>();
 
 	private boolean debug = true;
+	private boolean methodOverrideEnabled = true;
+	private StartupProfiler startupProfiler = StartupProfiler.from(null);
+	private volatile boolean lazyInitialisation = false;
+	private List<Action> deferredActions = new ArrayList<Action>();
 
 	public <T extends Action> void addRoute(RouteType routeType, String route, String name, T action) {
 		this.addRoute(new Route(routeType, route, name), action);
 		initialiseAction(action);
 	}
 
-	public void addRoute(Route route, Action action) {
+	public synchronized void addRoute(Route route, Action action) {
 		String name = route.getName();
 		String path = route.getRouteMatchRegex();
 		RouteType routeType = route.getRouteType();
@@ -71,6 +78,7 @@ public class Routes {
 			this.namedRoutes.put(name, route);
 		}
 		routesForRouteType.put(path, route);
+		this.routeIndexes.get(routeType).add(route, action);
 		this.actionsForRoutes.put(route, action);
 	}
 
@@ -87,34 +95,118 @@ public class Routes {
 		return namedRoutes.get(name);
 	}
 
-	@SuppressWarnings("unchecked")
-	public <T extends Action> Object invoke(String routePath, RouteType routeType, HttpServletRequest req, HttpServletResponse resp) {
+	public Object invoke(String routePath, RouteType routeType, HttpServletRequest req, HttpServletResponse resp) {
 		Logger.debug("Requesting '%s'", routePath);
-		Route route = findMatchingRoute(routePath, routeType);
-		if (route != null) {
-			T action = (T) actionsForRoutes.get(route);
-			return resolveAction(routePath, routeType, req, resp, route, action);
+		RouteMatch match = findMatch(routePath, routeType);
+		if (match != null) {
+			return invoke(match, routeType, req, resp);
 		}
 		String debugString = debug ? listRoutes() : "";
 		throw new RouteNotFoundException("No route matching the request %s %s\n%s", routeType, routePath, debugString);
 	}
 
+	@SuppressWarnings("unchecked")
+	public <T extends Action> Object invoke(RouteMatch match, RouteType routeType, HttpServletRequest req, HttpServletResponse resp) {
+		T action = (T) match.getAction();
+		ActionResolver<T> actionResolver = (ActionResolver<T>) actionResolvers.get(action.getClass());
+		return actionResolver.resolve(action, routeType, req, resp, match.getPathVars());
+	}
+
+	/**
+	 * Matches the given path against the routes of the given type. HEAD requests which don't match a HEAD route are matched
+	 * against the GET routes.
+	 *
+	 * @param routePath
+	 * @param routeType
+	 * @return the matching route, its action and its path variables, or null if no route matches
+	 */
+	public RouteMatch findMatch(String routePath, RouteType routeType) {
+		RouteMatch match = routeIndexes.get(routeType).find(routePath);
+		if (match == null && routeType == RouteType.HEAD) {
+			match = routeIndexes.get(RouteType.GET).find(routePath);
+		}
+		return match;
+	}
+
 	public Route findMatchingRoute(String routePath, RouteType routeType) {
-		Map<String, Route> routesForRouteType = routes.get(routeType);
-		for (Route route : routesForRouteType.values()) {
-			if (route.matches(routePath)) {
-				return route;
+		RouteMatch match = findMatch(routePath, routeType);
+		return match == null ? null : match.getRoute();
+	}
+
+	/**
+	 * @return true if POST requests may be treated as another method using the X-HTTP-Method-Override header or a _method parameter
+	 */
+	public boolean isMethodOverrideEnabled() {
+		return methodOverrideEnabled;
+	}
+
+	/**
+	 * Allows an application whose routes never rely on method override to disable it, so that it is not looked for on any request.
+	 * 
+	 * @param methodOverrideEnabled
+	 */
+	public void setMethodOverrideEnabled(boolean methodOverrideEnabled) {
+		this.methodOverrideEnabled = methodOverrideEnabled;
+	}
+
+	/**
+	 * @return true if actions are initialised by {@link #initialiseDeferredActions()} or when first used, rather than as they are added
+	 */
+	public boolean isLazyInitialisation() {
+		return lazyInitialisation;
+	}
+
+	/**
+	 * Allows routes to be served before their actions are initialised, so that an application can start without creating every controller.
+	 * Actions added while this is enabled are initialised by {@link #initialiseDeferredActions()}, any used before then are
+	 * prepared by their {@link ActionResolver} on first use.
+	 * 
+	 * @param lazyInitialisation
+	 */
+	public void setLazyInitialisation(boolean lazyInitialisation) {
+		this.lazyInitialisation = lazyInitialisation;
+	}
+
+	/**
+	 * Initialises the actions whose initialisation was deferred by {@link #setLazyInitialisation(boolean)}. Failures are logged
+	 * and returned rather than thrown, so that one broken action does not prevent the rest from being initialised.
+	 * 
+	 * @return the actions which failed to initialise, and why
+	 */
+	public Map<Action, Exception> initialiseDeferredActions() {
+		List<Action> actions;
+		synchronized (deferredActions) {
+			actions = new ArrayList<Action>(deferredActions);
+			deferredActions.clear();
+		}
+		Map<Action, Exception> failures = new LinkedHashMap<Action, Exception>();
+		for (Action action : actions) {
+			try {
+				initialiseActionNow(action);
+			} catch (Exception e) {
+				Logger.error("Failed to initialise the action %s: %s", action, e.getMessage());
+				failures.put(action, e);
 			}
 		}
-		return null;
+		return failures;
 	}
 
-	@SuppressWarnings("unchecked")
-	private <T extends Action> Object resolveAction(final String routePath, final RouteType routeType, final HttpServletRequest req, final HttpServletResponse resp, final Route route, final T action) {
-		Map<String, String> pathVars = route.getPathVars(routePath);
-		ActionResolver<T> actionResolver = (ActionResolver<T>) actionResolvers.get(action.getClass());
-		Object resolve = actionResolver.resolve(action, routeType, req, resp, pathVars);
-		return resolve;
+	/**
+	 * @return the number of actions waiting to be initialised by {@link #initialiseDeferredActions()}
+	 */
+	public int getDeferredActionCount() {
+		synchronized (deferredActions) {
+			return deferredActions.size();
+		}
+	}
+
+	/**
+	 * Records the time taken to create each action against the given profiler.
+	 * 
+	 * @param startupProfiler
+	 */
+	public void setStartupProfiler(StartupProfiler startupProfiler) {
+		this.startupProfiler = startupProfiler;
 	}
 
 	public boolean isEmpty() {
@@ -146,6 +238,7 @@ public class Routes {
 	}
 
 	public Action createAction(String actionName) {
+		StartupProfiler.Timing timing = startupProfiler.start(StartupProfiler.RoutesCreateAction, actionName);
 		try {
 			for (ActionResolver<?> actionResolver : actionResolvers.values()) {
 				Action action = actionResolver.createActionIfPossible(actionName);
@@ -158,6 +251,8 @@ public class Routes {
 			throw e;
 		} catch (Exception e) {
 			throw new ActionException(e, "Failed to create an action for the route '%s': %s", actionName, e.getMessage());
+		} finally {
+			timing.stop();
 		}
 	}
 
@@ -189,7 +284,7 @@ public class Routes {
 		return routes;
 	}
 
-	public <A extends Action> void addActionResolver(Class<A> actionType, ActionResolver<A> actionResolver) {
+	public synchronized <A extends Action> void addActionResolver(Class<A> actionType, ActionResolver<A> actionResolver) {
 		actionResolvers.put(actionType, actionResolver);
 		Logger.debug("Added action resolver %s for actions of type %s", actionResolver.getClass().getSimpleName(), actionType);
 	}
@@ -199,8 +294,18 @@ public class Routes {
 		return (ActionResolver<A>) actionResolvers.get(actionType);
 	}
 
-	@SuppressWarnings("unchecked")
 	private <T extends Action> void initialiseAction(T action) {
+		if (lazyInitialisation) {
+			synchronized (deferredActions) {
+				deferredActions.add(action);
+			}
+		} else {
+			initialiseActionNow(action);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T extends Action> void initialiseActionNow(T action) {
 		ActionResolver<T> actionResolver = (ActionResolver<T>) actionResolvers.get(action.getClass());
 		actionResolver.initialise(action);
 	}
@@ -213,4 +318,12 @@ public class Routes {
 		return routesMap;
 	}
 
+	private Map<RouteType, RouteIndex> createRouteIndexes() {
+		Map<RouteType, RouteIndex> indexes = new HashMap<RouteType, RouteIndex>();
+		for (RouteType type : RouteType.all()) {
+			indexes.put(type, new RouteIndex());
+		}
+		return indexes;
+	}
+
 }
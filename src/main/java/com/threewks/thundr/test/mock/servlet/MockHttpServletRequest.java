@@ -27,12 +27,15 @@ import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.security.Principal;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.TimeZone;
 
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletInputStream;
@@ -367,7 +370,17 @@ public class MockHttpServletRequest implements HttpServletRequest {
 
 	@Override
 	public long getDateHeader(String name) {
-		return 0;
+		String value = getHeader(name);
+		if (value == null) {
+			return -1;
+		}
+		SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+		format.setTimeZone(TimeZone.getTimeZone("GMT"));
+		try {
+			return format.parse(value).getTime();
+		} catch (ParseException e) {
+			throw new IllegalArgumentException(String.format("The header '%s' cannot be converted to a date: %s", name, value));
+		}
 	}
 
 	@Override
@@ -57,7 +57,7 @@ public class MockHttpServletResponse implements HttpServletResponse {
 				throw new BaseException(e);
 			}
 		}
-		return sos.toString();
+		return sos == null ? "" : sos.toString();
 	}
 
 	public int status() {
@@ -156,7 +156,11 @@ public class MockHttpServletResponse implements HttpServletResponse {
 
 	@Override
 	public void flushBuffer() throws IOException {
-		sos.flush();
+		if (sos == null) {
+			committed = true;
+		} else {
+			sos.flush();
+		}
 	}
 
 	@Override
@@ -0,0 +1,80 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.util;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of fixed size byte arrays, allowing buffers to be reused across requests instead of allocated for each one.
+ * 
+ * At most a fixed number of buffers are kept for reuse. When the pool is empty a new buffer is allocated, and buffers released
+ * while the pool is full are left for garbage collection, so the pool never blocks.
+ */
+public class BufferPool {
+	private final int bufferSize;
+	private final int maxPooled;
+	private final Queue<byte[]> buffers = new ConcurrentLinkedQueue<byte[]>();
+	private final AtomicInteger pooled = new AtomicInteger();
+
+	/**
+	 * @param bufferSize the size in bytes of each buffer
+	 * @param maxPooled the maximum number of buffers kept for reuse
+	 */
+	public BufferPool(int bufferSize, int maxPooled) {
+		this.bufferSize = bufferSize;
+		this.maxPooled = maxPooled;
+	}
+
+	/**
+	 * @return a buffer of {@link #getBufferSize()} bytes, whose content is undefined
+	 */
+	public byte[] acquire() {
+		byte[] buffer = buffers.poll();
+		if (buffer == null) {
+			return new byte[bufferSize];
+		}
+		pooled.decrementAndGet();
+		return buffer;
+	}
+
+	/**
+	 * Returns a buffer previously acquired from this pool. The buffer must not be used after it is released.
+	 * 
+	 * @param buffer
+	 */
+	public void release(byte[] buffer) {
+		if (buffer != null && buffer.length == bufferSize && pooled.incrementAndGet() <= maxPooled) {
+			buffers.offer(buffer);
+		} else if (buffer != null && buffer.length == bufferSize) {
+			pooled.decrementAndGet();
+		}
+	}
+
+	public int getBufferSize() {
+		return bufferSize;
+	}
+
+	/**
+	 * @return the number of buffers currently available for reuse
+	 */
+	public int available() {
+		return pooled.get();
+	}
+}
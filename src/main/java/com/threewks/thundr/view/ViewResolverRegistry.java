@@ -17,39 +17,45 @@
  */
 package com.threewks.thundr.view;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.threewks.thundr.introspection.ClassIntrospector;
 import com.threewks.thundr.logger.Logger;
 
+/**
+ * Finds the {@link ViewResolver} for a view result, based on the most specific type of the view result for which a resolver is registered.
+ * 
+ * Lookups are cached by the class of the view result. The cache is an immutable snapshot which is replaced (rather than modified)
+ * when a new view result type is resolved, and discarded when resolvers are added or removed, so finding a resolver never blocks.
+ * View result types are held weakly by the cache so that it does not prevent their class loaders being unloaded.
+ */
 public class ViewResolverRegistry {
 	private Map<Class<?>, ViewResolver<?>> resolvers = new HashMap<Class<?>, ViewResolver<?>>();
 	private List<Class<?>> resolversOrder = new ArrayList<Class<?>>();
-	private Map<Class<?>, ViewResolver<?>> resolversCache = new WeakHashMap<Class<?>, ViewResolver<?>>();
+	private AtomicReference<Snapshot> snapshot = new AtomicReference<Snapshot>(new Snapshot(resolvers, resolversOrder));
 	private ClassIntrospector classIntrospector = new ClassIntrospector();
 
-	public <T> void addResolver(Class<T> viewResult, ViewResolver<T> resolver) {
+	public synchronized <T> void addResolver(Class<T> viewResult, ViewResolver<T> resolver) {
 		resolvers.put(viewResult, (ViewResolver<T>) resolver);
 		resolversOrder.add(viewResult);
 		clearResolversCache();
 		Logger.info("Added ViewResolver %s for views of %s", resolver, viewResult);
 	}
 
-	public void removeResolver(Class<?> viewResult) {
+	public synchronized void removeResolver(Class<?> viewResult) {
 		resolvers.remove(viewResult);
 		resolversOrder.removeAll(Collections.singletonList(viewResult));
 		clearResolversCache();
 	}
 
 	private void clearResolversCache() {
-		synchronized (resolversCache) {
-			resolversCache.clear();
-		}
+		snapshot.set(new Snapshot(resolvers, resolversOrder));
 	}
 
 	public <T> ViewResolver<T> findViewResolver(T viewResult) {
@@ -64,32 +70,126 @@ public class ViewResolverRegistry {
 	protected <T> ViewResolver<T> createAndCacheResolver(T viewResult) {
 		Class<?> resultType = getViewResultType(viewResult);
 		List<Class<?>> orderedTypes = classIntrospector.listImplementedTypes(resultType);
-		synchronized (resolversCache) {
-			for (Class<?> type : orderedTypes) {
-				for (int i = resolversOrder.size() - 1; i >= 0; i--) {
-					Class<?> resolverClass = resolversOrder.get(i);
-					Class<?> viewResultClass = type;
-					if (resolverClass == viewResultClass) {
-						ViewResolver<T> viewResolver = (ViewResolver<T>) resolvers.get(resolverClass);
-						resolversCache.put(resultType, viewResolver);
-						return viewResolver;
-					}
-				}
+		while (true) {
+			Snapshot current = snapshot.get();
+			ViewResolver<T> viewResolver = (ViewResolver<T>) current.find(orderedTypes);
+			if (viewResolver == null || resultType == null || snapshot.compareAndSet(current, current.with(resultType, viewResolver))) {
+				return viewResolver;
 			}
-			return null;
+			// the snapshot changed while we were looking, because resolvers changed or another type was cached - try again against the latest
 		}
 	}
 
 	@SuppressWarnings("unchecked")
 	protected <T> ViewResolver<T> findViewResolverInCache(T viewResult) {
 		Class<?> type = getViewResultType(viewResult);
-		synchronized (resolversCache) {
-			return (ViewResolver<T>) resolversCache.get(type);
-		}
+		return type == null ? null : (ViewResolver<T>) snapshot.get().cache.get(new StrongTypeKey(type));
 	}
 
 	private <T> Class<?> getViewResultType(T viewResult) {
 		Class<?> type = viewResult == null ? null : viewResult.getClass();
 		return type;
 	}
+
+	/**
+	 * An immutable copy of the registered resolvers, and the resolvers found so far for view result types.
+	 */
+	private static class Snapshot {
+		private final Class<?>[] resolversOrder;
+		private final ViewResolver<?>[] resolvers;
+		private final Map<TypeKey, ViewResolver<?>> cache;
+
+		Snapshot(Map<Class<?>, ViewResolver<?>> resolvers, List<Class<?>> resolversOrder) {
+			this.resolversOrder = resolversOrder.toArray(new Class<?>[resolversOrder.size()]);
+			this.resolvers = new ViewResolver<?>[this.resolversOrder.length];
+			for (int i = 0; i < this.resolversOrder.length; i++) {
+				this.resolvers[i] = resolvers.get(this.resolversOrder[i]);
+			}
+			this.cache = Collections.emptyMap();
+		}
+
+		private Snapshot(Snapshot snapshot, Map<TypeKey, ViewResolver<?>> cache) {
+			this.resolversOrder = snapshot.resolversOrder;
+			this.resolvers = snapshot.resolvers;
+			this.cache = cache;
+		}
+
+		ViewResolver<?> find(List<Class<?>> orderedTypes) {
+			for (Class<?> type : orderedTypes) {
+				for (int i = resolversOrder.length - 1; i >= 0; i--) {
+					if (resolversOrder[i] == type) {
+						return resolvers[i];
+					}
+				}
+			}
+			return null;
+		}
+
+		Snapshot with(Class<?> type, ViewResolver<?> viewResolver) {
+			Map<TypeKey, ViewResolver<?>> cache = new HashMap<TypeKey, ViewResolver<?>>();
+			for (Map.Entry<TypeKey, ViewResolver<?>> entry : this.cache.entrySet()) {
+				// drop the entries of types which have been unloaded
+				if (entry.getKey().type() != null) {
+					cache.put(entry.getKey(), entry.getValue());
+				}
+			}
+			cache.put(new WeakTypeKey(type), viewResolver);
+			return new Snapshot(this, cache);
+		}
+	}
+
+	/**
+	 * Identifies a view result type by identity. Cached types are held by a {@link WeakTypeKey}, and looked up with a {@link StrongTypeKey}.
+	 */
+	private static abstract class TypeKey {
+		private final int hash;
+
+		TypeKey(Class<?> type) {
+			this.hash = System.identityHashCode(type);
+		}
+
+		abstract Class<?> type();
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			Class<?> type = type();
+			return type != null && obj instanceof TypeKey && ((TypeKey) obj).type() == type;
+		}
+	}
+
+	private static final class WeakTypeKey extends TypeKey {
+		private final WeakReference<Class<?>> type;
+
+		WeakTypeKey(Class<?> type) {
+			super(type);
+			this.type = new WeakReference<Class<?>>(type);
+		}
+
+		@Override
+		Class<?> type() {
+			return type.get();
+		}
+	}
+
+	private static final class StrongTypeKey extends TypeKey {
+		private final Class<?> type;
+
+		StrongTypeKey(Class<?> type) {
+			super(type);
+			this.type = type;
+		}
+
+		@Override
+		Class<?> type() {
+			return type;
+		}
+	}
 }
@@ -31,9 +31,13 @@ public class FileViewResolver implements ViewResolver<FileView> {
 	@Override
 	public void resolve(HttpServletRequest req, HttpServletResponse resp, FileView viewResult) {
 		try {
-			ServletOutputStream outputStream = resp.getOutputStream();
 			BaseView.applyToResponse(viewResult, resp);
 			resp.addHeader(HttpSupport.Header.ContentDisposition, String.format("attachment; filename=%s", viewResult.getFileName()));
+			if (HttpSupport.Methods.isHead(req)) {
+				// the length of the data isn't known without reading it
+				return;
+			}
+			ServletOutputStream outputStream = resp.getOutputStream();
 			Streams.copy(viewResult.getData(), outputStream);
 			outputStream.flush();
 		} catch (Exception e) {
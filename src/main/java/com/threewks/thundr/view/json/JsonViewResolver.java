@@ -17,6 +17,11 @@
  */
 package com.threewks.thundr.view.json;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
@@ -24,36 +29,146 @@ import com.atomicleopard.expressive.Cast;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
+import com.threewks.thundr.http.BufferedResponseOutputStream;
+import com.threewks.thundr.http.HttpSupport;
+import com.threewks.thundr.json.GsonProvider;
 import com.threewks.thundr.json.GsonSupport;
+import com.threewks.thundr.util.BufferPool;
 import com.threewks.thundr.view.BaseView;
 import com.threewks.thundr.view.ViewResolutionException;
 import com.threewks.thundr.view.ViewResolver;
 
 public class JsonViewResolver implements ViewResolver<JsonView> {
-	private GsonBuilder gsonBuilder;
+	public static final int DefaultStreamingBufferSize = 16 * 1024;
+	private static final int MaxPooledBuffers = 64;
+
+	private GsonProvider gsonProvider;
+	private BufferPool bufferPool = null;
+	private boolean contentLengthForHead = false;
 
 	public JsonViewResolver() {
 		this(GsonSupport.createBasicGsonBuilder());
 	}
 
 	public JsonViewResolver(GsonBuilder gsonBuilder) {
-		this.gsonBuilder = gsonBuilder;
+		this.gsonProvider = new GsonProvider(gsonBuilder);
 	}
 
 	/**
 	 * Exposes the underlying gson builder, allowing modification of the properties controlling how json is serialized.
+	 * Changes made to the builder after the next view is resolved require a call to {@link #rebuildGson()}.
 	 * 
 	 * @return
 	 */
 	public GsonBuilder getGsonBuilder() {
-		return gsonBuilder;
+		return gsonProvider.getGsonBuilder();
+	}
+
+	/**
+	 * Causes changes made to the gson builder to be used for subsequent views.
+	 */
+	public void rebuildGson() {
+		gsonProvider.rebuild();
+	}
+
+	/**
+	 * Enables streaming output. When streaming, json is serialized directly to the response through a reusable buffer of the given size
+	 * rather than to an intermediate String. The Content-Length is set when the json fits in the buffer, larger output is sent without
+	 * a Content-Length (i.e. chunked) so memory use is bounded by the buffer size rather than the size of the output.
+	 * 
+	 * @param bufferSize the buffer size in bytes, or 0 to disable streaming (the default)
+	 */
+	public void setStreaming(int bufferSize) {
+		this.bufferPool = bufferSize > 0 ? new BufferPool(bufferSize, MaxPooledBuffers) : null;
+	}
+
+	public boolean isStreaming() {
+		return bufferPool != null;
+	}
+
+	/**
+	 * Controls whether a response to a HEAD request has a Content-Length. By default it does not, as the length is only known by
+	 * serializing the json, which is the work a HEAD request avoids. When enabled, the json is serialized and counted but not sent,
+	 * so a HEAD request costs as much as a GET request.
+	 * 
+	 * @param contentLengthForHead true to serialize json for HEAD requests to set the Content-Length
+	 */
+	public void setContentLengthForHead(boolean contentLengthForHead) {
+		this.contentLengthForHead = contentLengthForHead;
+	}
+
+	public boolean isContentLengthForHead() {
+		return contentLengthForHead;
 	}
 
 	@Override
 	public void resolve(HttpServletRequest req, HttpServletResponse resp, JsonView viewResult) {
+		BufferPool bufferPool = this.bufferPool;
+		if (HttpSupport.Methods.isHead(req)) {
+			if (contentLengthForHead) {
+				head(resp, viewResult);
+			} else {
+				BaseView.applyToResponse(viewResult, resp);
+			}
+		} else if (bufferPool != null) {
+			stream(resp, viewResult, bufferPool);
+		} else {
+			write(resp, viewResult);
+		}
+	}
+
+	/**
+	 * Serializes the json only to count its length, so that a HEAD response carries the same Content-Length as a GET.
+	 * 
+	 * @see #setContentLengthForHead(boolean)
+	 */
+	protected void head(HttpServletResponse resp, JsonView viewResult) {
 		Object output = viewResult.getOutput();
 		try {
-			Gson create = gsonBuilder.create();
+			Gson gson = gsonProvider.get();
+			CountingOutputStream outputStream = new CountingOutputStream();
+			Writer writer = new OutputStreamWriter(outputStream, viewResult.getCharacterEncoding());
+			JsonElement jsonElement = Cast.as(output, JsonElement.class);
+			if (jsonElement == null) {
+				gson.toJson(output, writer);
+			} else {
+				gson.toJson(jsonElement, writer);
+			}
+			writer.flush();
+			resp.setContentLength((int) outputStream.count);
+			BaseView.applyToResponse(viewResult, resp);
+		} catch (Exception e) {
+			throw new ViewResolutionException(e, "Failed to generate JSON output for object '%s': %s", output.toString(), e.getMessage());
+		}
+	}
+
+	protected void stream(HttpServletResponse resp, JsonView viewResult, BufferPool bufferPool) {
+		Object output = viewResult.getOutput();
+		byte[] buffer = bufferPool.acquire();
+		try {
+			Gson gson = gsonProvider.get();
+			BaseView.applyToResponse(viewResult, resp);
+			BufferedResponseOutputStream outputStream = new BufferedResponseOutputStream(resp, buffer);
+			Writer writer = new OutputStreamWriter(outputStream, viewResult.getCharacterEncoding());
+			JsonElement jsonElement = Cast.as(output, JsonElement.class);
+			if (jsonElement == null) {
+				gson.toJson(output, writer);
+			} else {
+				gson.toJson(jsonElement, writer);
+			}
+			writer.flush();
+			outputStream.finish();
+		} catch (Exception e) {
+			throw new ViewResolutionException(e, "Failed to generate JSON output for object '%s': %s", output.toString(), e.getMessage());
+		} finally {
+			bufferPool.release(buffer);
+		}
+	}
+
+	protected void write(HttpServletResponse resp, JsonView viewResult) {
+		Object output = viewResult.getOutput();
+		try {
+			Gson create = gsonProvider.get();
 			JsonElement jsonElement = Cast.as(output, JsonElement.class);
 			String json = jsonElement == null ? create.toJson(output) : create.toJson(jsonElement);
 			String encoding = viewResult.getCharacterEncoding();
@@ -69,4 +184,18 @@ public class JsonViewResolver implements ViewResolver<JsonView> {
 	public String toString() {
 		return this.getClass().getSimpleName();
 	}
+
+	private static class CountingOutputStream extends OutputStream {
+		private long count = 0;
+
+		@Override
+		public void write(int b) throws IOException {
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			count += len;
+		}
+	}
 }
@@ -26,36 +26,67 @@ import com.atomicleopard.expressive.Cast;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
+import com.threewks.thundr.http.HttpSupport;
+import com.threewks.thundr.json.GsonProvider;
 import com.threewks.thundr.json.GsonSupport;
 import com.threewks.thundr.view.BaseView;
 import com.threewks.thundr.view.ViewResolutionException;
 import com.threewks.thundr.view.ViewResolver;
 
 public class JsonpViewResolver implements ViewResolver<JsonpView> {
-	private GsonBuilder gsonBuilder;
+	private GsonProvider gsonProvider;
+	private boolean contentLengthForHead = false;
 
 	public JsonpViewResolver() {
 		this(GsonSupport.createBasicGsonBuilder());
 	}
 
 	public JsonpViewResolver(GsonBuilder gsonBuilder) {
-		this.gsonBuilder = gsonBuilder;
+		this.gsonProvider = new GsonProvider(gsonBuilder);
 	}
 
 	/**
 	 * Exposes the underlying gson builder, allowing modification of the properties controlling how json is serialized.
+	 * Changes made to the builder after the next view is resolved require a call to {@link #rebuildGson()}.
 	 * 
 	 * @return
 	 */
 	public GsonBuilder getGsonBuilder() {
-		return gsonBuilder;
+		return gsonProvider.getGsonBuilder();
+	}
+
+	/**
+	 * Causes changes made to the gson builder to be used for subsequent views.
+	 */
+	public void rebuildGson() {
+		gsonProvider.rebuild();
+	}
+
+	/**
+	 * Controls whether a response to a HEAD request has a Content-Length. By default it does not, as the length is only known by
+	 * serializing the json, which is the work a HEAD request avoids. When enabled, the jsonp is produced but not sent, so a
+	 * HEAD request costs as much as a GET request.
+	 * 
+	 * @param contentLengthForHead true to serialize json for HEAD requests to set the Content-Length
+	 */
+	public void setContentLengthForHead(boolean contentLengthForHead) {
+		this.contentLengthForHead = contentLengthForHead;
+	}
+
+	public boolean isContentLengthForHead() {
+		return contentLengthForHead;
 	}
 
 	@Override
 	public void resolve(HttpServletRequest req, HttpServletResponse resp, JsonpView viewResult) {
+		boolean head = HttpSupport.Methods.isHead(req);
+		if (head && !contentLengthForHead) {
+			BaseView.applyToResponse(viewResult, resp);
+			return;
+		}
 		Object output = viewResult.getOutput();
 		try {
-			Gson create = gsonBuilder.create();
+			Gson create = gsonProvider.get();
 			JsonElement jsonElement = Cast.as(output, JsonElement.class);
 			String json = jsonElement == null ? create.toJson(output) : create.toJson(jsonElement);
 			String jsonp = getCallback(req) + "(" + json + ");";
@@ -63,7 +94,9 @@ public class JsonpViewResolver implements ViewResolver<JsonpView> {
 			String encoding = viewResult.getCharacterEncoding();
 			resp.setContentLength(jsonp.getBytes(encoding).length);
 			BaseView.applyToResponse(viewResult, resp);
-			resp.getWriter().write(jsonp);
+			if (!head) {
+				resp.getWriter().write(jsonp);
+			}
 		} catch (Exception e) {
 			throw new ViewResolutionException(e, "Failed to generate JSONP output for object '%s': %s", output.toString(), e.getMessage());
 		}
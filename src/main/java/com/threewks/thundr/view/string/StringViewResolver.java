@@ -20,6 +20,7 @@ package com.threewks.thundr.view.string;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import com.threewks.thundr.http.HttpSupport;
 import com.threewks.thundr.view.BaseView;
 import com.threewks.thundr.view.ViewResolutionException;
 import com.threewks.thundr.view.ViewResolver;
@@ -34,6 +35,10 @@ public class StringViewResolver implements ViewResolver<StringView> {
 		try {
 			BaseView.applyToResponse(viewResult, resp);
 			byte[] bytes = viewResult.contentBytes();
+			if (HttpSupport.Methods.isHead(req)) {
+				resp.setContentLength(bytes.length);
+				return;
+			}
 			resp.getOutputStream().write(bytes);
 			resp.flushBuffer();
 		} catch (Exception e) {
@@ -22,8 +22,10 @@ import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.Collections;
+import java.util.Map;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
@@ -40,13 +42,21 @@ import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import com.atomicleopard.expressive.Expressive;
+import com.threewks.thundr.action.Action;
 import com.threewks.thundr.action.ActionException;
 import com.threewks.thundr.configuration.ConfigurationModule;
+import com.threewks.thundr.http.ContentType;
+import com.threewks.thundr.http.HeadHttpServletResponse;
+import com.threewks.thundr.http.HttpSupport;
 import com.threewks.thundr.http.RequestThreadLocal;
 import com.threewks.thundr.injection.InjectionContextImpl;
 import com.threewks.thundr.injection.Module;
 import com.threewks.thundr.injection.UpdatableInjectionContext;
+import com.threewks.thundr.module.Modules;
 import com.threewks.thundr.module.ModulesModule;
+import com.threewks.thundr.module.test.TestModule;
+import com.threewks.thundr.profiler.StartupProfiler;
 import com.threewks.thundr.route.RouteModule;
 import com.threewks.thundr.route.RouteType;
 import com.threewks.thundr.route.Routes;
@@ -74,6 +84,7 @@ public class ThundrServletTest {
 		setInjectionContextIntoServlet(injectionContext);
 
 		when(routes.invoke(anyString(), Mockito.any(RouteType.class), Mockito.any(HttpServletRequest.class), Mockito.any(HttpServletResponse.class))).thenReturn("View Name");
+		when(routes.isMethodOverrideEnabled()).thenReturn(true);
 		injectionContext.inject(routes).as(Routes.class);
 
 		viewResolverRegistry = new ViewResolverRegistry();
@@ -102,6 +113,76 @@ public class ThundrServletTest {
 		verify(servlet).initModules(injectionContext);
 	}
 
+	@Test
+	public void shouldReadModuleStartupThreadsFromInitParameter() throws ServletException {
+		ServletConfig config = new MockServletConfig(Expressive.<String, String> map("moduleStartupThreads", "4"));
+		ThundrServlet servlet = spy(new ThundrServlet());
+		assertThat(servlet.getModuleStartupThreads(), is(1));
+
+		when(servlet.getBaseModules()).thenReturn(Collections.<Class<? extends Module>> emptyList());
+		servlet.init(config);
+		assertThat(servlet.getModuleStartupThreads(), is(4));
+		assertThat(getInjectionContextFromServlet(servlet).get(Modules.class).getStartupThreads(), is(4));
+	}
+
+	@Test
+	public void shouldProfileStartupAndWriteProfileWhenInitParameterSet() throws Exception {
+		File profile = File.createTempFile("startup-profile", ".json");
+		profile.deleteOnExit();
+		ServletConfig config = new MockServletConfig(Expressive.<String, String> map("startupProfile", profile.getAbsolutePath()));
+		ThundrServlet servlet = spy(new ThundrServlet());
+		when(servlet.getBaseModules()).thenReturn(Collections.<Class<? extends Module>> singletonList(TestModule.class));
+		servlet.init(config);
+
+		StartupProfiler profiler = getInjectionContextFromServlet(servlet).get(StartupProfiler.class);
+		assertThat(profiler, is(notNullValue()));
+		assertThat(profiler.isRecording(), is(false));
+		assertThat(profiler.getTimings(StartupProfiler.ModuleStart).get(0).getName(), is(TestModule.class.getName()));
+		assertThat(profile.length() > 0, is(true));
+	}
+
+	@Test
+	public void shouldMakeRoutesLazyAndInitialiseDeferredActionsWhenLazyStartupInitParameterSet() throws ServletException {
+		ServletConfig config = new MockServletConfig(Expressive.<String, String> map("lazyStartup", "true"));
+		ThundrServlet servlet = spy(new ThundrServlet());
+		assertThat(servlet.isLazyStartup(), is(false));
+
+		when(servlet.getBaseModules()).thenReturn(Collections.<Class<? extends Module>> singletonList(RouteModule.class));
+		doNothing().when(servlet).initialiseDeferredActions(Mockito.any(Routes.class));
+		servlet.init(config);
+		Routes routes = getInjectionContextFromServlet(servlet).get(Routes.class);
+		assertThat(servlet.isLazyStartup(), is(true));
+		assertThat(routes.isLazyInitialisation(), is(true));
+		verify(servlet).initialiseDeferredActions(routes);
+	}
+
+	@Test
+	public void shouldInitialiseDeferredActionsInBackground() throws Exception {
+		Routes routes = mock(Routes.class);
+		final Thread caller = Thread.currentThread();
+		final Thread[] initialisedOn = new Thread[1];
+		when(routes.initialiseDeferredActions()).thenAnswer(new Answer<Map<Action, Exception>>() {
+			@Override
+			public Map<Action, Exception> answer(InvocationOnMock invocation) throws Throwable {
+				synchronized (initialisedOn) {
+					initialisedOn[0] = Thread.currentThread();
+					initialisedOn.notifyAll();
+				}
+				return Collections.emptyMap();
+			}
+		});
+
+		servlet.initialiseDeferredActions(routes);
+		synchronized (initialisedOn) {
+			if (initialisedOn[0] == null) {
+				initialisedOn.wait(5000);
+			}
+		}
+		assertThat(initialisedOn[0], is(notNullValue()));
+		assertThat(initialisedOn[0], is(not(caller)));
+		assertThat(initialisedOn[0].getPriority(), is(Thread.MIN_PRIORITY));
+	}
+
 	@SuppressWarnings("serial")
 	@Test
 	public void shouldWrapExceptionInServletException() throws ServletException {
@@ -155,6 +236,7 @@ public class ThundrServletTest {
 	public void shouldApplyPutRouteWhenDoPostWithPutMethodParameter() throws ServletException, IOException {
 		MockHttpServletRequest req = new MockHttpServletRequest();
 		req.method("POST");
+		req.contentType(ContentType.ApplicationFormUrlEncoded);
 		req.parameter("_method", "pUT");
 		servlet = spy(servlet);
 		servlet.service(req, resp);
@@ -165,12 +247,84 @@ public class ThundrServletTest {
 	public void shouldApplyDeleteRouteWhenDoPostWithDeleteMethodParameterIgnoringCase() throws ServletException, IOException {
 		MockHttpServletRequest req = new MockHttpServletRequest();
 		req.method("POST");
+		req.contentType(ContentType.ApplicationFormUrlEncoded);
 		req.parameter("_MEthOD", "deleTE");
 		servlet = spy(servlet);
 		servlet.service(req, resp);
 		verify(servlet).applyRoute(RouteType.DELETE, req, resp);
 	}
 
+	@Test
+	public void shouldApplyPutRouteWhenDoPostWithMethodParameterInQueryString() throws ServletException, IOException {
+		MockHttpServletRequest req = spy(new MockHttpServletRequest("/path?a=b&_METHOD=pUT"));
+		req.method("POST");
+		req.contentType(ContentType.ApplicationJson);
+		servlet = spy(servlet);
+		servlet.service(req, resp);
+		verify(servlet).applyRoute(RouteType.PUT, req, resp);
+		verify(req, never()).getParameterMap();
+	}
+
+	@Test
+	public void shouldApplyMethodParameterInQueryStringContainingMalformedEscapes() throws ServletException, IOException {
+		MockHttpServletRequest req = spy(new MockHttpServletRequest());
+		doReturn("a%=1&x=%zz&_method=PUT").when(req).getQueryString();
+		req.method("POST");
+		req.contentType(ContentType.ApplicationJson);
+		servlet = spy(servlet);
+		servlet.service(req, resp);
+		verify(servlet).applyRoute(RouteType.PUT, req, resp);
+	}
+
+	@Test
+	public void shouldIgnoreMethodParameterInQueryStringWithMalformedValue() throws ServletException, IOException {
+		MockHttpServletRequest req = spy(new MockHttpServletRequest());
+		doReturn("_method=%zz").when(req).getQueryString();
+		req.method("POST");
+		req.contentType(ContentType.ApplicationJson);
+		servlet = spy(servlet);
+		servlet.service(req, resp);
+		verify(servlet).applyRoute(RouteType.POST, req, resp);
+	}
+
+	@Test
+	public void shouldNotReadBodyForMethodParameterWhenNotFormUrlEncoded() throws ServletException, IOException {
+		MockHttpServletRequest req = spy(new MockHttpServletRequest());
+		req.method("POST");
+		req.contentType(ContentType.MultipartFormData);
+		req.parameter("_method", "PUT");
+		servlet = spy(servlet);
+		servlet.service(req, resp);
+		verify(servlet).applyRoute(RouteType.POST, req, resp);
+		verify(req, never()).getParameterMap();
+	}
+
+	@Test
+	public void shouldPreferXHttpMethodOverrideHeaderWithoutReadingBody() throws ServletException, IOException {
+		MockHttpServletRequest req = spy(new MockHttpServletRequest());
+		req.method("POST");
+		req.contentType(ContentType.ApplicationFormUrlEncoded);
+		req.header("X-HTTP-Method-Override", "PATCH");
+		req.parameter("_method", "PUT");
+		servlet = spy(servlet);
+		servlet.service(req, resp);
+		verify(servlet).applyRoute(RouteType.PATCH, req, resp);
+		verify(req, never()).getParameterMap();
+	}
+
+	@Test
+	public void shouldNotApplyMethodOverrideWhenDisabledByRoutes() throws ServletException, IOException {
+		when(routes.isMethodOverrideEnabled()).thenReturn(false);
+		MockHttpServletRequest req = new MockHttpServletRequest();
+		req.method("POST");
+		req.contentType(ContentType.ApplicationFormUrlEncoded);
+		req.header("X-HTTP-Method-Override", "PUT");
+		req.parameter("_method", "PUT");
+		servlet = spy(servlet);
+		servlet.service(req, resp);
+		verify(servlet).applyRoute(RouteType.POST, req, resp);
+	}
+
 	@Test
 	public void shouldApplyPutRouteWhenDoPostWithXHttpMethodOverrideHeader() throws ServletException, IOException {
 		MockHttpServletRequest req = new MockHttpServletRequest();
@@ -195,6 +349,7 @@ public class ThundrServletTest {
 	public void shouldApplyDeleteRouteWhenDoPostWithDeleteMethodParameter() throws ServletException, IOException {
 		MockHttpServletRequest req = new MockHttpServletRequest();
 		req.method("POST");
+		req.contentType(ContentType.ApplicationFormUrlEncoded);
 		req.parameter("_method", "dEleTE");
 		servlet = spy(servlet);
 		servlet.service(req, resp);
@@ -205,6 +360,7 @@ public class ThundrServletTest {
 	public void shouldApplyPatchRouteWhenDoPostWithPatchMethodParameter() throws ServletException, IOException {
 		MockHttpServletRequest req = new MockHttpServletRequest();
 		req.method("POST");
+		req.contentType(ContentType.ApplicationFormUrlEncoded);
 		req.parameter("_method", "pATCh");
 		servlet = spy(servlet);
 		servlet.service(req, resp);
@@ -239,14 +395,25 @@ public class ThundrServletTest {
 	}
 
 	@Test
-	public void shouldApplyGetRouteWhenHeadRequestMade() throws ServletException, IOException {
+	public void shouldApplyHeadRouteWhenHeadRequestMade() throws ServletException, IOException {
 		MockHttpServletRequest req = new MockHttpServletRequest();
 		req.method("HEAD");
 		servlet = spy(servlet);
 		servlet.service(req, resp);
-		// we expect the response to be wrapped in the NoBodyResponse in the base HttpServlet class
-		verify(servlet).applyRoute(Mockito.eq(RouteType.GET), Mockito.eq(req), Mockito.any(HttpServletResponse.class));
-		verify(servlet).doGet(Mockito.eq(req), Mockito.any(HttpServletResponse.class));
+		// we expect the response to be wrapped in a HeadHttpServletResponse, and the GET handling not to be invoked
+		verify(servlet).applyRoute(Mockito.eq(RouteType.HEAD), Mockito.eq(req), Mockito.any(HeadHttpServletResponse.class));
+		verify(servlet, times(0)).doGet(Mockito.any(HttpServletRequest.class), Mockito.any(HttpServletResponse.class));
+	}
+
+	@Test
+	public void shouldTreatPostOverriddenToHeadAsHeadRequest() throws ServletException, IOException {
+		MockHttpServletRequest req = new MockHttpServletRequest();
+		req.method("POST");
+		req.header("X-HTTP-Method-Override", "HEAD");
+		servlet = spy(servlet);
+		servlet.service(req, resp);
+		verify(servlet).applyRoute(Mockito.eq(RouteType.HEAD), Mockito.eq(req), Mockito.any(HeadHttpServletResponse.class));
+		assertThat(HttpSupport.Methods.isHead(req), is(true));
 	}
 
 	@Test
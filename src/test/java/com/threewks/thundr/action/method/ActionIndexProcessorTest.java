@@ -0,0 +1,117 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.method;
+
+import static com.atomicleopard.expressive.Expressive.list;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Properties;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaCompiler.CompilationTask;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import jodd.io.FileUtil;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ActionIndexProcessorTest {
+	private File directory;
+
+	@Before
+	public void before() throws Exception {
+		directory = FileUtil.createTempDirectory("action-index-processor", "test");
+	}
+
+	@After
+	public void after() throws Exception {
+		FileUtil.deleteDir(directory);
+	}
+
+	@Test
+	public void shouldIndexPublicMethodsOfCompiledClasses() throws Exception {
+		// @formatter:off
+		Properties index = compile("com.example.controller.Controller",
+				"package com.example.controller;\n" +
+				"public class Controller {\n" +
+				"	public String view(String name, int[] ids, java.util.List<java.util.Map.Entry<String, Long>> entries) { return name; }\n" +
+				"	public <T extends Number> void generic(T number) { }\n" +
+				"	public void none() { }\n" +
+				"	private void hidden(String secret) { }\n" +
+				"	public static class Nested {\n" +
+				"		public void nested(long value) { }\n" +
+				"	}\n" +
+				"}\n");
+		// @formatter:on
+		assertThat(index.getProperty("com.example.controller.Controller#view(java.lang.String,int[],java.util.List)"), is("name,ids,entries"));
+		assertThat(index.getProperty("com.example.controller.Controller#generic(java.lang.Number)"), is("number"));
+		assertThat(index.getProperty("com.example.controller.Controller#none()"), is(""));
+		assertThat(index.getProperty("com.example.controller.Controller$Nested#nested(long)"), is("value"));
+		assertThat(index.getProperty("com.example.controller.Controller#hidden(java.lang.String)"), is(nullValue()));
+		assertThat(index.size(), is(4));
+	}
+
+	@Test
+	public void shouldOnlyIndexConfiguredPackages() throws Exception {
+		Properties index = compile("com.example.service.Service", "package com.example.service;\npublic class Service { public void run(String name) { } }\n", "-A" + ActionIndexProcessor.PackagesOption + "=com.example.controller");
+		assertThat(index, is(nullValue()));
+
+		index = compile("com.example.controller.sub.Controller", "package com.example.controller.sub;\npublic class Controller { public void run(String name) { } }\n", "-A" + ActionIndexProcessor.PackagesOption
+				+ "=com.example.other, com.example.controller");
+		assertThat(index.getProperty("com.example.controller.sub.Controller#run(java.lang.String)"), is("name"));
+	}
+
+	private Properties compile(String className, String source, String... options) throws Exception {
+		File sourceFile = new File(directory, className.replace('.', '/') + ".java");
+		sourceFile.getParentFile().mkdirs();
+		FileUtil.writeString(sourceFile, source);
+		File output = new File(directory, "classes");
+		output.mkdirs();
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+		try {
+			java.util.List<String> arguments = list("-d", output.getAbsolutePath(), "-proc:only").addItems(options);
+			CompilationTask task = compiler.getTask(null, fileManager, null, arguments, null, fileManager.getJavaFileObjects(sourceFile));
+			task.setProcessors(list(new ActionIndexProcessor()));
+			assertThat(task.call(), is(true));
+		} finally {
+			fileManager.close();
+		}
+
+		File indexFile = new File(output, ActionIndex.Resource);
+		if (!indexFile.exists()) {
+			return null;
+		}
+		Properties index = new Properties();
+		InputStream inputStream = new FileInputStream(indexFile);
+		try {
+			index.load(inputStream);
+		} finally {
+			inputStream.close();
+		}
+		return index;
+	}
+}
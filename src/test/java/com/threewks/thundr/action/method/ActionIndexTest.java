@@ -0,0 +1,132 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.method;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import jodd.io.FileUtil;
+import jodd.util.ReflectUtil;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ActionIndexTest {
+	private File directory;
+
+	@Before
+	public void before() throws Exception {
+		directory = FileUtil.createTempDirectory("action-index", "test");
+	}
+
+	@After
+	public void after() throws Exception {
+		FileUtil.deleteDir(directory);
+	}
+
+	@Test
+	public void shouldKeyMethodsBySignature() throws Exception {
+		assertThat(ActionIndex.key(FakeController.class.getMethod("methodOne", String.class)), is("com.threewks.thundr.action.method.FakeController#methodOne(java.lang.String)"));
+		assertThat(ActionIndex.key(Signatures.class.getMethod("method", int.class, String[].class, List.class, Map.Entry.class)),
+				is("com.threewks.thundr.action.method.ActionIndexTest$Signatures#method(int,java.lang.String[],java.util.List,java.util.Map$Entry)"));
+		assertThat(ActionIndex.key(Signatures.class.getMethod("method")), is("com.threewks.thundr.action.method.ActionIndexTest$Signatures#method()"));
+	}
+
+	@Test
+	public void shouldReturnParameterNamesForIndexedMethods() throws Exception {
+		Method method = FakeController.class.getMethod("methodOne", String.class);
+		ActionIndex index = new ActionIndex();
+		assertThat(index.isEmpty(), is(true));
+		assertThat(index.getParameterNames(method), is(nullValue()));
+
+		index.add(ActionIndex.key(method), new String[] { "indexed" });
+		assertThat(index.size(), is(1));
+		assertThat(index.getParameterNames(method), is(new String[] { "indexed" }));
+	}
+
+	@Test
+	public void shouldIgnoreEntriesWithTheWrongNumberOfParameters() throws Exception {
+		Method method = FakeController.class.getMethod("methodOne", String.class);
+		ActionIndex index = new ActionIndex();
+		index.add(ActionIndex.key(method), new String[] { "one", "two" });
+		assertThat(index.getParameterNames(method), is(nullValue()));
+	}
+
+	@Test
+	public void shouldLoadAndCombineIndexesFromClassLoader() throws Exception {
+		Method methodOne = FakeController.class.getMethod("methodOne", String.class);
+		Method noArgs = Signatures.class.getMethod("method");
+		Properties first = new Properties();
+		first.setProperty(ActionIndex.key(methodOne), "first");
+		Properties second = new Properties();
+		second.setProperty(ActionIndex.key(noArgs), "");
+
+		ClassLoader classLoader = new URLClassLoader(new URL[] { writeIndex("first", first), writeIndex("second", second) }, null);
+		ActionIndex index = ActionIndex.load(classLoader);
+		assertThat(index.size(), is(2));
+		assertThat(index.getParameterNames(methodOne), is(new String[] { "first" }));
+		assertThat(index.getParameterNames(noArgs), is(new String[0]));
+	}
+
+	@Test
+	public void shouldLoadEmptyIndexWhenNoneOnClasspath() {
+		assertThat(ActionIndex.load(new URLClassLoader(new URL[0], null)).isEmpty(), is(true));
+		assertThat(ActionIndex.load(null).isEmpty(), is(true));
+	}
+
+	@Test
+	public void shouldUseIndexForMethodActionParameterNames() throws Exception {
+		Method method = ReflectUtil.findMethod(FakeController.class, "methodOne");
+		ActionIndex index = new ActionIndex();
+		index.add(ActionIndex.key(method), new String[] { "indexed" });
+		assertThat(new MethodAction(FakeController.class, "methodOne", index).parameters().get(0).name(), is("indexed"));
+		assertThat(new MethodAction(FakeController.class, "methodOne", new ActionIndex()).parameters().get(0).name(), is("argument1"));
+	}
+
+	private URL writeIndex(String name, Properties properties) throws Exception {
+		File root = new File(directory, name);
+		File file = new File(root, ActionIndex.Resource);
+		file.getParentFile().mkdirs();
+		OutputStream outputStream = new FileOutputStream(file);
+		try {
+			properties.store(outputStream, null);
+		} finally {
+			outputStream.close();
+		}
+		return root.toURI().toURL();
+	}
+
+	public static class Signatures {
+		public void method() {
+		}
+
+		public void method(int primitive, String[] array, List<String> generic, Map.Entry<String, String> nested) {
+		}
+	}
+}
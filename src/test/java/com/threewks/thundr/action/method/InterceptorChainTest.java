@@ -0,0 +1,95 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.method;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class InterceptorChainTest {
+	private HttpServletRequest req = mock(HttpServletRequest.class);
+	private HttpServletResponse resp = mock(HttpServletResponse.class);
+	private Map<Class<? extends Annotation>, ActionInterceptor<? extends Annotation>> registered = Collections.emptyMap();
+	private Annotation first = annotation("first");
+	private Annotation second = annotation("second");
+	private ActionInterceptor<Annotation> firstInterceptor = interceptor();
+	private ActionInterceptor<Annotation> secondInterceptor = interceptor();
+	private InterceptorChain chain;
+
+	@Before
+	public void before() {
+		Map<Annotation, ActionInterceptor<Annotation>> interceptors = new LinkedHashMap<Annotation, ActionInterceptor<Annotation>>();
+		interceptors.put(first, firstInterceptor);
+		interceptors.put(second, secondInterceptor);
+		chain = new InterceptorChain(interceptors, registered);
+	}
+
+	@Test
+	public void shouldInvokeEachInterceptorInOrderUntilOneReturnsAResult() {
+		when(secondInterceptor.before(second, req, resp)).thenReturn("second");
+		assertThat(chain.before(req, resp), is((Object) "second"));
+		verify(firstInterceptor).before(first, req, resp);
+
+		when(firstInterceptor.after(first, "result", req, resp)).thenReturn("first");
+		assertThat(chain.after("result", req, resp), is((Object) "first"));
+		verify(secondInterceptor, never()).after(second, "result", req, resp);
+	}
+
+	@Test
+	public void shouldReturnOriginalResultAfterWhenNoInterceptorReturnsAResult() {
+		assertThat(chain.after("result", req, resp), is((Object) "result"));
+		verify(firstInterceptor).after(first, "result", req, resp);
+		verify(secondInterceptor).after(second, "result", req, resp);
+	}
+
+	@Test
+	public void shouldReturnNullOnExceptionWhenNoInterceptorHandlesIt() {
+		Exception e = new RuntimeException("expected");
+		assertThat(chain.exception(e, req, resp), is(nullValue()));
+		verify(firstInterceptor).exception(first, e, req, resp);
+		verify(secondInterceptor).exception(second, e, req, resp);
+	}
+
+	@Test
+	public void shouldOnlyBeForTheRegisteredInterceptorsItWasBuiltFrom() {
+		assertThat(chain.size(), is(2));
+		assertThat(chain.isFor(registered), is(true));
+		assertThat(chain.isFor(new LinkedHashMap<Class<? extends Annotation>, ActionInterceptor<? extends Annotation>>(registered)), is(false));
+	}
+
+	@SuppressWarnings("unchecked")
+	private ActionInterceptor<Annotation> interceptor() {
+		return mock(ActionInterceptor.class);
+	}
+
+	private Annotation annotation(String name) {
+		Annotation annotation = mock(Annotation.class, name);
+		return annotation;
+	}
+}
@@ -219,6 +219,67 @@ public class MethodActionResolverTest {
 		verify(resolver).createController(Mockito.any(MethodAction.class));
 	}
 
+	@Test
+	public void shouldCreateDirectInvokerAtInitialise() {
+		MethodAction methodAction = new MethodAction(MethodActionResolverTest.class, "intercept");
+		assertThat(methodAction.invoker() instanceof ReflectiveMethodInvoker, is(true));
+		resolver.initialise(methodAction);
+		assertThat(methodAction.invoker() instanceof ReflectiveMethodInvoker, is(false));
+	}
+
+	@Test
+	public void shouldResolveControllerAndInterceptorsAtInitialise() {
+		when(injectionContext.get(MethodActionResolverTest.class)).thenReturn(this);
+		resolver.registerInterceptor(TestAnnotation.class, new TestActionInterceptor(null, null, null));
+		MethodAction methodAction = new MethodAction(MethodActionResolverTest.class, "intercept");
+		resolver.initialise(methodAction);
+		assertThat(methodAction.controller(), is((Object) this));
+		assertThat(methodAction.interceptors().size(), is(1));
+	}
+
+	@Test
+	public void shouldReuseControllerCreatedOnFirstUseWhenInitialisedLater() {
+		when(injectionContext.get(MethodActionResolverTest.class)).thenReturn(this);
+		MethodAction action = new MethodAction(MethodActionResolverTest.class, "intercept");
+		MethodAction sameController = new MethodAction(MethodActionResolverTest.class, "interceptWithValue");
+		resolver.resolve(action, RouteType.GET, req, resp, pathVars);
+		resolver.initialise(action);
+		resolver.initialise(sameController);
+
+		assertThat(action.controller(), is((Object) this));
+		assertThat(sameController.controller(), is((Object) this));
+		verify(injectionContext, times(1)).get(MethodActionResolverTest.class);
+	}
+
+	@Test
+	public void shouldReuseControllerAndInterceptorsAcrossRequests() {
+		TestActionInterceptor registeredInterceptor = new TestActionInterceptor(null, null, null);
+		MethodAction action = prepareActionMethod("intercept", registeredInterceptor);
+		resolver.initialise(action);
+		InterceptorChain interceptors = action.interceptors();
+
+		resolver.resolve(action, RouteType.GET, req, resp, pathVars);
+		resolver.resolve(action, RouteType.GET, req, resp, pathVars);
+		assertThat(action.interceptors(), is(sameInstance(interceptors)));
+		verify(injectionContext, times(1)).get(MethodActionResolverTest.class);
+	}
+
+	@Test
+	public void shouldApplyInterceptorRegisteredAfterActionHasBeenResolved() {
+		when(injectionContext.get(MethodActionResolverTest.class)).thenReturn(this);
+		MethodAction action = resolver.createActionIfPossible(MethodActionResolverTest.class.getName() + ".intercept");
+		resolver.initialise(action);
+		resolver.resolve(action, RouteType.GET, req, resp, pathVars);
+		assertThat(action.interceptors().size(), is(0));
+
+		TestActionInterceptor registeredInterceptor = new TestActionInterceptor(null, null, null);
+		resolver.registerInterceptor(TestAnnotation.class, registeredInterceptor);
+		resolver.resolve(action, RouteType.GET, req, resp, pathVars);
+		assertThat(action.interceptors().size(), is(1));
+		assertThat(registeredInterceptor.beforeInvoked, is(true));
+		assertThat(registeredInterceptor.afterInvoked, is(true));
+	}
+
 	private MethodAction prepareActionMethod(String method, ActionInterceptor<TestAnnotation> registeredInterceptor) {
 		when(injectionContext.get(MethodActionResolverTest.class)).thenReturn(this);
 		resolver.registerInterceptor(TestAnnotation.class, registeredInterceptor);
@@ -0,0 +1,94 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.method;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import jodd.util.ReflectUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares invoking a controller action through a generated {@link MethodInvoker} against reflection.
+ * 
+ * This is not run as part of the test suite. Run it from the test classpath, either using {@link #main(String[])} or
+ * <code>java -cp ... org.openjdk.jmh.Main MethodInvokerBenchmark</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MethodInvokerBenchmark {
+	@Param({ "methodOne", "methodTwo" }) public String action;
+
+	private MethodInvoker reflective;
+	private MethodInvoker generated;
+	private Controller controller;
+	private Object[] arguments;
+
+	@Setup
+	public void setup() {
+		Method method = ReflectUtil.findMethod(Controller.class, action);
+		reflective = MethodInvokers.reflective(method);
+		generated = MethodInvokers.create(method);
+		if (generated instanceof ReflectiveMethodInvoker) {
+			throw new IllegalStateException("Expected an invoker to be generated for " + method);
+		}
+		controller = new Controller();
+		arguments = "methodOne".equals(action) ? new Object[] { "argument" } : new Object[] { 1, 2L };
+	}
+
+	@Benchmark
+	public Object reflective() throws Exception {
+		return reflective.invoke(controller, arguments);
+	}
+
+	@Benchmark
+	public Object generated() throws Exception {
+		return generated.invoke(controller, arguments);
+	}
+
+	/**
+	 * Adds an action whose own work is negligible, so that the cost of invoking it dominates.
+	 */
+	public static class Controller extends FakeController {
+		public long methodTwo(int first, long second) {
+			return first + second;
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(MethodInvokerBenchmark.class.getSimpleName()).build()).run();
+	}
+}
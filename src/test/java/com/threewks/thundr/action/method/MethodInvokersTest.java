@@ -0,0 +1,170 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.method;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+import jodd.util.ReflectUtil;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.atomicleopard.expressive.Expressive;
+
+public class MethodInvokersTest {
+	@Rule public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void shouldGenerateInvokerForPublicMethod() throws Exception {
+		FakeController controller = new FakeController();
+		MethodInvoker invoker = MethodInvokers.create(method(FakeController.class, "methodOne"));
+		assertThat(invoker instanceof ReflectiveMethodInvoker, is(false));
+		assertThat(invoker.invoke(controller, new Object[] { "arg" }), is((Object) "Result: arg"));
+		assertThat(controller.invocationCount, is(1));
+	}
+
+	@Test
+	public void shouldInvokeMethodsWithPrimitiveParametersAndReturnTypes() throws Exception {
+		Controller controller = new Controller();
+		MethodInvoker invoker = MethodInvokers.create(method(Controller.class, "primitives"));
+		assertThat(invoker instanceof ReflectiveMethodInvoker, is(false));
+		Object result = invoker.invoke(controller, new Object[] { true, (byte) 1, 'c', (short) 2, 3, 4L, 5.5f, 6.5d });
+		assertThat(result, is((Object) 22.0d));
+		assertThat(controller.invoked, is("true 1 c 2 3 4 5.5 6.5"));
+	}
+
+	@Test
+	public void shouldInvokeMethodsWithArrayAndGenericParameters() throws Exception {
+		Controller controller = new Controller();
+		MethodInvoker invoker = MethodInvokers.create(method(Controller.class, "arrays"));
+		assertThat(invoker instanceof ReflectiveMethodInvoker, is(false));
+		Object result = invoker.invoke(controller, new Object[] { new String[] { "a", "b" }, new int[] { 1, 2 }, Expressive.list("c") });
+		assertThat(result, is((Object) "[a, b][1, 2][c]"));
+	}
+
+	@Test
+	public void shouldReturnNullForVoidMethods() throws Exception {
+		Controller controller = new Controller();
+		MethodInvoker invoker = MethodInvokers.create(method(Controller.class, "none"));
+		assertThat(invoker instanceof ReflectiveMethodInvoker, is(false));
+		assertThat(invoker.invoke(controller, new Object[0]), is(nullValue()));
+		assertThat(controller.invoked, is("none"));
+	}
+
+	@Test
+	public void shouldInvokeStaticMethods() throws Exception {
+		MethodInvoker invoker = MethodInvokers.create(method(Controller.class, "staticMethod"));
+		assertThat(invoker instanceof ReflectiveMethodInvoker, is(false));
+		assertThat(invoker.invoke(null, new Object[] { 2 }), is((Object) 4));
+	}
+
+	@Test
+	public void shouldInvokeMethodsDeclaredOnInterfaces() throws Exception {
+		MethodInvoker invoker = MethodInvokers.create(method(Runnable.class, "run"));
+		Controller controller = new Controller();
+		assertThat(invoker instanceof ReflectiveMethodInvoker, is(false));
+		invoker.invoke(controller, new Object[0]);
+		assertThat(controller.invoked, is("run"));
+	}
+
+	@Test
+	public void shouldThrowExceptionFromMethodDirectly() throws Exception {
+		MethodInvoker invoker = MethodInvokers.create(method(Controller.class, "fail"));
+		assertThat(invoker instanceof ReflectiveMethodInvoker, is(false));
+		thrown.expect(IllegalStateException.class);
+		thrown.expectMessage("Expected");
+		invoker.invoke(new Controller(), new Object[0]);
+	}
+
+	@Test
+	public void shouldDefineInvokersForControllersOfTheSameClassLoaderInOneClassLoader() throws Exception {
+		MethodInvoker first = MethodInvokers.create(method(Controller.class, "none"));
+		MethodInvoker second = MethodInvokers.create(method(FakeController.class, "methodOne"));
+		assertThat(first.getClass().getClassLoader(), is(sameInstance(second.getClass().getClassLoader())));
+		assertThat(first.getClass().getClassLoader().getParent(), is(sameInstance(Controller.class.getClassLoader())));
+	}
+
+	@Test
+	public void shouldFallBackToReflectionForMethodsWhichAreNotAccessible() throws Exception {
+		assertThat(MethodInvokers.create(method(HiddenController.class, "method")) instanceof ReflectiveMethodInvoker, is(true));
+		assertThat(MethodInvokers.create(method(Controller.class, "hiddenParameter")) instanceof ReflectiveMethodInvoker, is(true));
+		assertThat(MethodInvokers.create(Controller.class.getDeclaredMethod("packageMethod")) instanceof ReflectiveMethodInvoker, is(true));
+	}
+
+	@Test
+	public void shouldInvokeReflectively() throws Exception {
+		Controller controller = new Controller();
+		MethodInvoker invoker = MethodInvokers.reflective(method(Controller.class, "none"));
+		assertThat(invoker.invoke(controller, new Object[0]), is(nullValue()));
+		assertThat(controller.invoked, is("none"));
+	}
+
+	private Method method(Class<?> type, String name) {
+		return ReflectUtil.findMethod(type, name);
+	}
+
+	public static class Controller implements Runnable {
+		public String invoked;
+
+		public double primitives(boolean z, byte b, char c, short s, int i, long l, float f, double d) {
+			invoked = z + " " + b + " " + c + " " + s + " " + i + " " + l + " " + f + " " + d;
+			return b + s + i + l + f + d;
+		}
+
+		public String arrays(String[] strings, int[] ints, List<String> list) {
+			return Arrays.toString(strings) + Arrays.toString(ints) + list;
+		}
+
+		public void none() {
+			invoked = "none";
+		}
+
+		public static int staticMethod(int value) {
+			return value * 2;
+		}
+
+		@Override
+		public void run() {
+			invoked = "run";
+		}
+
+		public void fail() {
+			throw new IllegalStateException("Expected");
+		}
+
+		public void hiddenParameter(Hidden hidden) {
+		}
+
+		void packageMethod() {
+		}
+	}
+
+	static class Hidden {
+	}
+
+	static class HiddenController {
+		public void method() {
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.method.bind;
+
+import static com.atomicleopard.expressive.Expressive.list;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.atomicleopard.expressive.EList;
+import com.atomicleopard.expressive.Expressive;
+
+import com.threewks.thundr.action.method.bind.http.HttpBinder;
+import com.threewks.thundr.action.method.bind.http.MultipartHttpBinder;
+import com.threewks.thundr.action.method.bind.json.GsonBinder;
+import com.threewks.thundr.action.method.bind.path.PathVariableBinder;
+import com.threewks.thundr.action.method.bind.request.CookieBinder;
+import com.threewks.thundr.action.method.bind.request.RequestAttributeBinder;
+import com.threewks.thundr.action.method.bind.request.RequestClassBinder;
+import com.threewks.thundr.action.method.bind.request.RequestHeaderBinder;
+import com.threewks.thundr.action.method.bind.request.SessionAttributeBinder;
+import com.threewks.thundr.bind.JavaBean;
+import com.threewks.thundr.introspection.ParameterDescription;
+
+public class ActionMethodBindingPlanTest {
+	private ActionMethodBinderRegistry registry = new ActionMethodBinderRegistry();
+	private HttpServletRequest req = mock(HttpServletRequest.class);
+	private HttpServletResponse resp = mock(HttpServletResponse.class);
+	private Map<String, String> pathVars = Collections.emptyMap();
+
+	@Before
+	public void before() {
+		registry.registerDefaultActionMethodBinders();
+		when(req.getParameterMap()).thenReturn(Collections.<String, String[]> emptyMap());
+	}
+
+	@Test
+	public void shouldApplyNoBindersForMethodWithoutParameters() {
+		ActionMethodBindingPlan plan = new ActionMethodBindingPlan(Collections.<ParameterDescription> emptyList(), registry.getRegisteredActionMethodBinders());
+		assertThat(plan.getBinders().isEmpty(), is(true));
+		assertThat(plan.bind(req, resp, pathVars).length, is(0));
+		verifyZeroInteractions(req, resp);
+	}
+
+	@Test
+	public void shouldOnlyApplyRequestClassBinderForMethodTakingRequestAndResponse() {
+		List<ParameterDescription> parameters = list(new ParameterDescription("req", HttpServletRequest.class), new ParameterDescription("resp", HttpServletResponse.class));
+		ActionMethodBindingPlan plan = new ActionMethodBindingPlan(parameters, registry.getRegisteredActionMethodBinders());
+		assertThat(types(plan), is(Expressive.<Class<?>> list(RequestClassBinder.class, HttpBinder.class, RequestAttributeBinder.class, RequestHeaderBinder.class, SessionAttributeBinder.class, CookieBinder.class)));
+
+		Object[] arguments = plan.bind(req, resp, pathVars);
+		assertThat(arguments, is(new Object[] { req, resp }));
+		verifyZeroInteractions(req);
+	}
+
+	@Test
+	public void shouldSkipJsonBinderWhenMethodHasNoBeanParametersAndTakesTheRequest() {
+		List<ParameterDescription> parameters = list(new ParameterDescription("req", HttpServletRequest.class), new ParameterDescription("id", Long.class));
+		ActionMethodBindingPlan plan = new ActionMethodBindingPlan(parameters, registry.getRegisteredActionMethodBinders());
+		assertThat(types(plan).contains(GsonBinder.class), is(false));
+		assertThat(types(plan).contains(MultipartHttpBinder.class), is(true));
+		assertThat(types(plan).contains(PathVariableBinder.class), is(true));
+	}
+
+	@Test
+	public void shouldApplyAllBindersForMethodTakingABean() {
+		List<ParameterDescription> parameters = list(new ParameterDescription("bean", JavaBean.class));
+		ActionMethodBindingPlan plan = new ActionMethodBindingPlan(parameters, registry.getRegisteredActionMethodBinders());
+		assertThat(types(plan), is(Expressive.<Class<?>> list(HttpBinder.class, RequestAttributeBinder.class, RequestHeaderBinder.class, SessionAttributeBinder.class, CookieBinder.class, GsonBinder.class,
+				MultipartHttpBinder.class)));
+	}
+
+	@Test
+	public void shouldBindPathVariablesIntoArgumentArray() {
+		List<ParameterDescription> parameters = list(new ParameterDescription("id", Long.class), new ParameterDescription("name", String.class));
+		ActionMethodBindingPlan plan = new ActionMethodBindingPlan(parameters, registry.getRegisteredActionMethodBinders());
+		Map<String, String> pathVars = Collections.singletonMap("id", "123");
+		when(req.getParameterMap()).thenReturn(Collections.singletonMap("name", new String[] { "value" }));
+		assertThat(plan.bind(req, resp, pathVars), is(new Object[] { 123L, "value" }));
+	}
+
+	@Test
+	public void shouldStopApplyingBindersOnceAllArgumentsAreBound() {
+		ActionMethodBinder first = mock(ActionMethodBinder.class);
+		ActionMethodBinder second = mock(ActionMethodBinder.class);
+		List<ParameterDescription> parameters = list(new ParameterDescription("req", HttpServletRequest.class));
+		ActionMethodBindingPlan plan = new ActionMethodBindingPlan(parameters, list(new RequestClassBinder(), first, second));
+		plan.bind(req, resp, pathVars);
+		verifyZeroInteractions(first, second);
+	}
+
+	@Test
+	public void shouldBeForTheBindersItWasCreatedFrom() {
+		Iterable<ActionMethodBinder> binders = registry.getRegisteredActionMethodBinders();
+		ActionMethodBindingPlan plan = new ActionMethodBindingPlan(Collections.<ParameterDescription> emptyList(), binders);
+		assertThat(plan.isFor(binders), is(true));
+		assertThat(plan.isFor(registry.getRegisteredActionMethodBinders()), is(true));
+
+		registry.deregisterActionMethodBinder(CookieBinder.class);
+		assertThat(plan.isFor(registry.getRegisteredActionMethodBinders()), is(false));
+	}
+
+	private EList<Class<?>> types(ActionMethodBindingPlan plan) {
+		EList<Class<?>> types = list();
+		for (ActionMethodBinder binder : plan.getBinders()) {
+			types.add(binder.getClass());
+		}
+		return types;
+	}
+}
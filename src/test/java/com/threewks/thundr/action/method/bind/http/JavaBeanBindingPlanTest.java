@@ -0,0 +1,219 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.method.bind.http;
+
+import static com.atomicleopard.expressive.Expressive.list;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.threewks.thundr.bind.DeepJavaBean;
+import com.threewks.thundr.bind.JavaBean;
+
+public class JavaBeanBindingPlanTest {
+
+	@Test
+	public void shouldCachePlanForType() {
+		assertThat(JavaBeanBindingPlan.forType(TestBean.class), is(sameInstance(JavaBeanBindingPlan.forType(TestBean.class))));
+		assertThat(JavaBeanBindingPlan.forType(JavaBean.class), is(not(sameInstance(JavaBeanBindingPlan.forType(TestBean.class)))));
+	}
+
+	@Test
+	public void shouldBindAndConvertSimpleProperties() {
+		TestBean bean = bind("name", "bean name", "count", "12", "amount", "3", "field", "public field");
+		assertThat(bean.getName(), is("bean name"));
+		assertThat(bean.getCount(), is(12));
+		assertThat(bean.getAmount(), is(3L));
+		assertThat(bean.field, is("public field"));
+	}
+
+	@Test
+	public void shouldJoinMultipleValuesForSimpleProperties() {
+		TestBean bean = bind("name", new String[] { "value1", "value2" });
+		assertThat(bean.getName(), is("value1,value2"));
+	}
+
+	@Test
+	public void shouldIgnoreValuesWhichCannotBeConvertedOrSet() {
+		TestBean bean = bind("count", "not a number", "readOnly", "value", "unknown", "value", "unknown.nested", "value", "name", "bean name");
+		assertThat(bean.getCount(), is(0));
+		assertThat(bean.getReadOnly(), is("initial"));
+		assertThat(bean.getName(), is("bean name"));
+	}
+
+	@Test
+	public void shouldBindNullValues() {
+		TestBean bean = new TestBean();
+		bean.setName("initial");
+		JavaBeanBindingPlan.forType(TestBean.class).bind(bean, data("name", null));
+		assertThat(bean.getName(), is(nullValue()));
+	}
+
+	@Test
+	public void shouldCreateAndBindNestedBeans() {
+		TestBean bean = bind("child.name", "child name", "child.child.count", "2");
+		assertThat(bean.getChild(), is(notNullValue()));
+		assertThat(bean.getChild().getName(), is("child name"));
+		assertThat(bean.getChild().getChild().getCount(), is(2));
+	}
+
+	@Test
+	public void shouldBindOntoExistingNestedBeans() {
+		TestBean bean = new TestBean();
+		TestBean child = new TestBean();
+		child.setCount(5);
+		bean.setChild(child);
+		JavaBeanBindingPlan.forType(TestBean.class).bind(bean, data("child.name", "child name"));
+		assertThat(bean.getChild(), is(sameInstance(child)));
+		assertThat(child.getName(), is("child name"));
+		assertThat(child.getCount(), is(5));
+	}
+
+	@Test
+	public void shouldBindIndexedListsConvertingToTheElementType() {
+		TestBean bean = bind("numbers[2]", "5", "numbers[0]", "1", "beans[1].name", "second", "beans[1].value", "value");
+		assertThat(bean.getNumbers(), is((List<Integer>) list(1, null, 5)));
+		assertThat(bean.getNumbers().get(0), is(instanceOf(Integer.class)));
+		assertThat(bean.getBeans(), is((List<JavaBean>) list(null, new JavaBean("second", "value"))));
+	}
+
+	@Test
+	public void shouldBindIndexedArrays() {
+		TestBean bean = bind("values[1]", "7", "children[1].name", "child");
+		assertThat(bean.getValues(), is(new int[] { 0, 7 }));
+		assertThat(bean.getChildren().length, is(2));
+		assertThat(bean.getChildren()[0], is(nullValue()));
+		assertThat(bean.getChildren()[1].getName(), is("child"));
+	}
+
+	@Test
+	public void shouldGrowExistingArrays() {
+		TestBean bean = new TestBean();
+		bean.setValues(new int[] { 1, 2 });
+		JavaBeanBindingPlan.forType(TestBean.class).bind(bean, data("values[3]", "4"));
+		assertThat(bean.getValues(), is(new int[] { 1, 2, 0, 4 }));
+	}
+
+	@Test
+	public void shouldBindDeepJavaBeans() {
+		DeepJavaBean bean = new DeepJavaBean();
+		JavaBeanBindingPlan.forType(DeepJavaBean.class).bind(bean, data("name", "deep", "beans[0].name", "first", "beans[1].value", "second"));
+		assertThat(bean, is(new DeepJavaBean("deep", list(new JavaBean("first", null), new JavaBean(null, "second")))));
+	}
+
+	private TestBean bind(Object... keysAndValues) {
+		TestBean bean = new TestBean();
+		JavaBeanBindingPlan.forType(TestBean.class).bind(bean, data(keysAndValues));
+		return bean;
+	}
+
+	private HttpPostDataMap data(Object... keysAndValues) {
+		Map<String, String[]> parameters = new LinkedHashMap<String, String[]>();
+		for (int i = 0; i < keysAndValues.length; i += 2) {
+			Object value = keysAndValues[i + 1];
+			parameters.put((String) keysAndValues[i], value == null ? null : value instanceof String[] ? (String[]) value : new String[] { (String) value });
+		}
+		return new HttpPostDataMap(parameters);
+	}
+
+	public static class TestBean {
+		public String field;
+		private String name;
+		private int count;
+		private Long amount;
+		private String readOnly = "initial";
+		private TestBean child;
+		private List<Integer> numbers;
+		private List<JavaBean> beans;
+		private int[] values;
+		private TestBean[] children;
+
+		public String getName() {
+			return name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public int getCount() {
+			return count;
+		}
+
+		public void setCount(int count) {
+			this.count = count;
+		}
+
+		public Long getAmount() {
+			return amount;
+		}
+
+		public void setAmount(Long amount) {
+			this.amount = amount;
+		}
+
+		public String getReadOnly() {
+			return readOnly;
+		}
+
+		public TestBean getChild() {
+			return child;
+		}
+
+		public void setChild(TestBean child) {
+			this.child = child;
+		}
+
+		public List<Integer> getNumbers() {
+			return numbers;
+		}
+
+		public void setNumbers(List<Integer> numbers) {
+			this.numbers = numbers;
+		}
+
+		public List<JavaBean> getBeans() {
+			return beans;
+		}
+
+		public void setBeans(List<JavaBean> beans) {
+			this.beans = beans;
+		}
+
+		public int[] getValues() {
+			return values;
+		}
+
+		public void setValues(int[] values) {
+			this.values = values;
+		}
+
+		public TestBean[] getChildren() {
+			return children;
+		}
+
+		public void setChildren(TestBean[] children) {
+			this.children = children;
+		}
+	}
+}
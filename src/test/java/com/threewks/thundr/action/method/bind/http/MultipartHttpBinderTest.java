@@ -29,7 +29,9 @@ import org.apache.commons.fileupload.FileItemStream;
 import org.apache.commons.fileupload.FileUploadException;
 import org.apache.commons.fileupload.servlet.ServletFileUpload;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -37,6 +39,7 @@ import org.mockito.stubbing.Answer;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
@@ -47,6 +50,8 @@ import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.*;
 
 public class MultipartHttpBinderTest {
+	@Rule public TemporaryFolder tempFolder = new TemporaryFolder();
+
 	private MultipartHttpBinder binder = new MultipartHttpBinder();
 	private MockHttpServletRequest request = new MockHttpServletRequest().contentType(ContentType.MultipartFormData);
 	private MockHttpServletResponse response = new MockHttpServletResponse();
@@ -201,6 +206,106 @@ public class MultipartHttpBinderTest {
 		assertThat(binder.shouldTryToBind(parameterDescriptions), is(false));
 	}
 
+	@Test
+	public void shouldHoldFilesUpToTheMemoryThresholdInMemory() {
+		binder.setMemoryThreshold(3);
+		ParameterDescription data = new ParameterDescription("data", MultipartFile.class);
+		addFileField("data", new byte[] { 1, 2, 3 });
+		parameterDescriptions.put(data, null);
+
+		binder.bindAll(parameterDescriptions, request, response, pathVariables);
+
+		MultipartFile file = (MultipartFile) parameterDescriptions.get(data);
+		assertThat(file.isInMemory(), is(true));
+		assertThat(file.getFile(), is(nullValue()));
+		assertThat(file.getSize(), is(3L));
+		assertThat(file.getData(), is(new byte[] { 1, 2, 3 }));
+	}
+
+	@Test
+	public void shouldSpoolFilesLargerThanTheMemoryThresholdToDisk() throws IOException {
+		File spoolDirectory = tempFolder.newFolder();
+		binder.setMemoryThreshold(3);
+		binder.setSpoolDirectory(spoolDirectory);
+		ParameterDescription data = new ParameterDescription("data", MultipartFile.class);
+		ParameterDescription field1 = new ParameterDescription("field1", String.class);
+		addFileField("data", new byte[] { 1, 2, 3, 4, 5 });
+		addFormField("field1", "value1");
+		parameterDescriptions.put(data, null);
+		parameterDescriptions.put(field1, null);
+
+		binder.bindAll(parameterDescriptions, request, response, pathVariables);
+
+		MultipartFile file = (MultipartFile) parameterDescriptions.get(data);
+		assertThat(file.isInMemory(), is(false));
+		assertThat(file.getFile().getParentFile(), is(spoolDirectory));
+		assertThat(file.getFile().length(), is(5L));
+		assertThat(file.getSize(), is(5L));
+		assertThat(file.getData(), is(new byte[] { 1, 2, 3, 4, 5 }));
+		assertThat(Streams.readBytes(file.getInputStream()), is(new byte[] { 1, 2, 3, 4, 5 }));
+		assertThat(parameterDescriptions.get(field1), is((Object) "value1"));
+	}
+
+	@Test
+	public void shouldBindInputStreamFromSpooledFile() throws IOException {
+		binder.setMemoryThreshold(1);
+		binder.setSpoolDirectory(tempFolder.newFolder());
+		ParameterDescription data = new ParameterDescription("data", InputStream.class);
+		addFileField("data", new byte[] { 1, 2, 3 });
+		parameterDescriptions.put(data, null);
+
+		binder.bindAll(parameterDescriptions, request, response, pathVariables);
+
+		InputStream inputStream = (InputStream) parameterDescriptions.get(data);
+		assertThat(Streams.readBytes(inputStream), is(new byte[] { 1, 2, 3 }));
+		inputStream.close();
+	}
+
+	@Test
+	public void shouldDeleteSpooledFilesAtTheEndOfTheRequest() throws IOException {
+		File spoolDirectory = tempFolder.newFolder();
+		binder.setMemoryThreshold(1);
+		binder.setSpoolDirectory(spoolDirectory);
+		ParameterDescription data = new ParameterDescription("data", MultipartFile.class);
+		ParameterDescription other = new ParameterDescription("other", MultipartFile.class);
+		addFileField("data", new byte[] { 1, 2, 3 });
+		addFileField("other", new byte[] { 4, 5, 6 });
+		parameterDescriptions.put(data, null);
+		parameterDescriptions.put(other, null);
+
+		binder.bindAll(parameterDescriptions, request, response, pathVariables);
+		assertThat(spoolDirectory.list().length, is(2));
+
+		MultipartHttpBinder.deleteSpooledFiles(request);
+		assertThat(spoolDirectory.list().length, is(0));
+
+		// no spooled files
+		MultipartHttpBinder.deleteSpooledFiles(request);
+		MultipartHttpBinder.deleteSpooledFiles(new MockHttpServletRequest());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void shouldBindLiveFileItemIteratorWithoutReadingParts() throws Exception {
+		ParameterDescription field1 = new ParameterDescription("field1", String.class);
+		ParameterDescription parts = new ParameterDescription("parts", FileItemIterator.class);
+		addFormField("field1", "value1");
+		addFileField("data", new byte[] { 1, 2, 3 });
+		parameterDescriptions.put(field1, null);
+		parameterDescriptions.put(parts, null);
+
+		binder = spy(binder);
+		binder.bindAll(parameterDescriptions, request, response, pathVariables);
+
+		verify(binder, times(0)).extractParameters(Mockito.any(HttpServletRequest.class), Mockito.anyMap(), Mockito.anyMapOf(String.class, MultipartFile.class));
+		assertThat(parameterDescriptions.get(field1), is(nullValue()));
+		FileItemIterator iterator = (FileItemIterator) parameterDescriptions.get(parts);
+		assertThat(iterator.hasNext(), is(true));
+		assertThat(iterator.next().getFieldName(), is("field1"));
+		assertThat(iterator.next().getFieldName(), is("data"));
+		assertThat(iterator.hasNext(), is(false));
+	}
+
 	@Test
 	public void shouldFindRequestAsMultipart() {
 		assertThat(ContentType.anyMatch(list(ContentType.MultipartFormData), "multipart/form-data; boundary=127.0.0.1.1002.16893.1359095066.582.122048"), is(true));
@@ -21,6 +21,10 @@ import static com.atomicleopard.expressive.Expressive.map;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
 
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collections;
 import java.util.Map;
 
 import org.junit.After;
@@ -101,6 +105,34 @@ public class ParameterBinderSetTest {
 		ParameterBinderSet.unregisterGlobalBinder((ParameterBinder<?>) null);
 	}
 
+	@Test
+	public void shouldReuseSharedParameterBinderSetUntilGlobalBindersChange() {
+		ParameterBinderSet shared = ParameterBinderSet.shared();
+		assertThat(ParameterBinderSet.shared(), is(sameInstance(shared)));
+
+		registeredBinder = new TestParameterBinder();
+		Map<String, String[]> map = map("bind", new String[] { "bound!" });
+		assertThat(shared.createFor(new ParameterDescription("bind", TestBindable.class), new HttpPostDataMap(map)), is(nullValue()));
+
+		ParameterBinderSet.registerGlobalBinder(registeredBinder);
+		ParameterBinderSet updated = ParameterBinderSet.shared();
+		assertThat(updated, is(not(sameInstance(shared))));
+		assertThat(updated.createFor(new ParameterDescription("bind", TestBindable.class), new HttpPostDataMap(map)), is((Object) new TestBindable("bound!")));
+
+		ParameterBinderSet.unregisterGlobalBinder(registeredBinder);
+		assertThat(ParameterBinderSet.shared().createFor(new ParameterDescription("bind", TestBindable.class), new HttpPostDataMap(map)), is(nullValue()));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void shouldNotAllowAdditionOfBindersToSharedParameterBinderSet() {
+		ParameterBinderSet.shared().addBinder(new TestParameterBinder());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void shouldNotAllowAdditionOfBinaryBindersToSharedParameterBinderSet() {
+		ParameterBinderSet.shared().addBinder(new ByteArrayBinaryParameterBinder());
+	}
+
 	private static class TestBindable {
 		private String value;
 
@@ -151,4 +183,27 @@ public class ParameterBinderSetTest {
 			return obj == null ? false : this.getClass() == obj.getClass();
 		}
 	}
+
+	@Test
+	public void shouldNotPreventBoundParameterTypesBeingUnloaded() throws Exception {
+		WeakReference<ClassLoader> classLoader = bindIsolatedClass();
+
+		for (int i = 0; i < 50 && classLoader.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertThat(classLoader.get(), is(nullValue()));
+	}
+
+	private WeakReference<ClassLoader> bindIsolatedClass() throws Exception {
+		URL classes = IsolatedBean.class.getProtectionDomain().getCodeSource().getLocation();
+		ClassLoader isolated = new URLClassLoader(new URL[] { classes }, null);
+		Class<?> type = isolated.loadClass(IsolatedBean.class.getName());
+		Map<String, String[]> map = Collections.emptyMap();
+		ParameterBinderSet.shared().createFor(new ParameterDescription("bean", type), new HttpPostDataMap(map));
+		return new WeakReference<ClassLoader>(isolated);
+	}
+
+	public static class IsolatedBean {
+	}
 }
@@ -263,4 +263,44 @@ public class GsonBinderTest {
 
 		verify(req, never()).getInputStream();
 	}
+
+	@Test
+	public void shouldSkipUnmatchedMembersWhenBindingJsonToExplodedParameters() {
+		ParameterDescription stringParameterDescription = new ParameterDescription("name", String.class);
+		ParameterDescription intParameterDescription = new ParameterDescription("value", int.class);
+		Map<ParameterDescription, Object> bindings = mapKeys(intParameterDescription, stringParameterDescription).to(null, null);
+		req.content("{ \"ignored\": { \"nested\": [1, 2, { \"name\": \"wrong\" }] }, \"name\": \"pojo name\", \"other\": [\"a\", null, true], \"value\": 5, \"last\": \"skipped\" }");
+
+		gsonBinder.bindAll(bindings, req, resp, pathVariables);
+
+		assertThat(bindings.get(stringParameterDescription), is((Object) "pojo name"));
+		assertThat(bindings.get(intParameterDescription), is((Object) 5));
+	}
+
+	@Test
+	public void shouldBindNullMembersToExplodedParameters() {
+		ParameterDescription longParameterDescription = new ParameterDescription("value", Long.class);
+		ParameterDescription responseParameterDescription = new ParameterDescription("response", HttpServletResponse.class);
+		ParameterDescription stringParameterDescription = new ParameterDescription("name", String.class);
+		Map<ParameterDescription, Object> bindings = mapKeys(longParameterDescription, responseParameterDescription, stringParameterDescription).<Object> to(null, resp, null);
+		req.content("{ \"value\": 12, \"name\": null }");
+
+		gsonBinder.bindAll(bindings, req, resp, pathVariables);
+
+		assertThat(bindings.get(longParameterDescription), is((Object) 12L));
+		assertThat(bindings.get(stringParameterDescription), is(nullValue()));
+	}
+
+	@Test
+	public void shouldThrowBindExceptionIfJsonBodyIsNotAnObjectWhenBindingExplodedParameters() {
+		thrown.expect(BindException.class);
+		thrown.expectMessage("Failed to bind JSON:");
+
+		ParameterDescription stringParameterDescription = new ParameterDescription("name", String.class);
+		ParameterDescription intParameterDescription = new ParameterDescription("value", int.class);
+		Map<ParameterDescription, Object> bindings = mapKeys(intParameterDescription, stringParameterDescription).to(null, null);
+		req.content("[ \"pojo name\", 5 ]");
+
+		gsonBinder.bindAll(bindings, req, resp, pathVariables);
+	}
 }
@@ -18,20 +18,24 @@
 package com.threewks.thundr.action.method.bind.request;
 
 import static com.atomicleopard.expressive.Expressive.map;
-import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.Date;
 import java.util.Map;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import com.atomicleopard.expressive.Expressive;
+import com.threewks.thundr.bind.JavaBean;
 import com.threewks.thundr.introspection.ParameterDescription;
 import com.threewks.thundr.test.mock.servlet.MockHttpServletRequest;
 import com.threewks.thundr.test.mock.servlet.MockHttpServletResponse;
@@ -177,4 +181,72 @@ public class SessionAttributeBinderTest {
 		assertThat(parameterDescriptions.get(param12), is((Object) new BigDecimal("12.00")));
 		assertThat(parameterDescriptions.get(param13), is((Object) BigInteger.valueOf(13)));
 	}
+
+	@Test
+	public void shouldBindJavaBeanFromDottedSessionAttributesByDefault() {
+		ParameterDescription beanParam = new ParameterDescription("bean", JavaBean.class);
+		bindings.put(beanParam, null);
+		session.setAttribute("bean.name", "name");
+		session.setAttribute("bean.value", "value");
+		binder.bindAll(bindings, req, resp, pathVariables);
+
+		assertThat(bindings.get(beanParam), is((Object) new JavaBean("name", "value")));
+	}
+
+	@Test
+	public void shouldCreateSessionAndApplyToAllActionsByDefault() {
+		MockHttpServletRequest req = spy(new MockHttpServletRequest());
+		binder.bindAll(bindings, req, resp, pathVariables);
+		verify(req).getSession();
+
+		ParameterDescription requestParam = new ParameterDescription("req", HttpServletRequest.class);
+		assertThat(binder.isLean(), is(false));
+		assertThat(binder.canBindAny(Expressive.list(requestParam)), is(true));
+	}
+
+	@Test
+	public void shouldNotCreateSessionWhenNoneExistsInLeanMode() {
+		binder.setLean(true);
+		MockHttpServletRequest req = spy(new MockHttpServletRequest());
+		ParameterDescription varParam = new ParameterDescription("var", String.class);
+		bindings.put(varParam, null);
+
+		binder.bindAll(bindings, req, resp, pathVariables);
+
+		assertThat(bindings.get(varParam), is(nullValue()));
+		verify(req).getSession(false);
+		verify(req, never()).getSession();
+		verify(req, never()).getSession(true);
+	}
+
+	@Test
+	public void shouldOnlyReadSessionAttributesForUnboundParametersInLeanMode() {
+		binder = new SessionAttributeBinder(true);
+		HttpSession session = mock(HttpSession.class);
+		when(session.getAttribute("var")).thenReturn("expected");
+		req.session(session);
+		ParameterDescription varParam = new ParameterDescription("var", String.class);
+		ParameterDescription boundParam = new ParameterDescription("bound", String.class);
+		bindings.put(varParam, null);
+		bindings.put(boundParam, "bound");
+
+		binder.bindAll(bindings, req, resp, pathVariables);
+
+		assertThat(bindings.get(varParam), is((Object) "expected"));
+		verify(session).getAttribute("var");
+		verify(session, never()).getAttribute("bound");
+		verify(session, never()).getAttributeNames();
+	}
+
+	@Test
+	public void shouldOnlyBindWhenParametersCanComeFromSessionInLeanMode() {
+		binder.setLean(true);
+		ParameterDescription requestParam = new ParameterDescription("req", HttpServletRequest.class);
+		ParameterDescription responseParam = new ParameterDescription("resp", HttpServletResponse.class);
+		ParameterDescription varParam = new ParameterDescription("var", String.class);
+
+		assertThat(binder.canBindAny(Expressive.list(requestParam, responseParam)), is(false));
+		assertThat(binder.canBindAny(Expressive.list(requestParam, varParam)), is(true));
+		assertThat(binder.canBindAny(Expressive.<ParameterDescription> list()), is(false));
+	}
 }
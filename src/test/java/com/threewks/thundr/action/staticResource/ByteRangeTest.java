@@ -0,0 +1,75 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.staticResource;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class ByteRangeTest {
+
+	@Test
+	public void shouldParseBoundedRange() {
+		ByteRange range = ByteRange.parse("bytes=0-499", 1000);
+		assertThat(range.getStart(), is(0L));
+		assertThat(range.getEnd(), is(499L));
+		assertThat(range.getCount(), is(500L));
+		assertThat(range.getLength(), is(1000L));
+		assertThat(range.isSatisfiable(), is(true));
+		assertThat(range.getContentRange(), is("bytes 0-499/1000"));
+	}
+
+	@Test
+	public void shouldParseOpenEndedRange() {
+		ByteRange range = ByteRange.parse("bytes=500-", 1000);
+		assertThat(range.getContentRange(), is("bytes 500-999/1000"));
+		assertThat(range.getCount(), is(500L));
+	}
+
+	@Test
+	public void shouldParseSuffixRange() {
+		assertThat(ByteRange.parse("bytes=-100", 1000).getContentRange(), is("bytes 900-999/1000"));
+		assertThat(ByteRange.parse("bytes=-2000", 1000).getContentRange(), is("bytes 0-999/1000"));
+	}
+
+	@Test
+	public void shouldLimitRangeEndToResourceLength() {
+		assertThat(ByteRange.parse("bytes=900-2000", 1000).getContentRange(), is("bytes 900-999/1000"));
+	}
+
+	@Test
+	public void shouldBeUnsatisfiableWhenRangeStartsBeyondResource() {
+		ByteRange range = ByteRange.parse("bytes=1000-", 1000);
+		assertThat(range.isSatisfiable(), is(false));
+		assertThat(range.getContentRange(), is("bytes */1000"));
+		assertThat(ByteRange.parse("bytes=-0", 1000).isSatisfiable(), is(false));
+		assertThat(ByteRange.parse("bytes=0-", 0).isSatisfiable(), is(false));
+	}
+
+	@Test
+	public void shouldIgnoreMultipleOrInvalidRanges() {
+		assertThat(ByteRange.parse(null, 1000), is(nullValue()));
+		assertThat(ByteRange.parse("bytes=0-1,5-6", 1000), is(nullValue()));
+		assertThat(ByteRange.parse("items=0-1", 1000), is(nullValue()));
+		assertThat(ByteRange.parse("bytes=a-b", 1000), is(nullValue()));
+		assertThat(ByteRange.parse("bytes=10", 1000), is(nullValue()));
+		assertThat(ByteRange.parse("bytes=10-5", 1000), is(nullValue()));
+		assertThat(ByteRange.parse("bytes=-", 1000), is(nullValue()));
+	}
+}
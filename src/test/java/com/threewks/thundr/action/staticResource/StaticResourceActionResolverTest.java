@@ -22,13 +22,24 @@ import static org.junit.Assert.*;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.Map;
 
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
 
+import jodd.io.FileUtil;
+
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import com.atomicleopard.expressive.Expressive;
 import com.threewks.thundr.exception.BaseException;
@@ -47,6 +58,10 @@ public class StaticResourceActionResolverTest {
 	private MockHttpServletResponse resp = new MockHttpServletResponse();
 	private Map<String, String> pathVars = Expressive.<String, String> map();
 
+	@Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private static final String Css = "body { color: red; } p { color: blue; } body { color: red; } p { color: blue; }";
+
 	@Test
 	public void shouldMatchActionNameOfStatic() {
 		assertThat(resolver.createActionIfPossible("static"), is(notNullValue()));
@@ -173,4 +188,359 @@ public class StaticResourceActionResolverTest {
 		assertThat(resp.isCommitted(), is(true));
 		assertThat(resp.status(), is(404));
 	}
+
+	@Test
+	public void shouldServeResourceAndCacheIt() throws Exception {
+		ServletContext servletContext = servletContextFor("/style.css", Css);
+		resolver = new StaticResourceActionResolver(servletContext);
+		req.url("/style.css");
+
+		resolver.serve(action, req, resp);
+
+		assertThat(resp.status(), is(200));
+		assertThat(resp.content(), is(Css));
+		assertThat(resp.getContentType(), is("text/css"));
+		assertThat(resp.getContentLength(), is(Css.length()));
+		assertThat(resp.<String> header("Vary"), is("Accept-Encoding"));
+		assertThat(resp.<String> header("ETag"), is(resolver.getCache().get("/style.css").getETag(false)));
+		assertThat(resp.<String> header("Last-Modified"), is(notNullValue()));
+		assertThat(resp.<String> header("Cache-Control"), is("max-age=86400, public"));
+
+		MockHttpServletResponse secondResp = new MockHttpServletResponse();
+		resolver.serve(action, req, secondResp);
+		assertThat(secondResp.status(), is(200));
+		assertThat(secondResp.content(), is(Css));
+		verify(servletContext, times(1)).getResource("/style.css");
+	}
+
+	@Test
+	public void shouldReloadCachedResourceWhenItsFileChanges() throws Exception {
+		File file = temporaryFolder.newFile();
+		FileUtil.writeString(file, Css);
+		ServletContext servletContext = mock(ServletContext.class);
+		when(servletContext.getResource("/style.css")).thenReturn(file.toURI().toURL());
+		resolver = new StaticResourceActionResolver(servletContext);
+		req.url("/style.css");
+		resolver.serve(action, req, resp);
+		assertThat(resp.content(), is(Css));
+
+		String changed = "body { color: green; }";
+		FileUtil.writeString(file, changed);
+		file.setLastModified(file.lastModified() - 10000);
+		MockHttpServletResponse secondResp = new MockHttpServletResponse();
+		resolver.serve(action, req, secondResp);
+
+		assertThat(secondResp.content(), is(changed));
+		assertThat(secondResp.getContentLength(), is(changed.length()));
+		assertThat(resolver.getCache().get("/style.css").isModified(), is(false));
+		verify(servletContext, times(2)).getResource("/style.css");
+	}
+
+	@Test
+	public void shouldServeGzippedVariantWhenClientAcceptsGzip() throws Exception {
+		resolver = new StaticResourceActionResolver(servletContextFor("/style.css", Css));
+		req.url("/style.css");
+		req.header("Accept-Encoding", "gzip,deflate");
+
+		resolver.serve(action, req, resp);
+
+		StaticResource staticResource = resolver.getCache().get("/style.css");
+		assertThat(resp.status(), is(200));
+		assertThat(resp.<String> header("Content-Encoding"), is("gzip"));
+		assertThat(resp.<String> header("ETag"), is(staticResource.getETag(true)));
+		assertThat(resp.getContentLength(), is(staticResource.getContent(true).length));
+		assertThat(resp.getContentLength() < Css.length(), is(true));
+	}
+
+	@Test
+	public void shouldNotServeGzippedVariantForMimeTypesWhichAreNotCompressed() throws Exception {
+		resolver = new StaticResourceActionResolver(servletContextFor("/image.png", Css));
+		req.url("/image.png");
+		req.header("Accept-Encoding", "gzip");
+
+		resolver.serve(action, req, resp);
+
+		assertThat(resp.<String> header("Content-Encoding"), is(nullValue()));
+		assertThat(resp.<String> header("Vary"), is(nullValue()));
+		assertThat(resp.content(), is(Css));
+	}
+
+	@Test
+	public void shouldRespondNotModifiedWhenIfNoneMatchMatchesETag() throws Exception {
+		resolver = new StaticResourceActionResolver(servletContextFor("/style.css", Css));
+		req.url("/style.css");
+		resolver.serve(action, req, resp);
+		String etag = resp.header("ETag");
+
+		MockHttpServletResponse conditionalResp = new MockHttpServletResponse();
+		req.header("If-None-Match", "\"other\", " + etag);
+		resolver.serve(action, req, conditionalResp);
+
+		assertThat(conditionalResp.status(), is(304));
+		assertThat(conditionalResp.<String> header("ETag"), is(etag));
+		assertThat(conditionalResp.<String> header("Vary"), is("Accept-Encoding"));
+		assertThat(conditionalResp.getContentLength(), is(0));
+		assertThat(conditionalResp.isCommitted(), is(false));
+	}
+
+	@Test
+	public void shouldServeContentWhenIfNoneMatchDoesNotMatchEvenIfNotModifiedSince() throws Exception {
+		resolver = new StaticResourceActionResolver(servletContextFor("/style.css", Css));
+		req.url("/style.css");
+		req.header("If-None-Match", "\"other\"");
+		req.header("If-Modified-Since", "Thu, 01 Jan 2037 00:00:00 GMT");
+
+		resolver.serve(action, req, resp);
+
+		assertThat(resp.status(), is(200));
+		assertThat(resp.content(), is(Css));
+	}
+
+	@Test
+	public void shouldRespondNotModifiedWhenNotModifiedSince() throws Exception {
+		resolver = new StaticResourceActionResolver(servletContextFor("/style.css", Css));
+		req.url("/style.css");
+		req.header("If-Modified-Since", "Thu, 01 Jan 2037 00:00:00 GMT");
+
+		resolver.serve(action, req, resp);
+
+		assertThat(resp.status(), is(304));
+	}
+
+	@Test
+	public void shouldServeContentWhenModifiedSince() throws Exception {
+		resolver = new StaticResourceActionResolver(servletContextFor("/style.css", Css));
+		req.url("/style.css");
+		req.header("If-Modified-Since", "Thu, 01 Jan 1970 00:00:00 GMT");
+
+		resolver.serve(action, req, resp);
+
+		assertThat(resp.status(), is(200));
+		assertThat(resp.content(), is(Css));
+	}
+
+	@Test
+	public void shouldIgnoreInvalidIfModifiedSince() throws Exception {
+		resolver = new StaticResourceActionResolver(servletContextFor("/style.css", Css));
+		req.url("/style.css");
+		req.header("If-Modified-Since", "not a date");
+
+		resolver.serve(action, req, resp);
+
+		assertThat(resp.status(), is(200));
+	}
+
+	@Test
+	public void shouldTransferFilesLargerThanMaxCachedResourceSizeWithoutCachingThem() throws Exception {
+		ServletContext servletContext = servletContextFor("/style.css", Css);
+		resolver = new StaticResourceActionResolver(servletContext);
+		resolver.setMaxCachedResourceSize(10);
+		req.url("/style.css");
+
+		resolver.serve(action, req, resp);
+
+		assertThat(resp.status(), is(200));
+		assertThat(resp.content(), is(Css));
+		assertThat(resp.<String> header("Content-Length"), is(Integer.toString(Css.length())));
+		assertThat(resp.<String> header("Vary"), is("Accept-Encoding"));
+		assertThat(resolver.getCache().count(), is(0));
+	}
+
+	@Test
+	public void shouldNotCacheWhenCacheSizeIsZero() throws Exception {
+		ServletContext servletContext = servletContextFor("/style.css", Css);
+		resolver = new StaticResourceActionResolver(servletContext);
+		resolver.setCacheSize(0);
+		req.url("/style.css");
+
+		resolver.serve(action, req, resp);
+		resolver.serve(action, req, new MockHttpServletResponse());
+
+		assertThat(resp.content(), is(Css));
+		verify(servletContext, times(2)).getResource("/style.css");
+	}
+
+	@Test
+	public void shouldServeRangeOfCachedResource() throws Exception {
+		resolver = new StaticResourceActionResolver(servletContextFor("/style.css", Css));
+		req.url("/style.css");
+		req.header("Range", "bytes=5-10");
+		req.header("Accept-Encoding", "gzip");
+
+		resolver.serve(action, req, resp);
+
+		assertThat(resp.status(), is(206));
+		assertThat(resp.content(), is(Css.substring(5, 11)));
+		assertThat(resp.getContentLength(), is(6));
+		assertThat(resp.<String> header("Content-Range"), is("bytes 5-10/" + Css.length()));
+		assertThat(resp.<String> header("Content-Encoding"), is(nullValue()));
+		assertThat(resp.<String> header("Accept-Ranges"), is("bytes"));
+	}
+
+	@Test
+	public void shouldServeRangeOfFile() throws Exception {
+		resolver = new StaticResourceActionResolver(servletContextFor("/style.css", Css));
+		resolver.setMaxCachedResourceSize(10);
+		req.url("/style.css");
+		req.header("Range", "bytes=-6");
+
+		resolver.serve(action, req, resp);
+
+		assertThat(resp.status(), is(206));
+		assertThat(resp.content(), is(Css.substring(Css.length() - 6)));
+		assertThat(resp.<String> header("Content-Length"), is("6"));
+		assertThat(resp.<String> header("Content-Range"), is(String.format("bytes %d-%d/%d", Css.length() - 6, Css.length() - 1, Css.length())));
+		assertThat(resp.<String> header("ETag"), is(notNullValue()));
+	}
+
+	@Test
+	public void shouldTransferFileToContainerOutputStreamWhenItIsAChannel() throws Exception {
+		resolver = new StaticResourceActionResolver(servletContextFor("/style.css", Css));
+		resolver.setMaxCachedResourceSize(10);
+		req.url("/style.css");
+		req.header("Range", "bytes=2-");
+		ChannelOutputStream os = new ChannelOutputStream();
+		HttpServletResponse response = mock(HttpServletResponse.class);
+		when(response.getOutputStream()).thenReturn(os);
+
+		resolver.serve(action, req, response);
+
+		assertThat(new String(os.written.toByteArray(), "UTF-8"), is(Css.substring(2)));
+		assertThat(os.channelWrites > 0, is(true));
+		assertThat(os.streamWrites, is(0));
+	}
+
+	@Test
+	public void shouldRespondRangeNotSatisfiableWhenRangeIsOutsideResource() throws Exception {
+		resolver = new StaticResourceActionResolver(servletContextFor("/style.css", Css));
+		req.url("/style.css");
+		req.header("Range", "bytes=" + Css.length() + "-");
+
+		resolver.serve(action, req, resp);
+
+		assertThat(resp.status(), is(416));
+		assertThat(resp.<String> header("Content-Range"), is("bytes */" + Css.length()));
+		assertThat(resp.isCommitted(), is(false));
+	}
+
+	@Test
+	public void shouldServeWholeResourceWhenIfRangeDoesNotMatch() throws Exception {
+		resolver = new StaticResourceActionResolver(servletContextFor("/style.css", Css));
+		req.url("/style.css");
+		req.header("Range", "bytes=5-10");
+		req.header("If-Range", "\"stale\"");
+
+		resolver.serve(action, req, resp);
+
+		assertThat(resp.status(), is(200));
+		assertThat(resp.content(), is(Css));
+		assertThat(resp.<String> header("Content-Range"), is(nullValue()));
+	}
+
+	@Test
+	public void shouldServeRangeWhenIfRangeMatchesETag() throws Exception {
+		resolver = new StaticResourceActionResolver(servletContextFor("/style.css", Css));
+		resolver.setMaxCachedResourceSize(10);
+		req.url("/style.css");
+		resolver.serve(action, req, resp);
+		String etag = resp.header("ETag");
+
+		MockHttpServletResponse rangeResp = new MockHttpServletResponse();
+		req.header("Range", "bytes=0-3");
+		req.header("If-Range", etag);
+		resolver.serve(action, req, rangeResp);
+
+		assertThat(rangeResp.status(), is(206));
+		assertThat(rangeResp.content(), is(Css.substring(0, 4)));
+	}
+
+	@Test
+	public void shouldRespondNotModifiedForFileWhenIfNoneMatchMatchesETag() throws Exception {
+		resolver = new StaticResourceActionResolver(servletContextFor("/style.css", Css));
+		resolver.setMaxCachedResourceSize(10);
+		req.url("/style.css");
+		resolver.serve(action, req, resp);
+
+		MockHttpServletResponse conditionalResp = new MockHttpServletResponse();
+		req.header("If-None-Match", resp.<String> header("ETag"));
+		resolver.serve(action, req, conditionalResp);
+
+		assertThat(conditionalResp.status(), is(304));
+	}
+
+	@Test
+	public void shouldSendHeadersWithoutContentForHeadRequestOfCachedResource() throws Exception {
+		resolver = new StaticResourceActionResolver(servletContextFor("/style.css", Css));
+		req.url("/style.css");
+		req.method("HEAD");
+		req.header("Range", "bytes=5-10");
+
+		resolver.serve(action, req, resp);
+
+		assertThat(resp.status(), is(200));
+		assertThat(resp.content(), is(""));
+		assertThat(resp.getContentType(), is("text/css"));
+		assertThat(resp.getContentLength(), is(Css.length()));
+		assertThat(resp.<String> header("ETag"), is(resolver.getCache().get("/style.css").getETag(false)));
+		assertThat(resp.<String> header("Content-Range"), is(nullValue()));
+	}
+
+	@Test
+	public void shouldSendHeadersWithoutContentForHeadRequestOfFile() throws Exception {
+		resolver = new StaticResourceActionResolver(servletContextFor("/style.css", Css));
+		resolver.setMaxCachedResourceSize(10);
+		req.url("/style.css");
+		req.method("HEAD");
+
+		resolver.serve(action, req, resp);
+
+		assertThat(resp.status(), is(200));
+		assertThat(resp.content(), is(""));
+		assertThat(resp.<String> header("Content-Length"), is(Integer.toString(Css.length())));
+		assertThat(resp.<String> header("ETag"), is(notNullValue()));
+	}
+
+	@Test
+	public void shouldOnlyTreatReadableFileUrlsAsFiles() throws Exception {
+		File file = temporaryFolder.newFile();
+		assertThat(resolver.toReadableFile(file.toURI().toURL()), is(file));
+		assertThat(resolver.toReadableFile(temporaryFolder.getRoot().toURI().toURL()), is(nullValue()));
+		assertThat(resolver.toReadableFile(new File(temporaryFolder.getRoot(), "missing").toURI().toURL()), is(nullValue()));
+		assertThat(resolver.toReadableFile(new URL("http://localhost/style.css")), is(nullValue()));
+	}
+
+	private static class ChannelOutputStream extends ServletOutputStream implements WritableByteChannel {
+		private ByteArrayOutputStream written = new ByteArrayOutputStream();
+		private int channelWrites = 0;
+		private int streamWrites = 0;
+
+		@Override
+		public void write(int b) throws IOException {
+			streamWrites++;
+			written.write(b);
+		}
+
+		@Override
+		public int write(ByteBuffer src) throws IOException {
+			channelWrites++;
+			int count = src.remaining();
+			byte[] bytes = new byte[count];
+			src.get(bytes);
+			written.write(bytes);
+			return count;
+		}
+
+		@Override
+		public boolean isOpen() {
+			return true;
+		}
+	}
+
+	private ServletContext servletContextFor(String path, String content) throws IOException {
+		File file = temporaryFolder.newFile();
+		FileUtil.writeString(file, content);
+		ServletContext servletContext = mock(ServletContext.class);
+		when(servletContext.getResource(path)).thenReturn(file.toURI().toURL());
+		return servletContext;
+	}
 }
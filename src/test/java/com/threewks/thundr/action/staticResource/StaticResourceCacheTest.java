@@ -0,0 +1,138 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.staticResource;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class StaticResourceCacheTest {
+
+	@Test
+	public void shouldCacheResourcesByKey() {
+		StaticResourceCache cache = new StaticResourceCache(100);
+		StaticResource resource = resource(10);
+		assertThat(cache.put("/a.css", resource), is(true));
+
+		assertThat(cache.get("/a.css"), is(sameInstance(resource)));
+		assertThat(cache.get("/b.css"), is(nullValue()));
+		assertThat(cache.count(), is(1));
+		assertThat(cache.size(), is(10L));
+		assertThat(cache.capacity(), is(100L));
+	}
+
+	@Test
+	public void shouldEvictLeastRecentlyUsedResourcesWhenCapacityExceeded() {
+		StaticResourceCache cache = new StaticResourceCache(100);
+		cache.put("/a.css", resource(40));
+		cache.put("/b.css", resource(40));
+		cache.get("/a.css");
+		cache.put("/c.css", resource(40));
+
+		assertThat(cache.get("/a.css"), is(notNullValue()));
+		assertThat(cache.get("/b.css"), is(nullValue()));
+		assertThat(cache.get("/c.css"), is(notNullValue()));
+		assertThat(cache.size(), is(80L));
+
+		cache.put("/d.css", resource(100));
+		assertThat(cache.count(), is(1));
+		assertThat(cache.size(), is(100L));
+	}
+
+	@Test
+	public void shouldNotCacheResourcesLargerThanCapacity() {
+		StaticResourceCache cache = new StaticResourceCache(100);
+		cache.put("/a.css", resource(40));
+
+		assertThat(cache.put("/b.css", resource(101)), is(false));
+		assertThat(cache.get("/b.css"), is(nullValue()));
+		assertThat(cache.get("/a.css"), is(notNullValue()));
+		assertThat(cache.size(), is(40L));
+	}
+
+	@Test
+	public void shouldCacheNothingWhenCapacityIsZero() {
+		StaticResourceCache cache = new StaticResourceCache(0);
+		assertThat(cache.put("/a.css", resource(1)), is(false));
+		assertThat(cache.count(), is(0));
+	}
+
+	@Test
+	public void shouldReplaceExistingResourceWithSameKey() {
+		StaticResourceCache cache = new StaticResourceCache(100);
+		cache.put("/a.css", resource(40));
+		StaticResource replacement = resource(20);
+		cache.put("/a.css", replacement);
+
+		assertThat(cache.get("/a.css"), is(sameInstance(replacement)));
+		assertThat(cache.count(), is(1));
+		assertThat(cache.size(), is(20L));
+	}
+
+	@Test
+	public void shouldRemoveAndClearResources() {
+		StaticResourceCache cache = new StaticResourceCache(100);
+		cache.put("/a.css", resource(40));
+		cache.put("/b.css", resource(20));
+
+		assertThat(cache.remove("/a.css"), is(notNullValue()));
+		assertThat(cache.remove("/a.css"), is(nullValue()));
+		assertThat(cache.size(), is(20L));
+
+		cache.clear();
+		assertThat(cache.count(), is(0));
+		assertThat(cache.size(), is(0L));
+	}
+
+	@Test
+	public void shouldRemainWithinCapacityWhenUsedConcurrently() throws InterruptedException {
+		final StaticResourceCache cache = new StaticResourceCache(100);
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int t = 0; t < 4; t++) {
+			final int offset = t;
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 1000; i++) {
+						String key = "/" + ((i + offset) % 20) + ".css";
+						if (cache.get(key) == null) {
+							cache.put(key, resource(10));
+						}
+					}
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertThat(cache.size(), is(cache.count() * 10L));
+		assertThat(cache.size() <= 100L, is(true));
+	}
+
+	private StaticResource resource(int size) {
+		return new StaticResource("image/png", new byte[size], 0, false);
+	}
+}
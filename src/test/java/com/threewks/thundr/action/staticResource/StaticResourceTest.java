@@ -0,0 +1,98 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.action.staticResource;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import jodd.io.FileUtil;
+import jodd.io.StreamUtil;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.threewks.thundr.util.Encoder;
+
+public class StaticResourceTest {
+	private byte[] content = "body { color: red; } body { color: red; } body { color: red; } body { color: red; }".getBytes();
+
+	@Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void shouldHoldGzippedVariantWhenCompressed() throws IOException {
+		StaticResource resource = new StaticResource("text/css", content, 1000L, true);
+		assertThat(resource.isGzipped(), is(true));
+		assertThat(resource.getMimeType(), is("text/css"));
+		assertThat(resource.getLastModified(), is(1000L));
+		assertThat(resource.getContent(false), is(content));
+		assertThat(resource.getContent(true).length < content.length, is(true));
+		assertThat(StreamUtil.readBytes(new GZIPInputStream(new ByteArrayInputStream(resource.getContent(true)))), is(content));
+		assertThat(resource.size(), is((long) (content.length + resource.getContent(true).length)));
+	}
+
+	@Test
+	public void shouldNotHoldGzippedVariantWhenNotCompressed() {
+		StaticResource resource = new StaticResource("image/png", content, 1000L, false);
+		assertThat(resource.isGzipped(), is(false));
+		assertThat(resource.getContent(true), is(content));
+		assertThat(resource.getETag(true), is(resource.getETag(false)));
+		assertThat(resource.size(), is((long) content.length));
+	}
+
+	@Test
+	public void shouldNotHoldGzippedVariantWhenCompressionDoesNotReduceSize() {
+		StaticResource resource = new StaticResource("text/plain", "a".getBytes(), 1000L, true);
+		assertThat(resource.isGzipped(), is(false));
+	}
+
+	@Test
+	public void shouldHaveStrongETagsDerivedFromContentForEachVariant() {
+		StaticResource resource = new StaticResource("text/css", content, 1000L, true);
+		StaticResource same = new StaticResource("text/css", content, 2000L, true);
+		StaticResource different = new StaticResource("text/css", "other".getBytes(), 1000L, true);
+
+		String md5 = new Encoder(content).md5().hex().string();
+		assertThat(resource.getETag(false), is("\"" + md5 + "\""));
+		assertThat(resource.getETag(true), is("\"" + md5 + "-gzip\""));
+		assertThat(resource.getETag(true), is(not(resource.getETag(false))));
+		assertThat(resource.getETag(false), is(same.getETag(false)));
+		assertThat(resource.getETag(false), is(not(different.getETag(false))));
+	}
+
+	@Test
+	public void shouldBeModifiedWhenTheFileItWasReadFromChanges() throws IOException {
+		File file = temporaryFolder.newFile();
+		FileUtil.writeBytes(file, content);
+		StaticResource resource = new StaticResource("text/css", content, 1000L, true, file);
+		assertThat(resource.isModified(), is(false));
+
+		file.setLastModified(file.lastModified() - 10000);
+		assertThat(resource.isModified(), is(true));
+	}
+
+	@Test
+	public void shouldNeverBeModifiedWhenNotReadFromAFile() {
+		assertThat(new StaticResource("text/css", content, 1000L, true).isModified(), is(false));
+	}
+}
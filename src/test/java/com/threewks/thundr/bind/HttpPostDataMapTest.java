@@ -76,4 +76,65 @@ public class HttpPostDataMapTest {
 		assertThat(newPathMap.get(list("[twoTwo]", "threeThree")), is(array("value-value")));
 		assertThat(newPathMap.get(list("[one]", "two")), is(array("value2")));
 	}
+
+	@Test
+	public void shouldNotSplitEmptyBrackets() {
+		Map<String, String[]> map = map("list[]", new String[] { "1", "2" });
+		HttpPostDataMap pathMap = new HttpPostDataMap(map);
+		assertThat(pathMap.get("list[]"), is(array("1", "2")));
+		assertThat(pathMap.uniqueChildren(), is(set("list[]")));
+	}
+
+	@Test
+	public void shouldProvideUniqueChildren() {
+		Map<String, String[]> map = mapKeys("list[1].name", "list[0].name", "list[1].value", "other").to(array("a"), array("b"), array("c"), array("d"));
+		HttpPostDataMap pathMap = new HttpPostDataMap(map);
+		assertThat(pathMap.uniqueChildren(), is(set("list", "other")));
+		assertThat(pathMap.pathMapFor("list").uniqueChildren(), is(set("[0]", "[1]")));
+		assertThat(pathMap.pathMapFor("missing").size(), is(0));
+		assertThat(pathMap.pathMapFor("missing").uniqueChildren().isEmpty(), is(true));
+	}
+
+	@Test
+	public void shouldExcludeValueOfParentFromPathMap() {
+		Map<String, String[]> map = mapKeys("one", "one.two", "one.two.three").to(array("a"), array("b"), array("c"));
+		HttpPostDataMap pathMap = new HttpPostDataMap(map);
+		HttpPostDataMap newPathMap = pathMap.pathMapFor("one");
+		assertThat(newPathMap.size(), is(2));
+		assertThat(newPathMap.get("two"), is(array("b")));
+		assertThat(newPathMap.get(list("two", "three")), is(array("c")));
+		assertThat(newPathMap.pathMapFor("two").size(), is(1));
+		assertThat(newPathMap.pathMapFor("two").get("three"), is(array("c")));
+	}
+
+	@Test
+	public void shouldPushPathOntoAllEntries() {
+		Map<String, String[]> map = mapKeys("one.two", "one.three").to(array("a"), array("b"));
+		HttpPostDataMap pathMap = new HttpPostDataMap(map).pathMapFor("one").pushPath("other");
+		assertThat(pathMap.size(), is(2));
+		assertThat(pathMap.get(list("other", "two")), is(array("a")));
+		assertThat(pathMap.get(list("other", "three")), is(array("b")));
+		assertThat(pathMap.get("other"), is((String[]) null));
+	}
+
+	@Test
+	public void shouldCreateStringMapForNamedEntity() {
+		Map<String, String[]> map = mapKeys("bean.name", "bean.list[0].value", "bean.multi", "bean", "other.name").to(array("a"), array("b"), array("c", "d"), array("e"), array("f"));
+		HttpPostDataMap pathMap = new HttpPostDataMap(map);
+		Map<String, Object> stringMap = pathMap.toStringMap("bean");
+		assertThat(stringMap.size(), is(3));
+		assertThat(stringMap.get("name"), is((Object) "a"));
+		assertThat(stringMap.get("list[0].value"), is((Object) "b"));
+		assertThat(stringMap.get("multi"), is((Object) array("c", "d")));
+	}
+
+	@Test
+	public void shouldCreateStringMapForUnnamedEntity() {
+		Map<String, String[]> map = mapKeys("name", "list[0].value").to(array("a"), array("b"));
+		HttpPostDataMap pathMap = new HttpPostDataMap(map);
+		Map<String, String[]> stringMap = pathMap.toStringMap();
+		assertThat(stringMap.size(), is(2));
+		assertThat(stringMap.get("name"), is(array("a")));
+		assertThat(stringMap.get("list[0].value"), is(array("b")));
+	}
 }
@@ -0,0 +1,85 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.http;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.threewks.thundr.test.mock.servlet.MockHttpServletResponse;
+
+public class BufferedResponseOutputStreamTest {
+	@Rule public ExpectedException thrown = ExpectedException.none();
+
+	private MockHttpServletResponse resp = new MockHttpServletResponse();
+	private BufferedResponseOutputStream outputStream = new BufferedResponseOutputStream(resp, new byte[8]);
+
+	@Test
+	public void shouldSetContentLengthWhenContentFitsInBuffer() throws IOException {
+		outputStream.write('a');
+		outputStream.write("bcdefgh".getBytes("UTF-8"));
+		assertThat(outputStream.isOverflowed(), is(false));
+		assertThat(resp.getContentLength(), is(0));
+
+		outputStream.finish();
+		assertThat(resp.getContentLength(), is(8));
+		assertThat(resp.content(), is("abcdefgh"));
+		assertThat(outputStream.size(), is(8L));
+	}
+
+	@Test
+	public void shouldWriteWithoutContentLengthWhenContentDoesNotFitInBuffer() throws IOException {
+		outputStream.write("abcdef".getBytes("UTF-8"));
+		outputStream.write("ghijkl".getBytes("UTF-8"));
+		assertThat(outputStream.isOverflowed(), is(true));
+		assertThat(resp.content(), is("abcdefghijkl"));
+
+		outputStream.write('m');
+		outputStream.finish();
+		assertThat(resp.content(), is("abcdefghijklm"));
+		assertThat(resp.getContentLength(), is(0));
+		assertThat(outputStream.size(), is(13L));
+	}
+
+	@Test
+	public void shouldWriteEmptyContent() throws IOException {
+		outputStream.close();
+		assertThat(resp.getContentLength(), is(0));
+		assertThat(resp.content(), is(""));
+	}
+
+	@Test
+	public void shouldOnlyFinishOnce() throws IOException {
+		outputStream.write('a');
+		outputStream.finish();
+		outputStream.finish();
+		assertThat(resp.content(), is("a"));
+	}
+
+	@Test
+	public void shouldNotAllowWritingAfterFinishing() throws IOException {
+		thrown.expect(IOException.class);
+		outputStream.finish();
+		outputStream.write("abcdefghijkl".getBytes("UTF-8"));
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.http;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.threewks.thundr.test.mock.servlet.MockHttpServletResponse;
+
+public class HeadHttpServletResponseTest {
+	private MockHttpServletResponse resp;
+	private HeadHttpServletResponse headResp;
+
+	@Before
+	public void before() {
+		resp = new MockHttpServletResponse();
+		headResp = new HeadHttpServletResponse(resp);
+	}
+
+	@Test
+	public void shouldDiscardAndCountContentWrittenToOutputStream() throws IOException {
+		headResp.getOutputStream().write("content".getBytes("UTF-8"));
+		headResp.getOutputStream().write('!');
+
+		assertThat(headResp.getDiscardedContentLength(), is(8L));
+		assertThat(resp.content(), is(""));
+	}
+
+	@Test
+	public void shouldDiscardAndCountContentWrittenToWriter() throws IOException {
+		headResp.setCharacterEncoding("UTF-8");
+		headResp.getWriter().write("content");
+
+		assertThat(headResp.getDiscardedContentLength(), is(7L));
+		assertThat(resp.content(), is(""));
+	}
+
+	@Test
+	public void shouldPassHeadersAndStatusThroughToResponse() {
+		headResp.setStatus(201);
+		headResp.setHeader("ETag", "\"abc\"");
+		headResp.setContentType("text/plain");
+
+		assertThat(resp.status(), is(201));
+		assertThat(resp.<String> header("ETag"), is("\"abc\""));
+		assertThat(resp.getContentType(), is("text/plain"));
+	}
+
+	@Test
+	public void shouldSetContentLengthFromDiscardedContentOnFinish() throws IOException {
+		headResp.getOutputStream().write("content".getBytes("UTF-8"));
+		headResp.finish();
+
+		assertThat(resp.<String> header(HttpSupport.Header.ContentLength), is("7"));
+	}
+
+	@Test
+	public void shouldNotOverrideExplicitContentLengthOnFinish() throws IOException {
+		headResp.setContentLength(100);
+		headResp.getOutputStream().write("content".getBytes("UTF-8"));
+		headResp.finish();
+
+		assertThat(resp.getContentLength(), is(100));
+		assertThat(resp.<String> header(HttpSupport.Header.ContentLength), is(nullValue()));
+	}
+
+	@Test
+	public void shouldNotSetContentLengthOnFinishWhenNoContentWritten() throws IOException {
+		headResp.finish();
+
+		assertThat(resp.<String> header(HttpSupport.Header.ContentLength), is(nullValue()));
+	}
+
+	@Test
+	public void shouldNotCountContentDiscardedBeforeReset() throws IOException {
+		headResp.getOutputStream().write("content".getBytes("UTF-8"));
+		headResp.resetBuffer();
+		headResp.getOutputStream().write("more".getBytes("UTF-8"));
+
+		assertThat(headResp.getDiscardedContentLength(), is(4L));
+	}
+
+	@Test
+	public void shouldNotCountContentBufferedInWriterBeforeReset() throws IOException {
+		headResp.getWriter().write("content");
+		headResp.resetBuffer();
+		headResp.getWriter().write("more");
+
+		assertThat(headResp.getDiscardedContentLength(), is(4L));
+	}
+}
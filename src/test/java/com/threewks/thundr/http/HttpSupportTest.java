@@ -22,6 +22,8 @@ import static org.junit.Assert.assertThat;
 
 import org.junit.Test;
 
+import com.threewks.thundr.test.mock.servlet.MockHttpServletRequest;
+
 public class HttpSupportTest {
 
 	@Test
@@ -33,6 +35,17 @@ public class HttpSupportTest {
 		assertThat(HttpSupport.getReasonForHttpStatus(418), is("I'm a teapot"));
 	}
 
+	@Test
+	public void shouldTreatRequestAsHeadWhenItsMethodOrEffectiveMethodIsHead() {
+		assertThat(HttpSupport.Methods.isHead(new MockHttpServletRequest().method("HEAD")), is(true));
+		assertThat(HttpSupport.Methods.isHead(new MockHttpServletRequest().method("POST")), is(false));
+		assertThat(HttpSupport.Methods.isHead((MockHttpServletRequest) null), is(false));
+
+		MockHttpServletRequest overridden = new MockHttpServletRequest().method("POST");
+		overridden.setAttribute(HttpSupport.Methods.EffectiveMethodAttribute, "HEAD");
+		assertThat(HttpSupport.Methods.isHead(overridden), is(true));
+	}
+
 	@Test
 	public void shouldReturnTrueForMatchingHttpMethod() {
 		assertThat(HttpSupport.Methods.isGet("get"), is(true));
@@ -0,0 +1,131 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.http;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.*;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Test;
+
+import com.threewks.thundr.test.mock.servlet.MockHttpServletRequest;
+
+public class RequestIndexTest {
+	private MockHttpServletRequest req = new MockHttpServletRequest();
+
+	@Test
+	public void shouldShareIndexForTheSameRequest() {
+		RequestIndex index = RequestIndex.of(req);
+		assertThat(RequestIndex.of(req), is(sameInstance(index)));
+		assertThat(RequestIndex.of(new MockHttpServletRequest()), is(not(sameInstance(index))));
+	}
+
+	@Test
+	public void shouldNotShareIndexWithWrappingRequest() {
+		RequestIndex index = RequestIndex.of(req);
+		HttpServletRequest wrapper = mock(HttpServletRequest.class);
+		when(wrapper.getAttribute(RequestIndex.RequestAttributeName)).thenReturn(index);
+		assertThat(RequestIndex.of(wrapper), is(not(sameInstance(index))));
+	}
+
+	@Test
+	public void shouldNotReadRequestUntilQueried() {
+		HttpServletRequest req = mock(HttpServletRequest.class);
+		RequestIndex index = RequestIndex.of(req);
+		verify(req, never()).getHeaderNames();
+		verify(req, never()).getCookies();
+		verify(req, never()).getParameterMap();
+
+		index.getHeader("Accept");
+		index.getHeader("Origin");
+		verify(req, times(1)).getHeaderNames();
+		verify(req, never()).getCookies();
+		verify(req, never()).getParameterMap();
+	}
+
+	@Test
+	public void shouldNormaliseHeaderNames() {
+		assertThat(RequestIndex.normaliseHeaderName("X-Http-Method-Override"), is("xHttpMethodOverride"));
+		assertThat(RequestIndex.normaliseHeaderName("x-http-method-override"), is("xHttpMethodOverride"));
+		assertThat(RequestIndex.normaliseHeaderName("X-HTTP-METHOD-OVERRIDE"), is("xHttpMethodOverride"));
+		assertThat(RequestIndex.normaliseHeaderName("Accept"), is("accept"));
+		assertThat(RequestIndex.normaliseHeaderName("-Leading--Dashes-"), is("leadingDashes"));
+		assertThat(RequestIndex.normaliseHeaderName(""), is(""));
+	}
+
+	@Test
+	public void shouldIndexHeadersByNormalisedName() {
+		req.header("X-Custom-Header", "1", "2");
+		req.header("Accept", "text/html");
+
+		assertThat(RequestIndex.of(req).getNormalisedHeaders().get("xCustomHeader"), is(new String[] { "1", "2" }));
+		assertThat(RequestIndex.of(req).getNormalisedHeaders().get("accept"), is(new String[] { "text/html" }));
+		assertThat(RequestIndex.of(req).getNormalisedHeaders().size(), is(2));
+	}
+
+	@Test
+	public void shouldFindHeadersIgnoringCase() {
+		req.header("X-Custom-Header", "1", "2");
+
+		RequestIndex index = RequestIndex.of(req);
+		assertThat(index.getHeader("x-custom-header"), is("1"));
+		assertThat(index.getHeader("X-CUSTOM-HEADER"), is("1"));
+		assertThat(index.getHeaders("x-custom-header"), is(new String[] { "1", "2" }));
+		assertThat(index.getHeader("missing"), is(nullValue()));
+		assertThat(index.getHeaders("missing").length, is(0));
+	}
+
+	@Test
+	public void shouldIndexCookiesByName() {
+		Cookie first = new Cookie("name", "1");
+		req.cookie(first);
+		req.cookie("name", "2");
+		req.cookie("other", "3");
+
+		RequestIndex index = RequestIndex.of(req);
+		assertThat(index.hasCookies(), is(true));
+		assertThat(index.getCookie("name"), is(sameInstance(first)));
+		assertThat(index.getCookie("missing"), is(nullValue()));
+		assertThat(index.getCookieValues().get("name"), is(new String[] { "1", "2" }));
+		assertThat(index.getCookieValues().get("other"), is(new String[] { "3" }));
+	}
+
+	@Test
+	public void shouldHandleRequestWithoutCookies() {
+		HttpServletRequest req = mock(HttpServletRequest.class);
+		RequestIndex index = RequestIndex.of(req);
+		assertThat(index.hasCookies(), is(false));
+		assertThat(index.getCookie("name"), is(nullValue()));
+		assertThat(index.getCookieValues().isEmpty(), is(true));
+	}
+
+	@Test
+	public void shouldFindParametersIgnoringCase() {
+		req.parameter("_method", "PUT");
+		req.parameter("Multi", "1", "2");
+
+		RequestIndex index = RequestIndex.of(req);
+		assertThat(index.getParameter("_METHOD"), is("PUT"));
+		assertThat(index.getParameter("multi"), is("1"));
+		assertThat(index.getParameter("missing"), is(nullValue()));
+		assertThat(index.getParameters().get("Multi"), is(new String[] { "1", "2" }));
+	}
+}
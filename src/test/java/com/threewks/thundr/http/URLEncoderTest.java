@@ -130,6 +130,12 @@ public class URLEncoderTest {
 				is("This is **)()()@#!898492834dfkajd fkjd><\":}{}- some, stuff & ? more things"));
 	}
 
+	@Test
+	public void shouldDecodeQuery() {
+		assertThat(decodeQueryComponent(encodeQueryComponent("This is - some, stuff & ? more things")), is("This is - some, stuff & ? more things"));
+		assertThat(decodeQueryComponent("some+value%21"), is("some value!"));
+	}
+
 	@Test
 	public void shouldEncodeQueryParameters() {
 		assertThat(encodeQueryString(paramMap("param1", "value1", "param2", 2)), is("?param1=value1&param2=2"));
@@ -23,6 +23,7 @@ import static org.junit.Assert.assertThat;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -31,6 +32,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.After;
 import org.junit.Before;
@@ -39,7 +42,9 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
 import com.atomicleopard.expressive.Expressive;
+import com.atomicleopard.expressive.collection.Pair;
 import com.threewks.thundr.configuration.Environment;
+import com.threewks.thundr.test.TestSupport;
 
 public class InjectionContextImplTest {
 	@Rule public ExpectedException thrown = ExpectedException.none();
@@ -270,6 +275,54 @@ public class InjectionContextImplTest {
 		assertThat(firstDate, sameInstance(date));
 	}
 
+	@Test
+	public void shouldReturnSameResolvedInstanceUntilContextIsModified() {
+		Date date = new Date();
+		context.inject(date).named("first").as(Date.class);
+		assertThat(context.get(Date.class), sameInstance(date));
+		assertThat(context.get(Date.class), sameInstance(date));
+
+		Date unnamed = new Date();
+		context.inject(unnamed).as(Date.class);
+		assertThat(context.get(Date.class), sameInstance(unnamed));
+		assertThat(context.get(Date.class, "first"), sameInstance(date));
+	}
+
+	@Test
+	public void shouldFailWhenMoreThanOneNamedInstanceExistsForUnnamedLookupAfterItWasResolved() {
+		context.inject(new Date()).named("first").as(Date.class);
+		assertThat(context.get(Date.class), is(notNullValue()));
+
+		context.inject(new Date()).named("second").as(Date.class);
+		thrown.expect(InjectionException.class);
+		thrown.expectMessage("Unable to get an instance of java.util.Date - the result is ambiguous");
+		context.get(Date.class);
+	}
+
+	@Test
+	public void shouldKeepOtherResolvedLookupsWhenAnInstanceIsCreatedOnDemand() {
+		context.inject("value").named("string").as(String.class);
+		context.inject(TestClass.class).named("lazy").as(TestClass.class);
+		assertThat(context.get(String.class, "string"), is("value"));
+		Map<Pair<Class<?>, String>, Object> resolved = TestSupport.getField(context, "resolved");
+		assertThat(resolved.containsKey(new Pair<Class<?>, String>(String.class, "string")), is(true));
+
+		assertThat(context.get(TestClass.class, "lazy"), is(notNullValue()));
+		assertThat(resolved.containsKey(new Pair<Class<?>, String>(String.class, "string")), is(true));
+	}
+
+	@Test
+	public void shouldFailWhenANamedInstanceCreatedOnDemandMakesAnUnnamedLookupAmbiguous() {
+		context.inject(TestClass.class).named("lazy").as(TestClass.class);
+		context.inject(new TestClass()).named("first").as(TestClass.class);
+		assertThat(context.get(TestClass.class), is(notNullValue()));
+
+		assertThat(context.get(TestClass.class, "lazy"), is(notNullValue()));
+		thrown.expect(InjectionException.class);
+		thrown.expectMessage("Unable to get an instance of com.threewks.thundr.injection.TestClass - the result is ambiguous");
+		context.get(TestClass.class);
+	}
+
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	@Test
 	public void shouldNotReturnADifferentNamedInstanceForBasicTypes() {
@@ -410,6 +463,19 @@ public class InjectionContextImplTest {
 
 	}
 
+	@Test
+	public void shouldChooseAMoreSpecificConstructorOnceItCanBeSatisfied() {
+		context.inject("injected value").named("injectedArg").as(String.class);
+		context.inject(TestClass.class).named("first").as(TestClass.class);
+		context.inject(TestClass.class).named("second").as(TestClass.class);
+		assertThat(context.get(TestClass.class, "first").getConstructorCalled(), is(0));
+
+		context.inject("arg1 value").named("arg1").as(String.class);
+		TestClass testClass = context.get(TestClass.class, "second");
+		assertThat(testClass.getConstructorCalled(), is(1));
+		assertThat(testClass.getArg1(), is("arg1 value"));
+	}
+
 	@Test
 	public void shouldInvokeTwoArgConstructor() {
 		context.inject("injected value").named("injectedArg").as(String.class);
@@ -484,6 +550,19 @@ public class InjectionContextImplTest {
 		assertThat(context.get(String.class, "key%dev"), is("value"));
 	}
 
+	@Test
+	public void shouldChooseAMorePreferredConstructorWhenTheEnvironmentChangesBetweenGets() {
+		context.inject("prod value").named("arg1%prod").as(String.class);
+		context.inject(TestClass.class).named("first").as(TestClass.class);
+		context.inject(TestClass.class).named("second").as(TestClass.class);
+		assertThat(context.get(TestClass.class, "first").getConstructorCalled(), is(0));
+
+		Environment.set("prod");
+		TestClass second = context.get(TestClass.class, "second");
+		assertThat(second.getConstructorCalled(), is(1));
+		assertThat(second.getArg1(), is("prod value"));
+	}
+
 	@Test
 	public void shouldReturnTrueForContainsWhenEnvironmentSpecificValue() {
 		assertThat(context.contains(String.class, "key"), is(false));
@@ -497,4 +576,46 @@ public class InjectionContextImplTest {
 		context.inject("defaultvalue").named("key").as(String.class);
 		assertThat(context.contains(String.class, "key"), is(true));
 	}
+
+	@Test
+	public void shouldOnlyConstructAnInstanceOnceWhenRequestedConcurrently() throws InterruptedException {
+		SlowToConstruct.constructed.set(0);
+		context.inject(SlowToConstruct.class).as(SlowToConstruct.class);
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<Object> results = Collections.synchronizedList(new ArrayList<Object>());
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 4; i++) {
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						results.add(context.get(SlowToConstruct.class));
+					} catch (InterruptedException e) {
+						throw new RuntimeException(e);
+					}
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertThat(SlowToConstruct.constructed.get(), is(1));
+		assertThat(results.size(), is(4));
+		assertThat(new HashSet<Object>(results).size(), is(1));
+	}
+
+	public static class SlowToConstruct {
+		static final AtomicInteger constructed = new AtomicInteger();
+
+		public SlowToConstruct() throws InterruptedException {
+			constructed.incrementAndGet();
+			Thread.sleep(50);
+		}
+	}
 }
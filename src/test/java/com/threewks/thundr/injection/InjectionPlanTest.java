@@ -0,0 +1,69 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.injection;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.threewks.thundr.introspection.ClassIntrospector;
+import com.threewks.thundr.introspection.MethodIntrospector;
+
+public class InjectionPlanTest {
+	private InjectionPlan<TestClass> plan = new InjectionPlan<TestClass>(TestClass.class, new ClassIntrospector(), new MethodIntrospector());
+
+	@Test
+	public void shouldListConstructorsMostSpecificFirst() {
+		List<InjectionPlan.ConstructorInjection<TestClass>> constructors = plan.getConstructors();
+		assertThat(constructors.size(), is(3));
+		assertThat(constructors.get(0).getParameters().size(), is(2));
+		assertThat(constructors.get(0).getParameters().get(0).name(), is("arg1"));
+		assertThat(constructors.get(0).getParameters().get(1).name(), is("arg2"));
+		assertThat(constructors.get(1).getParameters().size(), is(1));
+		assertThat(constructors.get(2).getParameters().size(), is(0));
+	}
+
+	@Test
+	public void shouldListSettersWithPropertyNameAndType() {
+		List<InjectionPlan.SetterInjection> setters = plan.getSetters();
+		assertThat(setters.size(), is(1));
+		assertThat(setters.get(0).getName(), is("settableArg"));
+		assertThat(setters.get(0).getType(), is((Object) String.class));
+		assertThat(setters.get(0).getMethod().getName(), is("setSettableArg"));
+	}
+
+	@Test
+	public void shouldListAccessibleInjectionFields() {
+		List<Field> fields = plan.getFields();
+		assertThat(fields.size(), is(1));
+		assertThat(fields.get(0).getName(), is("injectedArg"));
+		assertThat(fields.get(0).isAccessible(), is(true));
+	}
+
+	@Test
+	public void shouldOnlyReturnChosenConstructorForTheSameGeneration() {
+		assertThat(plan.getChosenConstructor(1), is(0));
+		plan.setChosenConstructor(2, 1);
+		assertThat(plan.getChosenConstructor(1), is(2));
+		assertThat(plan.getChosenConstructor(2), is(0));
+	}
+}
@@ -20,9 +20,12 @@ package com.threewks.thundr.introspection;
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
@@ -100,6 +103,39 @@ public class ClassIntrospectorTest {
 		assertThat(ClassIntrospector.isAJavabean(TestCA.class), is(true));
 	}
 
+	@Test
+	public void shouldOnlyCreateAnInstanceOnceToDetermineIfIsAJavabean() {
+		CountingCtor.instances = 0;
+		assertThat(ClassIntrospector.isAJavabean(CountingCtor.class), is(true));
+		assertThat(ClassIntrospector.isAJavabean(CountingCtor.class), is(true));
+		assertThat(CountingCtor.instances, is(1));
+	}
+
+	@Test
+	public void shouldReturnFalseForIsAJavabeanIfConstructorThrows() {
+		assertThat(ClassIntrospector.isAJavabean(ThrowingCtor.class), is(false));
+	}
+
+	@Test
+	public void shouldNotPreventCheckedJavabeanTypesBeingUnloaded() throws Exception {
+		WeakReference<ClassLoader> classLoader = checkIsolatedClass();
+
+		for (int i = 0; i < 50 && classLoader.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertThat(classLoader.get(), is(nullValue()));
+	}
+
+	private WeakReference<ClassLoader> checkIsolatedClass() throws Exception {
+		URL classes = CountingCtor.class.getProtectionDomain().getCodeSource().getLocation();
+		ClassLoader isolated = new URLClassLoader(new URL[] { classes }, null);
+		Class<?> type = isolated.loadClass(CountingCtor.class.getName());
+		assertThat(type, is(not((Object) CountingCtor.class)));
+		assertThat(ClassIntrospector.isAJavabean(type), is(true));
+		return new WeakReference<ClassLoader>(isolated);
+	}
+
 	static interface TestA {
 
 	}
@@ -162,4 +198,24 @@ public class ClassIntrospectorTest {
 
 		}
 	}
+
+	public static class CountingCtor {
+		static int instances = 0;
+
+		public CountingCtor() {
+			instances++;
+		}
+	}
+
+	public static class ThrowingCtor {
+		public ThrowingCtor() {
+			throw new IllegalStateException("Expected");
+		}
+	}
+
+	public static abstract class AbstractDefaultCtor {
+	}
+
+	public class NonStaticInner {
+	}
 }
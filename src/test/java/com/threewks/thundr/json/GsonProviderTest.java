@@ -0,0 +1,64 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.json;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.Collections;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+public class GsonProviderTest {
+	private GsonProvider gsonProvider = new GsonProvider(new GsonBuilder());
+
+	@Test
+	public void shouldReuseGson() {
+		Gson gson = gsonProvider.get();
+		assertThat(gson, is(notNullValue()));
+		assertThat(gsonProvider.get(), is(sameInstance(gson)));
+	}
+
+	@Test
+	public void shouldBuildGsonFromChangesMadeBeforeFirstUse() {
+		gsonProvider.getGsonBuilder().serializeNulls();
+		assertThat(gsonProvider.get().toJson(Collections.singletonMap("key", null)), is("{\"key\":null}"));
+	}
+
+	@Test
+	public void shouldNotRebuildGsonWhenBuilderIsRetrieved() {
+		Gson gson = gsonProvider.get();
+		gsonProvider.getGsonBuilder();
+		assertThat(gsonProvider.get(), is(sameInstance(gson)));
+	}
+
+	@Test
+	public void shouldRebuildGsonWhenRequested() {
+		GsonBuilder gsonBuilder = gsonProvider.getGsonBuilder();
+		Gson gson = gsonProvider.get();
+		gsonBuilder.serializeNulls();
+		assertThat(gsonProvider.get(), is(sameInstance(gson)));
+
+		gsonProvider.rebuild();
+		assertThat(gsonProvider.get(), is(not(sameInstance(gson))));
+		assertThat(gsonProvider.get().toJson(Collections.singletonMap("key", null)), is("{\"key\":null}"));
+	}
+}
@@ -32,6 +32,7 @@ import com.threewks.thundr.injection.InjectionContextImpl;
 import com.threewks.thundr.injection.Module;
 import com.threewks.thundr.injection.UpdatableInjectionContext;
 import com.threewks.thundr.module.test.TestModule;
+import com.threewks.thundr.profiler.StartupProfiler;
 
 public class ModulesTest {
 	@Rule public ExpectedException thrown = ExpectedException.none();
@@ -67,6 +68,21 @@ public class ModulesTest {
 		assertThat(injectionContext.get(String.class, "TestModule1"), is("Invoked"));
 	}
 
+	@Test
+	public void shouldRecordEachModulePhaseWithTheStartupProfiler() {
+		StartupProfiler profiler = new StartupProfiler();
+		injectionContext.inject(profiler).as(StartupProfiler.class);
+		modules.addModule(TestModule1.class);
+		modules.runStartupLifecycle(injectionContext);
+
+		String name = TestModule1.class.getName();
+		assertThat(profiler.getTimings(StartupProfiler.ModuleRequires).get(0).getName(), is(name));
+		assertThat(profiler.getTimings(StartupProfiler.ModuleInitialise).get(0).getName(), is(name));
+		assertThat(profiler.getTimings(StartupProfiler.ModuleConfigure).get(0).getName(), is(name));
+		assertThat(profiler.getTimings(StartupProfiler.ModuleStart).get(0).getName(), is(name));
+		assertThat(profiler.getTimings().size(), is(4));
+	}
+
 	@Test
 	public void shouldLoadDependentModules() {
 		modules.addModule(TestModule1.class);
@@ -135,6 +151,22 @@ public class ModulesTest {
 		assertThat(injectionContext.get(String.class, "TestModule3"), is("Invoked"));
 	}
 
+	@Test
+	public void shouldLoadDependentModulesUsingMultipleStartupThreads() {
+		modules.setStartupThreads(4);
+		modules.addModule(TestModule5.class);
+		modules.addModule(TestModule6.class);
+		modules.runStartupLifecycle(injectionContext);
+		assertThat(injectionContext.get(String.class, "TestModule1"), is("Invoked"));
+		assertThat(injectionContext.get(String.class, "TestModule2"), is("Invoked"));
+		assertThat(injectionContext.get(String.class, "TestModule3"), is("Invoked"));
+	}
+
+	@Test
+	public void shouldDefaultToASingleStartupThread() {
+		assertThat(modules.getStartupThreads(), is(1));
+	}
+
 	public static class TestModule1 implements Module {
 		@Override
 		public void requires(DependencyRegistry dependencyRegistry) {
@@ -0,0 +1,125 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.module;
+
+import static com.atomicleopard.expressive.Expressive.list;
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.threewks.thundr.injection.Module;
+
+public class StartupSchedulerTest {
+	@Rule public ExpectedException thrown = ExpectedException.none();
+
+	private Module a = mock(Module.class, "a");
+	private Module b = mock(Module.class, "b");
+	private Module c = mock(Module.class, "c");
+	private Map<Module, List<Module>> dependencies = new HashMap<Module, List<Module>>();
+	private List<Module> run = Collections.synchronizedList(new ArrayList<Module>());
+
+	@Test
+	public void shouldRunEachModuleInOrderWithASingleThread() {
+		final Thread caller = Thread.currentThread();
+		List<Module> completed = new StartupScheduler(1).run(list(a, b, c), dependencies, new StartupScheduler.Step() {
+			@Override
+			public void run(Module module) {
+				assertThat(Thread.currentThread(), is(caller));
+				run.add(module);
+			}
+		});
+		assertThat(run, is((List<Module>) list(a, b, c)));
+		assertThat(completed, is((List<Module>) list(a, b, c)));
+	}
+
+	@Test
+	public void shouldRunIndependentModulesConcurrently() {
+		final CountDownLatch latch = new CountDownLatch(2);
+		final List<Boolean> concurrent = Collections.synchronizedList(new ArrayList<Boolean>());
+		new StartupScheduler(2).run(list(a, b), dependencies, new StartupScheduler.Step() {
+			@Override
+			public void run(Module module) {
+				latch.countDown();
+				try {
+					concurrent.add(latch.await(5, TimeUnit.SECONDS));
+				} catch (InterruptedException e) {
+					throw new RuntimeException(e);
+				}
+			}
+		});
+		assertThat(concurrent, is((List<Boolean>) list(true, true)));
+	}
+
+	@Test
+	public void shouldOnlyRunModuleOnceItsDependenciesHaveCompleted() {
+		dependencies.put(c, list(a, b));
+		dependencies.put(b, list(a));
+		List<Module> completed = new StartupScheduler(4).run(list(a, b, c), dependencies, new StartupScheduler.Step() {
+			@Override
+			public void run(Module module) {
+				run.add(module);
+			}
+		});
+		assertThat(run, is((List<Module>) list(a, b, c)));
+		assertThat(completed, is((List<Module>) list(a, b, c)));
+	}
+
+	@Test
+	public void shouldIgnoreDependenciesWhichAreNotBeingRun() {
+		dependencies.put(b, list(c));
+		List<Module> completed = new StartupScheduler(4).run(list(a, b), dependencies, new StartupScheduler.Step() {
+			@Override
+			public void run(Module module) {
+				run.add(module);
+			}
+		});
+		assertThat(completed, containsInAnyOrder(a, b));
+	}
+
+	@Test
+	public void shouldPropagateFailureAndNotRunDependentModules() {
+		thrown.expect(ModuleLoadingException.class);
+		thrown.expectMessage("expected");
+		dependencies.put(b, list(a));
+		try {
+			new StartupScheduler(4).run(list(a, b, c), dependencies, new StartupScheduler.Step() {
+				@Override
+				public void run(Module module) {
+					run.add(module);
+					if (module == a) {
+						throw new ModuleLoadingException("expected");
+					}
+				}
+			});
+		} finally {
+			assertThat(run, not(hasItem(b)));
+		}
+	}
+}
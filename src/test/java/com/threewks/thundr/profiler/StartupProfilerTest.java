@@ -0,0 +1,102 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.profiler;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+
+import jodd.io.FileUtil;
+
+import org.junit.Test;
+
+import com.threewks.thundr.injection.InjectionContextImpl;
+import com.threewks.thundr.injection.UpdatableInjectionContext;
+
+public class StartupProfilerTest {
+	private StartupProfiler profiler = new StartupProfiler();
+
+	@Test
+	public void shouldRecordTimingWhenStopped() {
+		StartupProfiler.Timing timing = profiler.start(StartupProfiler.ModuleStart, "module");
+		assertThat(profiler.getTimings().isEmpty(), is(true));
+		timing.stop();
+
+		assertThat(profiler.getTimings().size(), is(1));
+		StartupTiming recorded = profiler.getTimings().get(0);
+		assertThat(recorded.getPhase(), is(StartupProfiler.ModuleStart));
+		assertThat(recorded.getName(), is("module"));
+		assertThat(recorded.getThread(), is(Thread.currentThread().getName()));
+		assertThat(recorded.getDurationMicros(), is(greaterThanOrEqualTo(0L)));
+		assertThat(recorded.getStartMicros(), is(greaterThanOrEqualTo(0L)));
+		assertThat(recorded.getAllocatedBytes(), is(greaterThanOrEqualTo(-1L)));
+	}
+
+	@Test
+	public void shouldNotRecordAfterFinish() {
+		StartupProfiler.Timing timing = profiler.start(StartupProfiler.ModuleStart, "before");
+		timing.stop();
+		profiler.finish();
+		profiler.start(StartupProfiler.ModuleStart, "after").stop();
+
+		assertThat(profiler.isRecording(), is(false));
+		assertThat(profiler.getTimings().size(), is(1));
+		assertThat(profiler.getTimings().get(0).getName(), is("before"));
+	}
+
+	@Test
+	public void shouldFilterTimingsAndTotalByPhase() {
+		profiler.start(StartupProfiler.ModuleInitialise, "a").stop();
+		profiler.start(StartupProfiler.RoutesParse, "routes.json").stop();
+		profiler.start(StartupProfiler.ModuleInitialise, "b").stop();
+
+		assertThat(profiler.getTimings(StartupProfiler.ModuleInitialise).size(), is(2));
+		assertThat(profiler.getTimings(StartupProfiler.RoutesParse).size(), is(1));
+		assertThat(profiler.getTimings(StartupProfiler.ModuleStart).isEmpty(), is(true));
+		assertThat(profiler.getTotalMicrosByPhase().keySet(), contains(StartupProfiler.ModuleInitialise, StartupProfiler.RoutesParse));
+	}
+
+	@Test
+	public void shouldReturnDisabledProfilerWhenNoneInInjectionContext() {
+		StartupProfiler disabled = StartupProfiler.from(null);
+		assertThat(disabled.isRecording(), is(false));
+		disabled.start(StartupProfiler.ModuleStart, "module").stop();
+		assertThat(disabled.getTimings().isEmpty(), is(true));
+
+		UpdatableInjectionContext injectionContext = new InjectionContextImpl();
+		assertThat(StartupProfiler.from(injectionContext), is(sameInstance(disabled)));
+
+		injectionContext.inject(profiler).as(StartupProfiler.class);
+		assertThat(StartupProfiler.from(injectionContext), is(sameInstance(profiler)));
+	}
+
+	@Test
+	public void shouldWriteTimingsAsJson() throws Exception {
+		profiler.start(StartupProfiler.ControllerInitialise, "com.example.Controller").stop();
+		String json = profiler.toJson();
+		assertThat(json, containsString("\"controller.initialise\""));
+		assertThat(json, containsString("\"com.example.Controller\""));
+		assertThat(json, containsString("\"durationMicros\""));
+
+		File file = File.createTempFile("startup-profile", ".json");
+		file.deleteOnExit();
+		profiler.writeJson(file);
+		assertThat(FileUtil.readString(file), is(json));
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.route;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.atomicleopard.expressive.Expressive;
+
+public class PathVariablesTest {
+	@Rule public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void shouldDecodeValuesAndLookupByName() {
+		PathVariables pathVars = new PathVariables(new String[] { "first", "second" }, new String[] { "one%20value", "two" });
+		assertThat(pathVars.size(), is(2));
+		assertThat(pathVars.get("first"), is("one value"));
+		assertThat(pathVars.get("second"), is("two"));
+		assertThat(pathVars.get("third"), is(nullValue()));
+		assertThat(pathVars.get(null), is(nullValue()));
+		assertThat(pathVars.containsKey("first"), is(true));
+		assertThat(pathVars.containsKey("third"), is(false));
+		assertThat(pathVars.keySet(), contains("first", "second"));
+		assertThat(pathVars.values(), contains("one value", "two"));
+	}
+
+	@Test
+	public void shouldBeEqualToAnEquivalentMap() {
+		PathVariables pathVars = new PathVariables(new String[] { "first", "second" }, new String[] { "one", "two" });
+		Map<String, String> expected = Expressive.map("first", "one", "second", "two");
+		assertThat(pathVars.equals(expected), is(true));
+		assertThat(expected.equals(pathVars), is(true));
+		assertThat(pathVars.hashCode(), is(expected.hashCode()));
+	}
+
+	@Test
+	public void shouldOnlyContainAsManyEntriesAsThereAreNamesAndValues() {
+		assertThat(new PathVariables(new String[] { "first", "second" }, new String[] { "one" }).size(), is(1));
+		assertThat(new PathVariables(new String[] { "first" }, new String[] { "one", "two" }).size(), is(1));
+		assertThat(PathVariables.Empty.isEmpty(), is(true));
+	}
+
+	@Test
+	public void shouldKeepOnlyTheLastValueForARepeatedName() {
+		PathVariables pathVars = new PathVariables(new String[] { "id", "name", "id" }, new String[] { "1", "first", "2" });
+		assertThat(pathVars.size(), is(2));
+		assertThat(pathVars.get("id"), is("2"));
+		assertThat(pathVars.get("name"), is("first"));
+		assertThat(pathVars.entrySet().size(), is(2));
+		assertThat(pathVars.keySet(), contains("name", "id"));
+		assertThat(pathVars.equals(Expressive.map("id", "2", "name", "first")), is(true));
+	}
+
+	@Test
+	public void shouldBeImmutable() {
+		thrown.expect(UnsupportedOperationException.class);
+		new PathVariables(new String[] { "first" }, new String[] { "one" }).put("second", "two");
+	}
+}
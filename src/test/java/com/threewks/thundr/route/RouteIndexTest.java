@@ -0,0 +1,155 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.route;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import com.atomicleopard.expressive.Expressive;
+
+public class RouteIndexTest {
+
+	@Test
+	public void shouldMatchLiteralRoutes() {
+		assertMatches("/path/", "/path/", true);
+		assertMatches("/path/", "/path/more", false);
+		assertMatches("/path/", "/path", false);
+		assertMatches("/path/", "path/", false);
+		assertMatches("/path/", "/things/path/", false);
+		assertMatches("/file.ext", "/file.ext", true);
+		assertMatches("/path/file.ext", "/path/file.ext", true);
+		assertMatches("/", "/", true);
+		assertMatches("/", "", false);
+	}
+
+	@Test
+	public void shouldMatchVariableRoutes() {
+		assertMatches("/path/{var}/{var2}", "/path/result1/result2", true);
+		assertMatches("/something/{var}/more/{var2}", "/something/123/more/1234", true);
+		assertMatches("/something/{var}/more/{var2}.jpg", "/something/123/more/1234.jpg", true);
+		assertMatches("/something/file.{ext}", "/something/file.gif", true);
+		assertMatches("/something/{var}/more/{var2}", "/something/123/more/1234/5678", false);
+		assertMatches("/something/{var}", "/something/", false);
+		assertMatches("/something/{var}", "/something/bad\"value", false);
+		assertMatches("/something/{var}/{var2}", "/something/Here%2C%20be%20/dragons%20", true);
+		assertMatches("/browse/{category}/", "/browse/Beauty,%20Health%20%26%20Wellbeing/", true);
+	}
+
+	@Test
+	public void shouldMatchWildcardRoutes() {
+		assertMatches("/path/*", "/path/", true);
+		assertMatches("/path/*", "/path/more", true);
+		assertMatches("/path/*", "/path/more/", false);
+		assertMatches("/path/*", "/path", false);
+		assertMatches("/path/*", "/path/file.ext", true);
+		assertMatches("/path/file.*", "/path/file.ext", true);
+		assertMatches("/path/file.*", "/path/file.", true);
+		assertMatches("/path/file*", "/path/file", true);
+		assertMatches("*", "", true);
+		assertMatches("*", "/path", false);
+	}
+
+	@Test
+	public void shouldMatchMultiWildcardRoutes() {
+		assertMatches("/path/**", "/path/resource/1/is/here", true);
+		assertMatches("/path/**", "/path/resource/1/is/here/", true);
+		assertMatches("/path/**", "/path/", true);
+		assertMatches("/path/**", "/path", false);
+		assertMatches("/path/**", "/path/1/2/3/more/file.ext", true);
+		assertMatches("**", "/any/path/at/all", true);
+		assertMatches("**/info", "/some/path/info", true);
+		assertMatches("**/info", "/info", true);
+		assertMatches("**/info", "info", false);
+		assertMatches("/path/**/end", "/path/end", false);
+		assertMatches("/path/**/end", "/path/a/b/end", true);
+		assertMatches("**.png", "/images/logo.png", true);
+		assertMatches("**.png", "/images/logo.jpg", false);
+		assertMatches("/static/**.css", "/static/a/b/c.css", true);
+		assertMatches("/static/**.css", "/static", false);
+	}
+
+	@Test
+	public void shouldMatchIgnoringPathSegmentParameters() {
+		assertMatches("/path/{var}/{var2}", "/path/result1/result2;jsessionid=ASD123-123DAFa", true);
+		assertMatches("/path/{var}/{var2}", "/path/result1/result2;jsessionid=ASD123-123DAFa;other=some%20value", true);
+		assertMatches("/path/", "/path/;jsessionid=1", true);
+	}
+
+	@Test
+	public void shouldExtractPathVariables() {
+		assertThat(find("/path/{var}/{var2}", "/path/result1/result2").getPathVars(), is(Expressive.<String, String> map("var", "result1", "var2", "result2")));
+		assertThat(find("/something/{var}/more/{var2}.jpg", "/something/123/more/1234.jpg").getPathVars(), is(Expressive.<String, String> map("var", "123", "var2", "1234")));
+		assertThat(find("/file/{name}.{ext}", "/file/logo.png").getPathVars(), is(Expressive.<String, String> map("name", "logo", "ext", "png")));
+		assertThat(find("/**/{id}", "/a/b/c").getPathVars(), is(Expressive.<String, String> map("id", "c")));
+		assertThat(find("/files/**/{name}.txt", "/files/a/b/readme.txt").getPathVars(), is(Expressive.<String, String> map("name", "readme")));
+		assertThat(find("/browse/{category}/", "/browse/Beauty%2C%20Health%20%26%20Wellbeing/").getPathVars(), is(Expressive.<String, String> map("category", "Beauty, Health & Wellbeing")));
+		assertThat(find("/path/{var}", "/path/value;jsessionid=123").getPathVars(), is(Expressive.<String, String> map("var", "value")));
+	}
+
+	@Test
+	public void shouldReturnFirstAddedRouteWhenMoreThanOneMatches() {
+		Route wildcard = new Route(RouteType.GET, "/path/**", null);
+		Route variable = new Route(RouteType.GET, "/path/{id}", null);
+		Route literal = new Route(RouteType.GET, "/path/specific", null);
+
+		RouteIndex index = new RouteIndex();
+		index.add(variable, null);
+		index.add(literal, null);
+		index.add(wildcard, null);
+		assertThat(index.find("/path/specific").getRoute(), is(variable));
+		assertThat(index.find("/path/a/b").getRoute(), is(wildcard));
+
+		index = new RouteIndex();
+		index.add(literal, null);
+		index.add(wildcard, null);
+		index.add(variable, null);
+		assertThat(index.find("/path/specific").getRoute(), is(literal));
+		assertThat(index.find("/path/other").getRoute(), is(wildcard));
+	}
+
+	@Test
+	public void shouldReturnNullWhenNoRouteMatches() {
+		RouteIndex index = new RouteIndex();
+		assertThat(index.find("/path"), is(nullValue()));
+		index.add(new Route(RouteType.GET, "/other", null), null);
+		assertThat(index.find("/path"), is(nullValue()));
+	}
+
+	@Test
+	public void shouldMatchRoutesDeclaringPathSegmentParameters() {
+		Route route = new Route(RouteType.GET, "/path;{var}", null);
+		RouteIndex index = new RouteIndex();
+		index.add(route, null);
+		assertThat(index.find("/path;value").getRoute(), is(route));
+		assertThat(index.find("/path;value").getPathVars(), is(Expressive.<String, String> map("var", "value")));
+		assertThat(index.find("/path"), is(nullValue()));
+	}
+
+	private void assertMatches(String route, String path, boolean expected) {
+		assertThat(route + " -> " + path, find(route, path) != null, is(expected));
+		assertThat(route + " -> " + path, new Route(RouteType.GET, route, null).matches(path), is(expected));
+	}
+
+	private RouteMatch find(String route, String path) {
+		RouteIndex index = new RouteIndex();
+		index.add(new Route(RouteType.GET, route, null), null);
+		return index.find(path);
+	}
+}
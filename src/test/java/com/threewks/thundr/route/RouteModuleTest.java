@@ -54,6 +54,16 @@ public class RouteModuleTest {
 		assertThat(injectionContext.contains(Routes.class), is(true));
 	}
 
+	@Test
+	public void shouldMakeRoutesLazyWhenLazyStartupInjected() {
+		routeModule.initialise(injectionContext);
+		assertThat(injectionContext.get(Routes.class).isLazyInitialisation(), is(false));
+
+		injectionContext.inject(true).named(RouteModule.LazyStartup).as(Boolean.class);
+		routeModule.initialise(injectionContext);
+		assertThat(injectionContext.get(Routes.class).isLazyInitialisation(), is(true));
+	}
+
 	@Test
 	public void shouldAddRoutesFromRoutesFileOnStart() {
 		TestSupport.setField(routeModule, "filename", "test-routes.json");
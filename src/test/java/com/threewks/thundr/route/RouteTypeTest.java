@@ -27,7 +27,7 @@ public class RouteTypeTest {
 
 	@Test
 	public void shouldReturnAllRouteTypes() {
-		assertThat(RouteType.all(), hasItems(GET, POST, PUT, PATCH, DELETE));
+		assertThat(RouteType.all(), hasItems(GET, POST, PUT, PATCH, DELETE, HEAD));
 	}
 
 	@Test
@@ -37,6 +37,7 @@ public class RouteTypeTest {
 		assertThat(RouteType.from("PUT"), is(PUT));
 		assertThat(RouteType.from("PATCH"), is(PATCH));
 		assertThat(RouteType.from("DELETE"), is(DELETE));
+		assertThat(RouteType.from("HEAD"), is(HEAD));
 	}
 
 	@Test
@@ -46,6 +47,7 @@ public class RouteTypeTest {
 		assertThat(RouteType.from("put"), is(PUT));
 		assertThat(RouteType.from("patch"), is(PATCH));
 		assertThat(RouteType.from("delete"), is(DELETE));
+		assertThat(RouteType.from("head"), is(HEAD));
 	}
 
 	@Test
@@ -22,6 +22,7 @@ import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
@@ -43,6 +44,7 @@ import com.threewks.thundr.test.mock.servlet.MockHttpServletResponse;
 public class RoutesTest {
 	@Rule public ExpectedException thrown = ExpectedException.none();
 	private Routes routesObj;
+	private TestActionResolver actionResolver = new TestActionResolver();
 
 	private MockHttpServletRequest req = new MockHttpServletRequest();
 	private MockHttpServletResponse resp = new MockHttpServletResponse();
@@ -50,7 +52,48 @@ public class RoutesTest {
 	@Before
 	public void before() {
 		routesObj = new Routes();
-		routesObj.addActionResolver(TestAction.class, new TestActionResolver());
+		routesObj.addActionResolver(TestAction.class, actionResolver);
+	}
+
+	@Test
+	public void shouldInitialiseActionsAsTheyAreAddedByDefault() {
+		TestAction action = new TestAction("action");
+		routesObj.addRoute(RouteType.GET, "/route/", null, action);
+		assertThat(routesObj.isLazyInitialisation(), is(false));
+		assertThat(actionResolver.initialised, contains(action));
+		assertThat(routesObj.getDeferredActionCount(), is(0));
+	}
+
+	@Test
+	public void shouldDeferInitialisingActionsWhenLazy() {
+		routesObj.setLazyInitialisation(true);
+		TestAction action = new TestAction("action");
+		routesObj.addRoute(RouteType.GET, "/route/", null, action);
+		routesObj.addRoutes(routesObj.parseJsonRoutes("{ \"/other/\": \"other\"}"));
+		assertThat(actionResolver.initialised.isEmpty(), is(true));
+		assertThat(routesObj.getDeferredActionCount(), is(2));
+		assertThat(routesObj.invoke("/route/", RouteType.GET, req, resp), is((Object) action));
+
+		Map<Action, Exception> failures = routesObj.initialiseDeferredActions();
+		assertThat(failures.isEmpty(), is(true));
+		assertThat(actionResolver.initialised.size(), is(2));
+		assertThat(routesObj.getDeferredActionCount(), is(0));
+		assertThat(routesObj.initialiseDeferredActions().isEmpty(), is(true));
+		assertThat(actionResolver.initialised.size(), is(2));
+	}
+
+	@Test
+	public void shouldReturnActionsWhichFailedDeferredInitialisationAndContinue() {
+		routesObj.setLazyInitialisation(true);
+		TestAction broken = new TestAction("broken");
+		TestAction working = new TestAction("working");
+		routesObj.addRoute(RouteType.GET, "/broken/", null, broken);
+		routesObj.addRoute(RouteType.GET, "/working/", null, working);
+
+		Map<Action, Exception> failures = routesObj.initialiseDeferredActions();
+		assertThat(failures.size(), is(1));
+		assertThat(failures.get(broken).getMessage(), is("Expected"));
+		assertThat(actionResolver.initialised, contains(working));
 	}
 
 	@Test
@@ -158,6 +201,59 @@ public class RoutesTest {
 		assertThat(routes.findMatchingRoute("/path/image.jpeg", RouteType.GET), is(nullValue()));
 	}
 
+	@Test
+	public void shouldFindMatchWithActionAndPathVariables() {
+		Routes routes = new Routes();
+		routes.addActionResolver(TestAction.class, new TestActionResolver());
+		Route route = new Route(RouteType.GET, "/path/{id}/{name}.jpg", null);
+		TestAction action = new TestAction("action");
+		routes.addRoutes(Expressive.<Route, Action> map(route, action));
+
+		RouteMatch match = routes.findMatch("/path/123/my%20image.jpg", RouteType.GET);
+		assertThat(match, is(notNullValue()));
+		assertThat(match.getRoute(), is(route));
+		assertThat(match.getAction(), is((Action) action));
+		assertThat(match.getPathVars(), is(Expressive.<String, String> map("id", "123", "name", "my image")));
+		assertThat(routes.findMatch("/path/123/my%20image.jpg", RouteType.POST), is(nullValue()));
+		assertThat(routes.findMatch("/path/123", RouteType.GET), is(nullValue()));
+	}
+
+	@Test
+	public void shouldFindGetRouteForHeadRequestWhenNoHeadRouteDeclared() {
+		Routes routes = new Routes();
+		routes.addActionResolver(TestAction.class, new TestActionResolver());
+		Route route = new Route(RouteType.GET, "/path/{id}", null);
+		TestAction action = new TestAction("action");
+		routes.addRoutes(Expressive.<Route, Action> map(route, action));
+
+		RouteMatch match = routes.findMatch("/path/123", RouteType.HEAD);
+		assertThat(match, is(notNullValue()));
+		assertThat(match.getRoute(), is(route));
+		assertThat(match.getAction(), is((Action) action));
+		assertThat(match.getPathVars(), is(Expressive.<String, String> map("id", "123")));
+		assertThat(routes.findMatch("/other", RouteType.HEAD), is(nullValue()));
+	}
+
+	@Test
+	public void shouldPreferHeadRouteForHeadRequestWhenDeclared() {
+		Routes routes = new Routes();
+		routes.addActionResolver(TestAction.class, new TestActionResolver());
+		Route get = new Route(RouteType.GET, "/path", null);
+		Route head = new Route(RouteType.HEAD, "/path", null);
+		routes.addRoutes(Expressive.<Route, Action> map(get, new TestAction("get"), head, new TestAction("head")));
+
+		assertThat(routes.findMatchingRoute("/path", RouteType.HEAD), is(head));
+		assertThat(routes.findMatchingRoute("/path", RouteType.GET), is(get));
+	}
+
+	@Test
+	public void shouldEnableMethodOverrideByDefault() {
+		Routes routes = new Routes();
+		assertThat(routes.isMethodOverrideEnabled(), is(true));
+		routes.setMethodOverrideEnabled(false);
+		assertThat(routes.isMethodOverrideEnabled(), is(false));
+	}
+
 	@Test
 	public void shouldReturnTrueIfNoRoutesHaveBeenAdded() {
 		Routes routes = new Routes();
@@ -248,6 +344,8 @@ public class RoutesTest {
 	}
 
 	private static class TestActionResolver implements ActionResolver<TestAction> {
+		private List<TestAction> initialised = new ArrayList<TestAction>();
+
 		@Override
 		public TestAction resolve(TestAction action, RouteType routeType, HttpServletRequest req, HttpServletResponse resp, Map<String, String> pathVars) throws ActionException {
 			return action;
@@ -260,6 +358,10 @@ public class RoutesTest {
 
 		@Override
 		public void initialise(TestAction action) {
+			if (action.toString().startsWith("broken")) {
+				throw new ActionException("Expected");
+			}
+			initialised.add(action);
 		}
 	}
 }
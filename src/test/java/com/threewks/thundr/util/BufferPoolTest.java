@@ -0,0 +1,65 @@
+/*
+ * This file is a component of thundr, a software library from 3wks.
+ * Read more: http://www.3wks.com.au/thundr
+ * Copyright (C) 2013 3wks, <thundr@3wks.com.au>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.threewks.thundr.util;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class BufferPoolTest {
+	private BufferPool pool = new BufferPool(16, 2);
+
+	@Test
+	public void shouldAllocateBuffersOfTheConfiguredSize() {
+		assertThat(pool.getBufferSize(), is(16));
+		assertThat(pool.acquire().length, is(16));
+		assertThat(pool.available(), is(0));
+	}
+
+	@Test
+	public void shouldReuseReleasedBuffers() {
+		byte[] buffer = pool.acquire();
+		pool.release(buffer);
+		assertThat(pool.available(), is(1));
+		assertThat(pool.acquire(), is(sameInstance(buffer)));
+		assertThat(pool.available(), is(0));
+		assertThat(pool.acquire(), is(not(sameInstance(buffer))));
+	}
+
+	@Test
+	public void shouldRetainNoMoreThanTheMaximumNumberOfBuffers() {
+		byte[] first = pool.acquire();
+		byte[] second = pool.acquire();
+		byte[] third = pool.acquire();
+		pool.release(first);
+		pool.release(second);
+		pool.release(third);
+		assertThat(pool.available(), is(2));
+		assertThat(pool.acquire(), is(sameInstance(first)));
+		assertThat(pool.acquire(), is(sameInstance(second)));
+		assertThat(pool.acquire(), is(not(sameInstance(third))));
+	}
+
+	@Test
+	public void shouldIgnoreNullAndForeignBuffers() {
+		pool.release(null);
+		pool.release(new byte[8]);
+		assertThat(pool.available(), is(0));
+	}
+}
@@ -21,8 +21,17 @@ import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.*;
 
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Test;
 
+import com.threewks.thundr.bind.JavaBean;
+
 public class ViewResolverRegistryTest {
 	private ViewResolverRegistry registry = new ViewResolverRegistry();
 
@@ -39,6 +48,32 @@ public class ViewResolverRegistryTest {
 		assertThat(registry.findViewResolver(new IllegalArgumentException()), is(resolverB));
 	}
 
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void shouldNotPreventCachedViewResultTypesBeingUnloaded() throws Exception {
+		ViewResolver resolver = mock(ViewResolver.class);
+		registry.addResolver(Object.class, resolver);
+		WeakReference<ClassLoader> classLoader = resolveWithIsolatedClass(registry, resolver);
+
+		for (int i = 0; i < 50 && classLoader.get() != null; i++) {
+			System.gc();
+			Thread.sleep(10);
+		}
+		assertThat(classLoader.get(), is(nullValue()));
+		assertThat(registry.findViewResolver(new Object()), is(resolver));
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private WeakReference<ClassLoader> resolveWithIsolatedClass(ViewResolverRegistry registry, ViewResolver resolver) throws Exception {
+		URL classes = JavaBean.class.getProtectionDomain().getCodeSource().getLocation();
+		ClassLoader isolated = new URLClassLoader(new URL[] { classes }, null);
+		Object viewResult = isolated.loadClass(JavaBean.class.getName()).newInstance();
+		assertThat(viewResult.getClass(), is(not((Object) JavaBean.class)));
+		assertThat(registry.findViewResolver(viewResult), is(resolver));
+		assertThat(registry.findViewResolverInCache(viewResult), is(resolver));
+		return new WeakReference<ClassLoader>(isolated);
+	}
+
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	@Test
 	public void shouldCacheViewResolverMatchAndUseForSubsequentRequests() {
@@ -107,4 +142,53 @@ public class ViewResolverRegistryTest {
 		assertThat(registry.findViewResolver(viewResult), is(nullValue()));
 		assertThat(registry.findViewResolverInCache(viewResult), is(nullValue()));
 	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void shouldPreferSuperclassesOverInterfacesAndLaterRegistrations() {
+		ViewResolver superclassResolver = mock(ViewResolver.class);
+		ViewResolver interfaceResolver = mock(ViewResolver.class);
+		ViewResolver laterResolver = mock(ViewResolver.class);
+		registry.addResolver(Comparable.class, interfaceResolver);
+		registry.addResolver(Number.class, superclassResolver);
+		assertThat(registry.findViewResolver("string"), is(interfaceResolver));
+		assertThat(registry.findViewResolver(1), is(superclassResolver));
+		assertThat(registry.findViewResolver(new Object()), is(nullValue()));
+
+		registry.addResolver(Number.class, laterResolver);
+		assertThat(registry.findViewResolverInCache(1), is(nullValue()));
+		assertThat(registry.findViewResolver(1), is(laterResolver));
+		assertThat(registry.findViewResolver("string"), is(interfaceResolver));
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	@Test
+	public void shouldResolveConcurrently() throws InterruptedException {
+		final ViewResolver resolver = mock(ViewResolver.class);
+		registry.addResolver(Object.class, resolver);
+		final Object[] viewResults = new Object[] { "string", 1, 1L, 1.0d, new RuntimeException(), new Object(), new StringBuilder(), Boolean.TRUE };
+		final AtomicInteger failures = new AtomicInteger();
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 8; i++) {
+			Thread thread = new Thread() {
+				@Override
+				public void run() {
+					for (int j = 0; j < 1000; j++) {
+						if (registry.findViewResolver(viewResults[j % viewResults.length]) != resolver) {
+							failures.incrementAndGet();
+						}
+					}
+				}
+			};
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertThat(failures.get(), is(0));
+		for (Object viewResult : viewResults) {
+			assertThat(registry.findViewResolverInCache(viewResult), is(resolver));
+		}
+	}
 }
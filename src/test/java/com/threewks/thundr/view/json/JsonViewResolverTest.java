@@ -57,6 +57,35 @@ public class JsonViewResolverTest {
 		assertThat(resp.getContentLength(), is(15));
 	}
 
+	@Test
+	public void shouldApplyHeadersWithoutWritingJsonForHeadRequest() throws IOException {
+		req.method("HEAD");
+		resolver.resolve(req, resp, new JsonView(map("key", "value")).withHeader("header", "value"));
+		assertThat(resp.status(), is(HttpServletResponse.SC_OK));
+		assertThat(resp.content(), is(""));
+		assertThat(resp.<String> header("header"), is("value"));
+		assertThat(resp.getContentLength(), is(0));
+	}
+
+	@Test
+	public void shouldSetContentLengthForHeadRequestWhenEnabled() throws IOException {
+		req.method("HEAD");
+		resolver.setContentLengthForHead(true);
+		resolver.resolve(req, resp, new JsonView(map("key", "value")));
+		assertThat(resp.content(), is(""));
+		assertThat(resp.getContentLength(), is(15));
+	}
+
+	@Test
+	public void shouldSetSameContentLengthForHeadRequestWhenEnabledAndStreaming() throws IOException {
+		req.method("HEAD");
+		resolver.setContentLengthForHead(true);
+		resolver.setStreaming(4);
+		resolver.resolve(req, resp, new JsonView(map("key", "value")));
+		assertThat(resp.content(), is(""));
+		assertThat(resp.getContentLength(), is(15));
+	}
+
 	@Test
 	public void shouldResolveJsonElementByWritingJsonToOutputStreamAsJsonElement() throws IOException {
 		JsonElement jsonEl = createJsonElement();
@@ -118,4 +147,52 @@ public class JsonViewResolverTest {
 		assertThat(resolver.getGsonBuilder(), is(sameInstance(gsonBuilder)));
 	}
 
+	@Test
+	public void shouldStreamJsonWithContentLengthWhenItFitsInTheBuffer() throws IOException {
+		resolver.setStreaming(64);
+		assertThat(resolver.isStreaming(), is(true));
+		JsonView viewResult = new JsonView(map("key", "value"));
+		resolver.resolve(req, resp, viewResult);
+		assertThat(resp.status(), is(HttpServletResponse.SC_OK));
+		assertThat(resp.content(), is("{\"key\":\"value\"}"));
+		assertThat(resp.getContentType(), is("application/json"));
+		assertThat(resp.getCharacterEncoding(), is("UTF-8"));
+		assertThat(resp.getContentLength(), is(15));
+	}
+
+	@Test
+	public void shouldStreamJsonWithoutContentLengthWhenItDoesNotFitInTheBuffer() throws IOException {
+		resolver.setStreaming(8);
+		JsonView viewResult = new JsonView(map("key", "value"));
+		resolver.resolve(req, resp, viewResult);
+		assertThat(resp.content(), is("{\"key\":\"value\"}"));
+		assertThat(resp.getContentLength(), is(0));
+	}
+
+	@Test
+	public void shouldStreamJsonElement() throws IOException {
+		resolver.setStreaming(JsonViewResolver.DefaultStreamingBufferSize);
+		resolver.resolve(req, resp, new JsonView(createJsonElement()));
+		assertThat(resp.content(), is("{\"key\":\"value\"}"));
+		assertThat(resp.getContentLength(), is(15));
+	}
+
+	@Test
+	public void shouldThrowViewResolutionExceptionWhenFailedToStreamJson() throws IOException {
+		thrown.expect(ViewResolutionException.class);
+		thrown.expectMessage("Failed to generate JSON output for object 'string'");
+
+		resolver.setStreaming(64);
+		resp = spy(resp);
+		when(resp.getOutputStream()).thenThrow(new RuntimeException("fail"));
+		resolver.resolve(req, resp, new JsonView("string"));
+	}
+
+	@Test
+	public void shouldNotStreamByDefault() {
+		assertThat(resolver.isStreaming(), is(false));
+		resolver.setStreaming(64);
+		resolver.setStreaming(0);
+		assertThat(resolver.isStreaming(), is(false));
+	}
 }
@@ -57,6 +57,25 @@ public class JsonpViewResolverTest {
 		assertThat(resp.getContentLength(), is(26));
 	}
 
+	@Test
+	public void shouldApplyHeadersWithoutWritingJsonpForHeadRequest() throws IOException {
+		req.method("HEAD");
+		resolver.resolve(req, resp, new JsonpView(map("key", "value")).withHeader("header", "value"));
+		assertThat(resp.status(), is(HttpServletResponse.SC_OK));
+		assertThat(resp.content(), is(""));
+		assertThat(resp.<String> header("header"), is("value"));
+		assertThat(resp.getContentLength(), is(0));
+	}
+
+	@Test
+	public void shouldSetContentLengthWithoutWritingJsonpForHeadRequestWhenEnabled() throws IOException {
+		req.method("HEAD");
+		resolver.setContentLengthForHead(true);
+		resolver.resolve(req, resp, new JsonpView(map("key", "value")));
+		assertThat(resp.content(), is(""));
+		assertThat(resp.getContentLength(), is(26));
+	}
+
 	@Test
 	public void shouldResolveJsonElementByWritingJsonToOutputStreamAsJsonElement() throws IOException {
 		JsonElement jsonEl = createJsonElement();
@@ -105,4 +105,13 @@ public class StringViewResolverTest {
 		assertThat(resp.<String> header("header"), is("value1"));
 		assertThat(resp.getCookies(), hasItem(cookie));
 	}
+
+	@Test
+	public void shouldSetContentLengthWithoutWritingContentForHeadRequest() {
+		MockHttpServletRequest req = new MockHttpServletRequest().method("HEAD");
+		stringViewResolver.resolve(req, resp, new StringView("My view result"));
+		assertThat(resp.content(), is(""));
+		assertThat(resp.getContentLength(), is(14));
+		assertThat(resp.getContentType(), is("text/plain"));
+	}
 }